@@ -1,8 +1,11 @@
 package com.example.rag_demo;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 
 import java.util.Map;
 
@@ -17,4 +20,10 @@ class AIController {
     public Map chat(@RequestParam(name = "query") String query) {
         return Map.of("answer", chatService.chat(query));
     }
+
+    @GetMapping(path = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> chatStream(@RequestParam(name = "query") String query,
+                                                    @RequestParam(name = "sources", defaultValue = "false") boolean sources) {
+        return chatService.streamChat(query, sources);
+    }
 }
\ No newline at end of file
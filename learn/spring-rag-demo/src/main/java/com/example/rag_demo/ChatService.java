@@ -1,16 +1,29 @@
 package com.example.rag_demo;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 @Service
 public class ChatService {
+    private static final Logger logger = LoggerFactory.getLogger(ChatService.class);
 
     @Autowired
     @Qualifier("openAiChatModel")
@@ -18,6 +31,8 @@ public class ChatService {
     private ChatModel chatClient;
     @Autowired
     private VectorStore vectorStore;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     private final String PROMPT_BLUEPRINT = """  
         Answer the query strictly referring the provided context:      
@@ -29,7 +44,62 @@ public class ChatService {
     """;
 
     public String chat(String query) {
-        return chatClient.call(createPrompt(query, searchData(query)));
+        long start = System.nanoTime();
+        String answer = chatClient.call(createPrompt(query, searchData(query)));
+        // the caller gets the whole answer at once, so its first token is also its last
+        record("rag.chat.time.to.first.token", "call", start);
+        record("rag.chat.duration", "call", start);
+        return answer;
+    }
+
+    /**
+     * Stream the answer as server-sent {@code token} events as the model produces them. Retrieval
+     * runs on a worker thread once the stream is subscribed, so the request thread is released
+     * straight away; with {@code includeSources} the retrieved documents are sent as a
+     * {@code sources} event before the first token.
+     */
+    public Flux<ServerSentEvent<Object>> streamChat(String query, boolean includeSources) {
+        long start = System.nanoTime();
+        AtomicBoolean firstToken = new AtomicBoolean(true);
+        return Mono.fromCallable(() -> searchData(query))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(context -> {
+                    Flux<ServerSentEvent<Object>> tokens = chatClient.stream(createPrompt(query, context))
+                            .filter(token -> !token.isEmpty())
+                            .map(token -> event("token", token));
+                    if (!includeSources) {
+                        return tokens;
+                    }
+                    List<Map<String, Object>> sources = context.stream()
+                            .map(document -> Map.<String, Object>of("id", document.getId(), "metadata", document.getMetadata()))
+                            .toList();
+                    return Flux.concat(Flux.just(event("sources", sources)), tokens);
+                })
+                .doOnNext(event -> {
+                    if ("token".equals(event.event()) && firstToken.compareAndSet(true, false)) {
+                        record("rag.chat.time.to.first.token", "stream", start);
+                    }
+                })
+                .doFinally(signal -> {
+                    if (signal == SignalType.ON_COMPLETE) {
+                        record("rag.chat.duration", "stream", start);
+                    }
+                })
+                .onErrorResume(e -> {
+                    logger.error("Failed to stream an answer to: {}", query, e);
+                    return Flux.just(event("error", e.getMessage()));
+                });
+    }
+
+    private static ServerSentEvent<Object> event(String name, Object data) {
+        return ServerSentEvent.builder(data).event(name).build();
+    }
+
+    private void record(String timer, String mode, long start) {
+        Timer.builder(timer)
+                .tag("mode", mode)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
     }
 
     private String createPrompt(String query, List<Document> context) {
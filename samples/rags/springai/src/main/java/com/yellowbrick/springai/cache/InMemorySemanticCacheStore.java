@@ -0,0 +1,56 @@
+package com.yellowbrick.springai.cache;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+
+/**
+ * Keeps the most recent answers on the heap and scans them linearly; meant for a few thousand entries.
+ */
+public class InMemorySemanticCacheStore implements SemanticCacheStore {
+
+    private record Entry(float[] embedding, String answer) {
+    }
+
+    private final int maxEntries;
+    private final Deque<Entry> entries = new ArrayDeque<>();
+
+    public InMemorySemanticCacheStore(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public synchronized Optional<String> findAnswer(float[] embedding, double minSimilarity) {
+        Entry best = null;
+        double bestScore = minSimilarity;
+        for (Entry entry : entries) {
+            double score = dot(embedding, entry.embedding());
+            if (score >= bestScore) {
+                best = entry;
+                bestScore = score;
+            }
+        }
+        return best == null ? Optional.empty() : Optional.of(best.answer());
+    }
+
+    @Override
+    public synchronized void put(String question, float[] embedding, String answer) {
+        entries.addFirst(new Entry(embedding, answer));
+        while (entries.size() > maxEntries) {
+            entries.removeLast();
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
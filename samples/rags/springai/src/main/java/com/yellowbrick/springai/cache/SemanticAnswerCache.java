@@ -0,0 +1,82 @@
+package com.yellowbrick.springai.cache;
+
+import com.yellowbrick.springai.vectorstore.YellowBrickVectorStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Answers a question from the cache when a previously answered question lies within
+ * {@code maxDistance} cosine distance of it. Query embeddings come from the vector store, so they are
+ * shared with the retrieval step, and the cache is cleared whenever the store's content changes.
+ */
+public class SemanticAnswerCache {
+    private static final Logger logger = LoggerFactory.getLogger(SemanticAnswerCache.class);
+
+    private final YellowBrickVectorStore vectorStore;
+    private final SemanticCacheStore store;
+    private final double minSimilarity;
+
+    /**
+     * A question looked up in the cache, with the embedding it was looked up by so that
+     * {@link #put(Lookup, String)} stores the answer without embedding the question again.
+     *
+     * @param answer the cached answer, or null on a miss
+     */
+    public record Lookup(String question, float[] embedding, String answer) {
+        public boolean isHit() {
+            return answer != null;
+        }
+    }
+
+    public SemanticAnswerCache(YellowBrickVectorStore vectorStore, SemanticCacheStore store, double maxDistance) {
+        this.vectorStore = vectorStore;
+        this.store = store;
+        this.minSimilarity = 1 - maxDistance;
+        vectorStore.addContentChangeListener(store::clear);
+    }
+
+    public String getOrCompute(String question, Supplier<String> answer) {
+        Lookup lookup = find(question);
+        if (lookup.isHit()) {
+            return lookup.answer();
+        }
+        String computed = answer.get();
+        put(lookup, computed);
+        return computed;
+    }
+
+    /**
+     * Look up a question without computing its answer, for callers that produce the answer
+     * incrementally and {@link #put} it once it is complete.
+     */
+    public Lookup find(String question) {
+        float[] embedding = normalize(vectorStore.embedQuery(question));
+        Optional<String> cached = store.findAnswer(embedding, minSimilarity);
+        if (cached.isPresent()) {
+            logger.debug("semantic cache hit for: {}", question);
+        }
+        return new Lookup(question, embedding, cached.orElse(null));
+    }
+
+    public void put(Lookup lookup, String answer) {
+        store.put(lookup.question(), lookup.embedding(), answer);
+    }
+
+    private static float[] normalize(float[] vector) {
+        double sum = 0;
+        for (float v : vector) {
+            sum += (double) v * v;
+        }
+        float norm = (float) Math.sqrt(sum);
+        float[] unit = vector.clone();
+        if (norm > 0) {
+            for (int i = 0; i < unit.length; i++) {
+                unit[i] /= norm;
+            }
+        }
+        return unit;
+    }
+}
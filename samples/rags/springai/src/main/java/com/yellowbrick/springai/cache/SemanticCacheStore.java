@@ -0,0 +1,20 @@
+package com.yellowbrick.springai.cache;
+
+import java.util.Optional;
+
+/**
+ * Storage for previously answered questions, looked up by embedding similarity.
+ * Embeddings handed to a store are always unit length, so cosine similarity is a dot product.
+ */
+public interface SemanticCacheStore {
+
+    /**
+     * @return the answer of the most similar cached question, if its cosine similarity to
+     * {@code embedding} is at least {@code minSimilarity}
+     */
+    Optional<String> findAnswer(float[] embedding, double minSimilarity);
+
+    void put(String question, float[] embedding, String answer);
+
+    void clear();
+}
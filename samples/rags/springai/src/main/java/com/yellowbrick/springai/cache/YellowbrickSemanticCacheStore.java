@@ -0,0 +1,116 @@
+package com.yellowbrick.springai.cache;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Persists cached answers in two tables next to the vector store, using the same one-row-per-dimension
+ * embedding layout, so the cache is shared by every instance of the application and survives restarts.
+ * Every put evicts the oldest entries beyond {@code maxEntries}.
+ */
+public class YellowbrickSemanticCacheStore implements SemanticCacheStore {
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String answerTableName;
+    private final String embeddingTableName;
+    private final int maxEntries;
+
+    public YellowbrickSemanticCacheStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, String vectorTableName, int maxEntries) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxEntries = maxEntries;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.answerTableName = vectorTableName + "_answer_cache";
+        this.embeddingTableName = vectorTableName + "_answer_cache_embedding";
+    }
+
+    public void initialize() {
+        jdbcTemplate.execute(String.format(
+                " CREATE TABLE IF NOT EXISTS %s (\n" +
+                        " entry_id UUID NOT NULL,\n" +
+                        " question VARCHAR(4000) NOT NULL,\n" +
+                        " answer VARCHAR(60000) NOT NULL,\n" +
+                        " created_at TIMESTAMP NOT NULL)\n" +
+                        " DISTRIBUTE ON (entry_id)", answerTableName));
+        jdbcTemplate.execute(String.format(
+                " CREATE TABLE IF NOT EXISTS %s (\n" +
+                        " entry_id UUID NOT NULL,\n" +
+                        " embedding_id SMALLINT NOT NULL,\n" +
+                        " embedding FLOAT NOT NULL)\n" +
+                        " DISTRIBUTE ON (entry_id)", embeddingTableName));
+    }
+
+    @Override
+    public Optional<String> findAnswer(float[] embedding, double minSimilarity) {
+        StringBuilder values = new StringBuilder("(VALUES ");
+        List<Object> args = new ArrayList<>(embedding.length + 1);
+        for (int i = 0; i < embedding.length; i++) {
+            values.append(i == 0 ? "" : ", ").append('(').append(i).append(", ?)");
+            args.add(embedding[i]);
+        }
+        values.append(')');
+        args.add(minSimilarity);
+        String sql = " SELECT a.answer" +
+                " FROM" +
+                "   (SELECT e.entry_id, SUM(q.embedding * e.embedding) AS score" +
+                "    FROM " + values + " q (embedding_id, embedding)" +
+                "    INNER JOIN " + embeddingTableName + " e ON q.embedding_id = e.embedding_id" +
+                "    GROUP BY e.entry_id" +
+                "    HAVING SUM(q.embedding * e.embedding) >= ?" +
+                "    ORDER BY score DESC LIMIT 1) s" +
+                " INNER JOIN " + answerTableName + " a ON s.entry_id = a.entry_id";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> rs.getString(1), args.toArray()).stream().findFirst();
+    }
+
+    @Override
+    public void put(String question, float[] embedding, String answer) {
+        UUID entryId = UUID.randomUUID();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT INTO " + answerTableName + " (entry_id, question, answer, created_at) VALUES (?, ?, ?, CURRENT_TIMESTAMP)",
+                    entryId, question, answer);
+            jdbcTemplate.batchUpdate("INSERT INTO " + embeddingTableName + " (entry_id, embedding_id, embedding) VALUES (?, ?, ?)",
+                    new BatchPreparedStatementSetter() {
+
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            StatementCreatorUtils.setParameterValue(ps, 1, Integer.MIN_VALUE, entryId);
+                            StatementCreatorUtils.setParameterValue(ps, 2, Integer.MIN_VALUE, i);
+                            StatementCreatorUtils.setParameterValue(ps, 3, Integer.MIN_VALUE, embedding[i]);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return embedding.length;
+                        }
+                    });
+            evict();
+        });
+    }
+
+    /**
+     * Delete every entry but the {@code maxEntries} newest, embeddings first since they are found
+     * through the answer table.
+     */
+    private void evict() {
+        String evicted = "SELECT entry_id FROM " + answerTableName + " ORDER BY created_at DESC, entry_id OFFSET ?";
+        jdbcTemplate.update("DELETE FROM " + embeddingTableName + " WHERE entry_id IN (" + evicted + ")", maxEntries);
+        jdbcTemplate.update("DELETE FROM " + answerTableName + " WHERE entry_id IN (" + evicted + ")", maxEntries);
+    }
+
+    @Override
+    public void clear() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM " + embeddingTableName);
+            jdbcTemplate.update("DELETE FROM " + answerTableName);
+        });
+    }
+}
@@ -1,42 +1,44 @@
 package com.yellowbrick.springai.config;
 
+import com.yellowbrick.springai.cache.InMemorySemanticCacheStore;
+import com.yellowbrick.springai.cache.SemanticAnswerCache;
+import com.yellowbrick.springai.cache.SemanticCacheStore;
+import com.yellowbrick.springai.cache.YellowbrickSemanticCacheStore;
 import com.yellowbrick.springai.vectorstore.YellowBrickVectorStore;
-import io.micrometer.observation.ObservationRegistry;
-import org.springframework.ai.embedding.BatchingStrategy;
-import org.springframework.ai.embedding.EmbeddingModel;
-import org.springframework.ai.embedding.TokenCountBatchingStrategy;
-import org.springframework.ai.vectorstore.observation.VectorStoreObservationConvention;
-import org.springframework.beans.factory.ObjectProvider;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
 
+/**
+ * The {@code YellowBrickVectorStore} and its {@code BatchingStrategy} come from
+ * {@code YbVectorStoreAutoConfig}, bound to the {@code spring.ai.vectorstore.ybvector} properties.
+ */
 @Configuration
-@EnableConfigurationProperties(YbVectorStoreProperties.class)
+@EnableConfigurationProperties(SemanticCacheProperties.class)
 public class Config {
 
-    @Bean
-    @ConditionalOnMissingBean({BatchingStrategy.class})
-    BatchingStrategy pgVectorStoreBatchingStrategy() {
-        return new TokenCountBatchingStrategy();
-    }
-
     @Bean
      ChatClient chatClient(ChatClient.Builder builder) {
         return builder.build();
     }
-    @Bean
-    YellowBrickVectorStore ybvectorStore(JdbcTemplate jdbcTemplate, EmbeddingModel embeddingModel, YbVectorStoreProperties properties, ObjectProvider<ObservationRegistry> observationRegistry, ObjectProvider<VectorStoreObservationConvention> customObservationConvention, BatchingStrategy batchingStrategy) {
-        return new YellowBrickVectorStore( properties.getTableName(), jdbcTemplate, embeddingModel, properties.isInitializeSchema(),
-                (ObservationRegistry) observationRegistry.getIfUnique(() -> {
-                    return ObservationRegistry.NOOP;
-                }),
-                (VectorStoreObservationConvention) customObservationConvention.getIfAvailable(() -> {
-                    return null;
-                }), batchingStrategy, properties.getMaxDocumentBatchSize());
 
+    @Bean
+    @ConditionalOnProperty(prefix = "app.semantic-cache", name = "enabled", havingValue = "true")
+    SemanticAnswerCache semanticAnswerCache(SemanticCacheProperties properties, YellowBrickVectorStore vectorStore, YbVectorStoreProperties vectorStoreProperties,
+                                            JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        SemanticCacheStore store;
+        if (properties.getStorage() == SemanticCacheProperties.Storage.YELLOWBRICK) {
+            YellowbrickSemanticCacheStore yellowbrickStore = new YellowbrickSemanticCacheStore(jdbcTemplate, transactionManager, vectorStoreProperties.getTableName(),
+                    properties.getMaxEntries());
+            yellowbrickStore.initialize();
+            store = yellowbrickStore;
+        } else {
+            store = new InMemorySemanticCacheStore(properties.getMaxEntries());
+        }
+        return new SemanticAnswerCache(vectorStore, store, properties.getMaxDistance());
     }
 }
@@ -0,0 +1,56 @@
+package com.yellowbrick.springai.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties("app.semantic-cache")
+public class SemanticCacheProperties {
+
+    public enum Storage {
+        MEMORY,
+        YELLOWBRICK
+    }
+
+    private boolean enabled;
+    private double maxDistance;
+    private Storage storage;
+    private int maxEntries;
+
+    public SemanticCacheProperties() {
+        this.enabled = false;
+        this.maxDistance = 0.05;
+        this.storage = Storage.MEMORY;
+        this.maxEntries = 1000;
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getMaxDistance() {
+        return this.maxDistance;
+    }
+
+    public void setMaxDistance(double maxDistance) {
+        this.maxDistance = maxDistance;
+    }
+
+    public Storage getStorage() {
+        return this.storage;
+    }
+
+    public void setStorage(Storage storage) {
+        this.storage = storage;
+    }
+
+    public int getMaxEntries() {
+        return this.maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+}
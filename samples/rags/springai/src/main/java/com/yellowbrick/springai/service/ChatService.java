@@ -1,16 +1,31 @@
 package com.yellowbrick.springai.service;
 
+import com.yellowbrick.springai.cache.SemanticAnswerCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 @Service
 public class ChatService {
+    private static final Logger logger = LoggerFactory.getLogger(ChatService.class);
 
     @Autowired
     @Qualifier("openAiChatModel")
@@ -19,6 +34,10 @@ public class ChatService {
     private ChatModel chatClient;
      @Autowired
     private VectorStore vectorStore;
+    @Autowired(required = false)
+    private SemanticAnswerCache semanticAnswerCache;
+    @Autowired
+    private MeterRegistry meterRegistry;
     private final String PROMPT_BLUEPRINT = """
         Answer the query like Robert Dinero strictly referring the provided context:
         {context}
@@ -29,6 +48,89 @@ public class ChatService {
     """;
 
     public String chat(String query) {
+        long start = System.nanoTime();
+        String answer = semanticAnswerCache != null
+                ? semanticAnswerCache.getOrCompute(query, () -> answer(query))
+                : answer(query);
+        // the caller gets the whole answer at once, so its first token is also its last
+        record("rag.chat.time.to.first.token", "call", start);
+        record("rag.chat.duration", "call", start);
+        return answer;
+    }
+
+    /**
+     * Stream the answer as server-sent {@code token} events as the model produces them. Retrieval
+     * runs on a worker thread once the stream is subscribed, so the request thread is released
+     * straight away; with {@code includeSources} the retrieved documents are sent as a
+     * {@code sources} event before the first token. An answer from the semantic cache is sent as a
+     * single token, and its sources are retrieved just as they would be for a fresh answer.
+     */
+    public Flux<ServerSentEvent<Object>> streamChat(String query, boolean includeSources) {
+        long start = System.nanoTime();
+        AtomicBoolean firstToken = new AtomicBoolean(true);
+        return Mono.fromCallable(() -> Optional.ofNullable(semanticAnswerCache != null ? semanticAnswerCache.find(query) : null))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(lookup -> lookup.filter(SemanticAnswerCache.Lookup::isHit).isPresent()
+                        ? cachedAnswer(query, lookup.get().answer(), includeSources)
+                        : streamAnswer(query, lookup.orElse(null), includeSources))
+                .doOnNext(event -> {
+                    if ("token".equals(event.event()) && firstToken.compareAndSet(true, false)) {
+                        record("rag.chat.time.to.first.token", "stream", start);
+                    }
+                })
+                .doFinally(signal -> {
+                    if (signal == SignalType.ON_COMPLETE) {
+                        record("rag.chat.duration", "stream", start);
+                    }
+                })
+                .onErrorResume(e -> {
+                    logger.error("Failed to stream an answer to: {}", query, e);
+                    return Flux.just(event("error", e.getMessage()));
+                });
+    }
+
+    private Flux<ServerSentEvent<Object>> cachedAnswer(String query, String answer, boolean includeSources) {
+        Flux<ServerSentEvent<Object>> token = Flux.just(event("token", answer));
+        return includeSources ? Flux.concat(Flux.just(sourcesEvent(searchData(query))), token) : token;
+    }
+
+    /**
+     * @param lookup the cache miss to store the answer under, or null without a cache
+     */
+    private Flux<ServerSentEvent<Object>> streamAnswer(String query, SemanticAnswerCache.Lookup lookup, boolean includeSources) {
+        List<Document> context = searchData(query);
+        StringBuilder answer = new StringBuilder();
+        Flux<ServerSentEvent<Object>> tokens = chatClient.stream(createPrompt(query, context))
+                .filter(token -> !token.isEmpty())
+                .doOnNext(answer::append)
+                .doOnComplete(() -> {
+                    if (lookup != null) {
+                        semanticAnswerCache.put(lookup, answer.toString());
+                    }
+                })
+                .map(token -> event("token", token));
+        return includeSources ? Flux.concat(Flux.just(sourcesEvent(context)), tokens) : tokens;
+    }
+
+    private static ServerSentEvent<Object> sourcesEvent(List<Document> context) {
+        List<Map<String, Object>> sources = context.stream()
+                .map(document -> Map.<String, Object>of("id", document.getId(), "metadata", document.getMetadata()))
+                .toList();
+        return event("sources", sources);
+    }
+
+    private static ServerSentEvent<Object> event(String name, Object data) {
+        return ServerSentEvent.builder(data).event(name).build();
+    }
+
+    private void record(String timer, String mode, long start) {
+        Timer.builder(timer)
+                .tag("mode", mode)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private String answer(String query) {
         return chatClient.call(createPrompt(query, searchData(query)));
     }
 
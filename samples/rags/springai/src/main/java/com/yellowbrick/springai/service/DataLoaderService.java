@@ -1,18 +1,23 @@
 package com.yellowbrick.springai.service;
 
-import jakarta.annotation.PostConstruct;
+import com.yellowbrick.springai.vectorstore.YbIngestionJob;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.reader.ExtractedTextFormatter;
 import org.springframework.ai.reader.pdf.config.PdfDocumentReaderConfig;
 import org.springframework.ai.transformer.splitter.TokenTextSplitter;
-import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 import org.springframework.ai.reader.pdf.PagePdfDocumentReader;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 @Service
 public class DataLoaderService {
     private static final Logger logger = LoggerFactory.getLogger(DataLoaderService.class);
@@ -21,20 +26,33 @@ public class DataLoaderService {
     private Resource pdfResource;
 
     @Autowired
-    private VectorStore vectorStore;
+    private YbIngestionJob ingestionJob;
 
-    @PostConstruct
-    public void load() {
-        PagePdfDocumentReader pdfReader = new PagePdfDocumentReader(this.pdfResource,
-                PdfDocumentReaderConfig.builder()
-                        .withPageExtractedTextFormatter(ExtractedTextFormatter.builder()
-                                .withNumberOfBottomTextLinesToDelete(3)
-                                .withNumberOfTopPagesToSkipBeforeDelete(1)
-                                .build())
-                        .withPagesPerDocument(1)
-                        .build());
-        var tokenTextSplitter = new TokenTextSplitter();
-        this.vectorStore.accept(tokenTextSplitter.apply(pdfReader.get()));
+    /**
+     * Queue the handbook on the ingestion job once the application is ready, so {@code /chat} serves
+     * while it is indexed. Nothing is re-embedded when the PDF is unchanged since the last start, only
+     * changed chunks are when it was edited, and an interrupted load resumes where it stopped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() throws IOException {
+        String source = this.pdfResource.getFilename();
+        String version;
+        try (InputStream in = this.pdfResource.getInputStream()) {
+            version = DigestUtils.md5DigestAsHex(in);
+        }
+        this.ingestionJob.start(source, version, () -> {
+            PagePdfDocumentReader pdfReader = new PagePdfDocumentReader(this.pdfResource,
+                    PdfDocumentReaderConfig.builder()
+                            .withPageExtractedTextFormatter(ExtractedTextFormatter.builder()
+                                    .withNumberOfBottomTextLinesToDelete(3)
+                                    .withNumberOfTopPagesToSkipBeforeDelete(1)
+                                    .build())
+                            .withPagesPerDocument(1)
+                            .build());
+            var tokenTextSplitter = new TokenTextSplitter();
+            return tokenTextSplitter.apply(pdfReader.get());
+        });
+        logger.info("queued {} at version {} for indexing", source, version);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.yellowbrick.springai.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InMemorySemanticCacheStoreTest {
+    private final InMemorySemanticCacheStore store = new InMemorySemanticCacheStore(2);
+
+    @Test
+    void answersFromTheMostSimilarEntryAboveTheThreshold() {
+        this.store.put("east", new float[]{1, 0}, "east answer");
+        this.store.put("north", new float[]{0, 1}, "north answer");
+
+        assertEquals(Optional.of("north answer"), this.store.findAnswer(new float[]{0.6f, 0.8f}, 0.5));
+        assertEquals(Optional.empty(), this.store.findAnswer(new float[]{0.6f, 0.8f}, 0.9));
+    }
+
+    @Test
+    void acceptsAScoreEqualToTheThreshold() {
+        this.store.put("east", new float[]{1, 0}, "east answer");
+
+        assertEquals(Optional.of("east answer"), this.store.findAnswer(new float[]{0.5f, 0}, 0.5));
+        assertEquals(Optional.empty(), this.store.findAnswer(new float[]{0.5f, 0}, 0.50001));
+    }
+
+    @Test
+    void evictsTheOldestEntriesBeyondMaxEntries() {
+        this.store.put("east", new float[]{1, 0}, "east answer");
+        this.store.put("north", new float[]{0, 1}, "north answer");
+        this.store.put("west", new float[]{-1, 0}, "west answer");
+
+        assertEquals(Optional.empty(), this.store.findAnswer(new float[]{1, 0}, 0.9));
+        assertEquals(Optional.of("north answer"), this.store.findAnswer(new float[]{0, 1}, 0.9));
+        assertEquals(Optional.of("west answer"), this.store.findAnswer(new float[]{-1, 0}, 0.9));
+    }
+
+    @Test
+    void forgetsEverythingOnClear() {
+        this.store.put("east", new float[]{1, 0}, "east answer");
+
+        this.store.clear();
+
+        assertEquals(Optional.empty(), this.store.findAnswer(new float[]{1, 0}, 0));
+    }
+}
@@ -0,0 +1,102 @@
+package com.yellowbrick.springai.cache;
+
+import com.yellowbrick.springai.vectorstore.YellowBrickVectorStore;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SemanticAnswerCacheTest {
+    private static final EmbeddingModel UNUSED_MODEL = new EmbeddingModel() {
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    /**
+     * Embeds the questions given in {@code vectors} and counts how often it is asked to.
+     */
+    private static final class EmbeddingStore extends YellowBrickVectorStore {
+        private final Map<String, float[]> vectors;
+        private final List<String> embedded = new ArrayList<>();
+
+        EmbeddingStore(Map<String, float[]> vectors) {
+            super("vector_store", new JdbcTemplate(), UNUSED_MODEL, false, ObservationRegistry.NOOP, null,
+                    documents -> List.of(documents), 100, new DataSourceTransactionManager());
+            this.vectors = vectors;
+        }
+
+        @Override
+        public float[] embedQuery(String query) {
+            this.embedded.add(query);
+            return this.vectors.get(query).clone();
+        }
+    }
+
+    private final EmbeddingStore vectorStore = new EmbeddingStore(Map.of(
+            "how many vacation days", new float[]{3, 4},
+            "vacation days per year", new float[]{3.3f, 3.7f},
+            "who approves expenses", new float[]{4, -3}));
+    private final InMemorySemanticCacheStore store = new InMemorySemanticCacheStore(10);
+
+    @Test
+    void answersQuestionsWithinTheDistanceFromTheCache() {
+        SemanticAnswerCache cache = new SemanticAnswerCache(this.vectorStore, this.store, 0.05);
+        cache.getOrCompute("how many vacation days", () -> "25");
+
+        assertEquals("25", cache.getOrCompute("vacation days per year", () -> "computed"));
+        assertEquals("computed", cache.getOrCompute("who approves expenses", () -> "computed"));
+    }
+
+    @Test
+    void missesQuestionsFartherThanTheDistance() {
+        // the two vacation questions are about 0.0036 apart in cosine distance
+        SemanticAnswerCache cache = new SemanticAnswerCache(this.vectorStore, this.store, 0.001);
+        cache.getOrCompute("how many vacation days", () -> "25");
+
+        assertEquals("computed", cache.getOrCompute("vacation days per year", () -> "computed"));
+    }
+
+    @Test
+    void embedsEachQuestionOnceOnAMiss() {
+        SemanticAnswerCache cache = new SemanticAnswerCache(this.vectorStore, this.store, 0.05);
+
+        cache.getOrCompute("how many vacation days", () -> "25");
+
+        assertEquals(List.of("how many vacation days"), this.vectorStore.embedded);
+    }
+
+    @Test
+    void storesALookedUpAnswerUnderTheLookupEmbedding() {
+        SemanticAnswerCache cache = new SemanticAnswerCache(this.vectorStore, this.store, 0.05);
+
+        SemanticAnswerCache.Lookup lookup = cache.find("how many vacation days");
+        assertFalse(lookup.isHit());
+        assertArrayEquals(new float[]{0.6f, 0.8f}, lookup.embedding(), 1e-6f);
+        cache.put(lookup, "25");
+
+        assertEquals(List.of("how many vacation days"), this.vectorStore.embedded);
+        SemanticAnswerCache.Lookup hit = cache.find("vacation days per year");
+        assertTrue(hit.isHit());
+        assertEquals("25", hit.answer());
+    }
+}
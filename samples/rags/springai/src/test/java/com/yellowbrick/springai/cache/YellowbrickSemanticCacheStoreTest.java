@@ -0,0 +1,105 @@
+package com.yellowbrick.springai.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class YellowbrickSemanticCacheStoreTest {
+
+    /**
+     * Records statements and their arguments instead of running them.
+     */
+    private static final class RecordingJdbcTemplate extends JdbcTemplate {
+        private final List<String> statements = new ArrayList<>();
+        private final List<List<Object>> arguments = new ArrayList<>();
+        private List<String> answers = List.of();
+
+        @Override
+        public int update(String sql, Object... args) {
+            this.statements.add(sql);
+            this.arguments.add(Arrays.asList(args));
+            return 0;
+        }
+
+        @Override
+        public int[] batchUpdate(String sql, BatchPreparedStatementSetter setter) {
+            this.statements.add(sql);
+            this.arguments.add(List.of(setter.getBatchSize()));
+            return new int[0];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            this.statements.add(sql);
+            this.arguments.add(Arrays.asList(args));
+            return (List<T>) this.answers;
+        }
+    }
+
+    private static final PlatformTransactionManager NO_TRANSACTIONS = new PlatformTransactionManager() {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    };
+
+    private final RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate();
+    private final YellowbrickSemanticCacheStore store = new YellowbrickSemanticCacheStore(this.jdbcTemplate, NO_TRANSACTIONS, "vector_store", 100);
+
+    @Test
+    void evictsBeyondMaxEntriesOnEveryPut() {
+        this.store.put("question", new float[]{0.6f, 0.8f}, "answer");
+
+        assertEquals(4, this.jdbcTemplate.statements.size());
+        assertTrue(this.jdbcTemplate.statements.get(0).startsWith("INSERT INTO vector_store_answer_cache "));
+        assertTrue(this.jdbcTemplate.statements.get(1).startsWith("INSERT INTO vector_store_answer_cache_embedding "));
+        assertEquals(List.of(2), this.jdbcTemplate.arguments.get(1));
+        // embeddings go first, since the entries to evict are picked from the answer table
+        String evictEmbeddings = this.jdbcTemplate.statements.get(2);
+        String evictAnswers = this.jdbcTemplate.statements.get(3);
+        assertTrue(evictEmbeddings.startsWith("DELETE FROM vector_store_answer_cache_embedding WHERE entry_id IN ("), evictEmbeddings);
+        assertTrue(evictAnswers.startsWith("DELETE FROM vector_store_answer_cache WHERE entry_id IN ("), evictAnswers);
+        assertTrue(evictAnswers.contains("ORDER BY created_at DESC, entry_id OFFSET ?"), evictAnswers);
+        assertEquals(List.of(100), this.jdbcTemplate.arguments.get(2));
+        assertEquals(List.of(100), this.jdbcTemplate.arguments.get(3));
+    }
+
+    @Test
+    void bindsTheQueryVectorAndTheThreshold() {
+        this.jdbcTemplate.answers = List.of("cached");
+
+        assertEquals(Optional.of("cached"), this.store.findAnswer(new float[]{0.6f, 0.8f}, 0.95));
+
+        String sql = this.jdbcTemplate.statements.get(0);
+        assertTrue(sql.contains("(VALUES (0, ?), (1, ?)) q (embedding_id, embedding)"), sql);
+        assertTrue(sql.contains("HAVING SUM(q.embedding * e.embedding) >= ?"), sql);
+        assertEquals(List.of(0.6f, 0.8f, 0.95), this.jdbcTemplate.arguments.get(0));
+    }
+
+    @Test
+    void missesWithoutARowAboveTheThreshold() {
+        assertEquals(Optional.empty(), this.store.findAnswer(new float[]{1, 0}, 0.95));
+    }
+}
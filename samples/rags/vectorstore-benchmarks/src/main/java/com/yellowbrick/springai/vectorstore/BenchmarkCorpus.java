@@ -0,0 +1,98 @@
+package com.yellowbrick.springai.vectorstore;
+
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Reproducible documents shaped like the chunks the sample applications load: a few kilobytes of
+ * prose from a PDF page, with the reader's page metadata plus source and version.
+ */
+final class BenchmarkCorpus {
+    private static final String[] WORDS = (
+            "employee benefits policy coverage plan medical dental vision claim deductible premium "
+                    + "enrollment period eligible dependent spouse retirement contribution match vesting "
+                    + "leave vacation holiday accrual request approval manager department handbook section "
+                    + "reimbursement expense travel receipt submit within days business conduct security "
+                    + "access badge device password report incident compliance training annual review "
+                    + "performance goal compensation salary bonus payroll schedule overtime remote office "
+                    + "the a of to and in for is on with as by be that this are may must will or an").split(" ");
+
+    private BenchmarkCorpus() {
+    }
+
+    /**
+     * {@code count} documents of about {@code textLength} characters, with embeddings of
+     * {@code dimensions} when {@code embeddingModel} is not null.
+     */
+    static List<Document> documents(int count, int textLength, FakeEmbeddingModel embeddingModel) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Document> documents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Document document = new Document(new UUID(42, i).toString(), text(random, textLength), metadata(i));
+            if (embeddingModel != null) {
+                document.setEmbedding(embeddingModel.embed(document));
+            }
+            documents.add(document);
+        }
+        return documents;
+    }
+
+    /**
+     * Short questions over the same vocabulary.
+     */
+    static List<String> queries(int count) {
+        SplittableRandom random = new SplittableRandom(7);
+        List<String> queries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            queries.add(text(random, 60) + "?");
+        }
+        return queries;
+    }
+
+    /**
+     * Fresh documents with the same ids, text and metadata, since adding a document sets its embedding.
+     */
+    static List<Document> copies(List<Document> documents) {
+        List<Document> copies = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            copies.add(new Document(document.getId(), document.getContent(), new HashMap<>(document.getMetadata())));
+        }
+        return copies;
+    }
+
+    static String text(SplittableRandom random, int length) {
+        StringBuilder text = new StringBuilder(length + 16);
+        int sentence = 0;
+        while (text.length() < length) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            text.append(sentence == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+            if (++sentence > 8 + random.nextInt(12)) {
+                text.append(". ");
+                sentence = 0;
+            } else {
+                text.append(' ');
+            }
+        }
+        return text.toString().trim();
+    }
+
+    static Map<String, Object> metadata(int chunk) {
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put(YellowBrickVectorStore.SOURCE_METADATA_KEY, "Employee-Handbook-" + (chunk / 200) + ".pdf");
+        metadata.put(YellowBrickVectorStore.SOURCE_VERSION_METADATA_KEY, "2024-10-01T00:00:00Z");
+        metadata.put("file_name", "Employee-Handbook-" + (chunk / 200) + ".pdf");
+        metadata.put("page_number", 1 + chunk % 200);
+        metadata.put("end_page_number", 1 + chunk % 200);
+        metadata.put("title", "Section " + (1 + chunk % 17) + ": Benefits and Leave");
+        metadata.put("department", chunk % 3 == 0 ? "HR" : chunk % 3 == 1 ? "Finance" : "IT");
+        metadata.put("tags", List.of("policy", "handbook", "page-" + (1 + chunk % 200)));
+        return metadata;
+    }
+}
@@ -0,0 +1,51 @@
+package com.yellowbrick.springai.vectorstore;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.TokenCountBatchingStrategy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+/**
+ * The database the end-to-end benchmarks run against, from the {@code bench.jdbc.url},
+ * {@code bench.jdbc.user}, {@code bench.jdbc.password} and {@code bench.sql.dialect} system
+ * properties. The defaults are a local PostgreSQL.
+ */
+final class BenchmarkDatabase {
+
+    private BenchmarkDatabase() {
+    }
+
+    static String url() {
+        return System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/postgres");
+    }
+
+    static YellowBrickVectorStore.SqlDialect dialect() {
+        return YellowBrickVectorStore.SqlDialect.valueOf(
+                System.getProperty("bench.sql.dialect", YellowBrickVectorStore.SqlDialect.POSTGRESQL.name()));
+    }
+
+    static HikariDataSource dataSource(int poolSize) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url());
+        config.setUsername(System.getProperty("bench.jdbc.user", "postgres"));
+        config.setPassword(System.getProperty("bench.jdbc.password", "postgres"));
+        config.setMaximumPoolSize(poolSize);
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * A store over {@code table} that drops and recreates its tables on
+     * {@link YellowBrickVectorStore#afterPropertiesSet()}.
+     */
+    static YellowBrickVectorStore store(HikariDataSource dataSource, String table, EmbeddingModel embeddingModel, int batchSize) {
+        YellowBrickVectorStore store = new YellowBrickVectorStore(table, new JdbcTemplate(dataSource), embeddingModel, true,
+                ObservationRegistry.NOOP, null, new TokenCountBatchingStrategy(), batchSize,
+                new DataSourceTransactionManager(dataSource));
+        store.setSqlDialect(dialect());
+        store.setRemoveExistingVectorStoreTable(true);
+        return store;
+    }
+}
@@ -0,0 +1,94 @@
+package com.yellowbrick.springai.vectorstore;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Upserts and similarity searches through the whole store against a real database, with the
+ * {@link FakeEmbeddingModel} in place of the embedding service. Point it at Yellowbrick or at a
+ * local PostgreSQL with
+ * <pre>
+ * java -Dbench.jdbc.url=jdbc:postgresql://localhost:5432/postgres -Dbench.jdbc.user=postgres \
+ *      -Dbench.jdbc.password=postgres -Dbench.sql.dialect=POSTGRESQL -jar target/benchmarks.jar EndToEnd
+ * </pre>
+ * The benchmark drops and recreates the {@value #TABLE} tables for every trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EndToEndBenchmark {
+    static final String TABLE = "vector_store_bench";
+
+    @Param({"1024"})
+    public int dimensions;
+
+    @Param({"2000"})
+    public int corpusSize;
+
+    @Param({"COPY", "BATCH_INSERT"})
+    public YellowBrickVectorStore.IngestMode ingestMode;
+
+    @Param({"TEMP_TABLE", "INLINE"})
+    public YellowBrickVectorStore.QueryMode queryMode;
+
+    private HikariDataSource dataSource;
+    private YellowBrickVectorStore store;
+    private List<Document> corpus;
+    private List<String> queries;
+    private int nextQuery;
+    private int nextBatch;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.dataSource = BenchmarkDatabase.dataSource(4);
+        this.store = BenchmarkDatabase.store(this.dataSource, TABLE, new FakeEmbeddingModel(this.dimensions), RowBenchmark.BATCH_SIZE);
+        this.store.setIngestMode(this.ingestMode);
+        this.store.setQueryMode(this.queryMode);
+        this.store.afterPropertiesSet();
+
+        this.corpus = BenchmarkCorpus.documents(this.corpusSize, 3000, null);
+        this.store.add(BenchmarkCorpus.copies(this.corpus));
+        this.queries = BenchmarkCorpus.queries(64);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.dataSource.close();
+    }
+
+    /**
+     * Re-add {@value RowBenchmark#BATCH_SIZE} stored chunks: embed, delete the old rows and write
+     * the new ones.
+     */
+    @Benchmark
+    public void upsert() {
+        int from = this.nextBatch++ * RowBenchmark.BATCH_SIZE % this.corpus.size();
+        this.store.add(BenchmarkCorpus.copies(this.corpus.subList(from, Math.min(from + RowBenchmark.BATCH_SIZE, this.corpus.size()))));
+    }
+
+    @Benchmark
+    public List<Document> similaritySearch() {
+        String query = this.queries.get(this.nextQuery++ % this.queries.size());
+        return this.store.similaritySearch(SearchRequest.query(query).withTopK(5));
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.yellowbrick.springai.vectorstore;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic stand-in for an embedding service, so the benchmarks run offline and measure the
+ * store rather than the network. Equal texts get equal unit vectors; different texts get vectors
+ * seeded from their hash.
+ * <p>
+ * With {@code clusters > 0} the vectors are not uniform: a text is placed around one of
+ * {@code clusters} seeded centroids, chosen by its first word, with noise about {@code spread}
+ * times as long as the centroid. That gives approximate indexes such as IVF the structure real
+ * embeddings have.
+ */
+final class FakeEmbeddingModel implements EmbeddingModel {
+    private final int dimensions;
+    private final long seed;
+    private final float[][] centroids;
+    private final double spread;
+
+    FakeEmbeddingModel(int dimensions) {
+        this(dimensions, 0, 0, 0);
+    }
+
+    FakeEmbeddingModel(int dimensions, long seed, int clusters, double spread) {
+        this.dimensions = dimensions;
+        this.seed = seed;
+        // uniform(-1, 1) components have variance 1/3, so this makes the expected noise length spread
+        this.spread = spread * Math.sqrt(3.0 / dimensions);
+        this.centroids = new float[clusters][];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < clusters; i++) {
+            this.centroids[i] = unit(random, null, 0);
+        }
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<Embedding> embeddings = new ArrayList<>(request.getInstructions().size());
+        for (int i = 0; i < request.getInstructions().size(); i++) {
+            embeddings.add(new Embedding(vector(request.getInstructions().get(i)), i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return vector(document.getContent());
+    }
+
+    @Override
+    public int dimensions() {
+        return this.dimensions;
+    }
+
+    float[] vector(String text) {
+        SplittableRandom random = new SplittableRandom(this.seed * 31 + text.hashCode());
+        if (this.centroids.length == 0) {
+            return unit(random, null, 0);
+        }
+        String topic = text.strip().split("\\s+", 2)[0].toLowerCase(Locale.ROOT);
+        return unit(random, this.centroids[Math.floorMod(topic.hashCode(), this.centroids.length)], this.spread);
+    }
+
+    /**
+     * {@code center + noise * uniform(-1, 1)}, scaled to unit length; pure noise without a center.
+     */
+    private float[] unit(SplittableRandom random, float[] center, double noise) {
+        float[] vector = new float[this.dimensions];
+        double sum = 0;
+        for (int i = 0; i < vector.length; i++) {
+            double value = random.nextDouble() * 2 - 1;
+            vector[i] = (float) (center == null ? value : center[i] + noise * value);
+            sum += vector[i] * vector[i];
+        }
+        float norm = (float) Math.sqrt(sum);
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] /= norm;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,124 @@
+package com.yellowbrick.springai.vectorstore;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.TokenCountBatchingStrategy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-document work the store does in process for one batch of {@value #BATCH_SIZE} chunks:
+ * metadata to and from JSON, the write batch, the COPY rows and the document batching. Nothing
+ * here touches a database; the store is built over a data source that is never connected.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowBenchmark {
+    static final int BATCH_SIZE = 100;
+
+    @Param({"384", "1024", "1536"})
+    public int dimensions;
+
+    @Param({"1000", "4000"})
+    public int textLength;
+
+    private YellowBrickVectorStore store;
+    private List<Document> documents;
+    private List<String> metadataJson;
+    private YbWriteBatch batch;
+    private final char[] buffer = new char[1 << 16];
+
+    @Setup
+    public void setUp() {
+        FakeEmbeddingModel embeddingModel = new FakeEmbeddingModel(this.dimensions);
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:postgresql://localhost/unused", "", "");
+        this.store = new YellowBrickVectorStore("vector_store", new JdbcTemplate(dataSource), embeddingModel, false,
+                ObservationRegistry.NOOP, null, new TokenCountBatchingStrategy(), BATCH_SIZE,
+                new DataSourceTransactionManager(dataSource));
+        this.documents = BenchmarkCorpus.documents(BATCH_SIZE, this.textLength, embeddingModel);
+        this.metadataJson = this.documents.stream().map(document -> this.store.toJson(document.getMetadata())).toList();
+        this.batch = YbWriteBatch.of(this.documents, false, new YbPromotedMetadata(Map.of()), null, false);
+    }
+
+    @Benchmark
+    public void toJson(Blackhole blackhole) {
+        for (Document document : this.documents) {
+            blackhole.consume(this.store.toJson(document.getMetadata()));
+        }
+    }
+
+    /**
+     * The metadata half of the search row mapper, paid once a result's metadata is first read.
+     */
+    @Benchmark
+    public void parseMetadata(Blackhole blackhole) {
+        for (String json : this.metadataJson) {
+            blackhole.consume(this.store.parseMetadata(json));
+        }
+    }
+
+    @Benchmark
+    public YbWriteBatch writeBatch() {
+        return YbWriteBatch.of(this.documents, true, new YbPromotedMetadata(Map.of()), null, false);
+    }
+
+    @Benchmark
+    public String contentHash() {
+        String last = null;
+        for (Document document : this.documents) {
+            last = YbWriteBatch.contentHash(document);
+        }
+        return last;
+    }
+
+    @Benchmark
+    public long contentRows() throws IOException {
+        return drain(YbCopyRowReader.contentRows(this.batch, this.store::toJson));
+    }
+
+    @Benchmark
+    public long embeddingRows() throws IOException {
+        return drain(YbCopyRowReader.embeddingRows(this.batch, YbEmbeddingLayout.ROW_PER_DIMENSION));
+    }
+
+    @Benchmark
+    public long packedEmbeddingRows() throws IOException {
+        return drain(YbCopyRowReader.embeddingRows(this.batch, YbEmbeddingLayout.packed(128)));
+    }
+
+    @Benchmark
+    public List<List<Document>> batchDocuments() {
+        return this.store.batchDocuments(this.documents);
+    }
+
+    private long drain(Reader reader) throws IOException {
+        long chars = 0;
+        for (int read; (read = reader.read(this.buffer, 0, this.buffer.length)) != -1; ) {
+            chars += read;
+        }
+        return chars;
+    }
+}
@@ -0,0 +1,290 @@
+package com.yellowbrick.springai.vectorstore;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load and recall test of the store's search modes. For every configuration it loads a seeded,
+ * clustered synthetic corpus through {@link YellowBrickVectorStore#add(List)}, measures recall@k
+ * against an exact top-k computed in Java from the same embeddings, then replays the query set at
+ * each concurrency level and records throughput and the latency distribution. The results of all
+ * configurations are written to one JSON file so runs can be compared.
+ * <pre>
+ * java -cp target/benchmarks.jar -Dbench.jdbc.url=... -Dharness.configurations=EXACT_INLINE,IVF \
+ *      -Dharness.concurrency=1,8,32 com.yellowbrick.springai.vectorstore.SearchLoadHarness
+ * </pre>
+ * The database comes from the {@code bench.*} properties, see {@link BenchmarkDatabase}; the
+ * workload from the {@code harness.*} properties read in {@link Options#fromSystemProperties()}.
+ * Every configuration drops and recreates its own {@code vector_store_load_<configuration>} tables.
+ */
+public final class SearchLoadHarness {
+    private static final Logger logger = LoggerFactory.getLogger(SearchLoadHarness.class);
+    private static final long[] HISTOGRAM_BOUNDS_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000};
+
+    public enum Configuration {
+        /** Exact search, query vector written to a temporary table. */
+        EXACT_TEMP_TABLE,
+        /** Exact search, query vector inlined into the statement. */
+        EXACT_INLINE,
+        /** Exact inline search over the packed layout. */
+        PACKED,
+        /** Int8 first pass, rescored at full precision. */
+        QUANTIZED,
+        /** IVF, scoring only the {@code nprobe} nearest clusters. */
+        IVF,
+        /** BM25 and vector rankings fused. */
+        HYBRID,
+        /** HNSW graph in a memory-mapped file under {@code java.io.tmpdir}, hits read from the content table. */
+        HNSW
+    }
+
+    record Options(int documents, int textLength, int dimensions, long seed, int clusters, double spread,
+                   int queries, int topK, List<Integer> concurrency, int rounds, int ivfLists, int ivfProbes,
+                   int hnswM, int hnswEfConstruction, int hnswEfSearch, List<Configuration> configurations, String output) {
+
+        static Options fromSystemProperties() {
+            int documents = Integer.getInteger("harness.documents", 5000);
+            return new Options(documents,
+                    Integer.getInteger("harness.textLength", 2000),
+                    Integer.getInteger("harness.dimensions", 384),
+                    Long.getLong("harness.seed", 42L),
+                    Integer.getInteger("harness.clusters", 50),
+                    Double.parseDouble(System.getProperty("harness.spread", "1.0")),
+                    Integer.getInteger("harness.queries", 200),
+                    Integer.getInteger("harness.topK", 10),
+                    Arrays.stream(System.getProperty("harness.concurrency", "1,4,16").split(","))
+                            .map(String::trim).map(Integer::valueOf).toList(),
+                    Integer.getInteger("harness.rounds", 5),
+                    Integer.getInteger("harness.ivf.lists", (int) Math.max(1, Math.sqrt(documents))),
+                    Integer.getInteger("harness.ivf.probes", 4),
+                    Integer.getInteger("harness.hnsw.m", 16),
+                    Integer.getInteger("harness.hnsw.efConstruction", 200),
+                    Integer.getInteger("harness.hnsw.efSearch", 64),
+                    Arrays.stream(System.getProperty("harness.configurations", String.join(",",
+                                    Arrays.stream(Configuration.values()).map(Enum::name).toList())).split(","))
+                            .map(String::trim).map(Configuration::valueOf).toList(),
+                    System.getProperty("harness.output", "search-load.json"));
+        }
+    }
+
+    record Latency(double p50Ms, double p90Ms, double p99Ms, double p999Ms, double maxMs, double meanMs,
+                   Map<String, Long> histogramMs) {
+    }
+
+    record LevelResult(int concurrency, int requests, int errors, double seconds, double throughput, Latency latency) {
+    }
+
+    record ConfigurationResult(Configuration configuration, double ingestSeconds, double ingestDocumentsPerSecond,
+                               double recallAtK, double minRecallAtK, List<LevelResult> levels) {
+    }
+
+    record RunResult(String startedAt, String jdbcUrl, YellowBrickVectorStore.SqlDialect dialect, Options options,
+                     List<ConfigurationResult> results) {
+    }
+
+    private SearchLoadHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.fromSystemProperties();
+        String startedAt = Instant.now().toString();
+        FakeEmbeddingModel embeddingModel = new FakeEmbeddingModel(options.dimensions(), options.seed(),
+                options.clusters(), options.spread());
+        List<Document> corpus = BenchmarkCorpus.documents(options.documents(), options.textLength(), null);
+        List<String> queries = BenchmarkCorpus.queries(options.queries());
+        List<Set<String>> truth = exactTopK(embeddingModel, corpus, queries, options.topK());
+
+        List<ConfigurationResult> results = new ArrayList<>();
+        int poolSize = options.concurrency().stream().mapToInt(Integer::intValue).max().orElse(1) + 1;
+        try (HikariDataSource dataSource = BenchmarkDatabase.dataSource(poolSize)) {
+            for (Configuration configuration : options.configurations()) {
+                results.add(run(configuration, dataSource, embeddingModel, corpus, queries, truth, options));
+            }
+        }
+        File output = new File(options.output());
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(output,
+                new RunResult(startedAt, BenchmarkDatabase.url(), BenchmarkDatabase.dialect(), options, results));
+        logger.info("wrote {}", output.getAbsolutePath());
+    }
+
+    private static ConfigurationResult run(Configuration configuration, HikariDataSource dataSource, FakeEmbeddingModel embeddingModel,
+                                           List<Document> corpus, List<String> queries, List<Set<String>> truth,
+                                           Options options) throws Exception {
+        YellowBrickVectorStore store = BenchmarkDatabase.store(dataSource,
+                "vector_store_load_" + configuration.name().toLowerCase(Locale.ROOT), embeddingModel, 500);
+        switch (configuration) {
+            case EXACT_TEMP_TABLE -> store.setQueryMode(YellowBrickVectorStore.QueryMode.TEMP_TABLE);
+            case EXACT_INLINE -> store.setQueryMode(YellowBrickVectorStore.QueryMode.INLINE);
+            case PACKED -> {
+                store.setQueryMode(YellowBrickVectorStore.QueryMode.INLINE);
+                store.setStorageLayout(YellowBrickVectorStore.StorageLayout.PACKED);
+            }
+            case QUANTIZED -> {
+                store.setQueryMode(YellowBrickVectorStore.QueryMode.INLINE);
+                store.setQuantizeEmbeddings(true);
+            }
+            case IVF -> {
+                store.setQueryMode(YellowBrickVectorStore.QueryMode.INLINE);
+                store.setIvf(options.ivfLists(), options.ivfProbes(), options.documents(), 20);
+            }
+            case HYBRID -> store.setHybridSearch(YellowBrickVectorStore.HybridOptions.defaults());
+            case HNSW -> store.setHnsw(Path.of(System.getProperty("java.io.tmpdir"), "vector_store_load_hnsw.hnsw"),
+                    options.hnswM(), options.hnswEfConstruction(), options.hnswEfSearch());
+        }
+        store.afterPropertiesSet();
+
+        long start = System.nanoTime();
+        store.add(BenchmarkCorpus.copies(corpus));
+        if (configuration == Configuration.IVF) {
+            store.recluster();
+        }
+        double ingestSeconds = (System.nanoTime() - start) / 1e9;
+        logger.info("{}: loaded {} documents in {} s", configuration, corpus.size(), String.format("%.1f", ingestSeconds));
+
+        List<SearchRequest> requests = queries.stream()
+                .map(query -> SearchRequest.query(query).withTopK(options.topK()).withSimilarityThresholdAll())
+                .toList();
+        // the sequential recall pass doubles as warm-up for the timed levels
+        double recallSum = 0;
+        double minRecall = 1;
+        for (int i = 0; i < requests.size(); i++) {
+            double recall = recall(store.similaritySearch(requests.get(i)), truth.get(i));
+            recallSum += recall;
+            minRecall = Math.min(minRecall, recall);
+        }
+        double recallAtK = requests.isEmpty() ? 1 : recallSum / requests.size();
+        logger.info("{}: recall@{} {} (min {})", configuration, options.topK(),
+                String.format("%.4f", recallAtK), String.format("%.4f", minRecall));
+
+        List<LevelResult> levels = new ArrayList<>();
+        for (int concurrency : options.concurrency()) {
+            LevelResult level = replay(store, requests, concurrency, options.rounds());
+            logger.info("{}: concurrency {} -> {} req/s, p50 {} ms, p99 {} ms, {} errors", configuration, concurrency,
+                    String.format("%.1f", level.throughput()), String.format("%.2f", level.latency().p50Ms()),
+                    String.format("%.2f", level.latency().p99Ms()), level.errors());
+            levels.add(level);
+        }
+        return new ConfigurationResult(configuration, ingestSeconds, corpus.size() / ingestSeconds,
+                recallAtK, minRecall, levels);
+    }
+
+    /**
+     * Issue every request {@code rounds} times from {@code concurrency} threads, as fast as they go.
+     */
+    private static LevelResult replay(YellowBrickVectorStore store, List<SearchRequest> requests, int concurrency, int rounds)
+            throws InterruptedException {
+        int total = requests.size() * rounds;
+        long[] latencies = new long[total];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        for (int thread = 0; thread < concurrency; thread++) {
+            executor.execute(() -> {
+                for (int i; (i = next.getAndIncrement()) < total; ) {
+                    long begin = System.nanoTime();
+                    try {
+                        store.similaritySearch(requests.get(i % requests.size()));
+                    } catch (RuntimeException e) {
+                        if (errors.getAndIncrement() == 0) {
+                            logger.warn("search failed", e);
+                        }
+                    }
+                    latencies[i] = System.nanoTime() - begin;
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.DAYS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return new LevelResult(concurrency, total, errors.get(), seconds, total / seconds, latency(latencies));
+    }
+
+    /**
+     * Percentiles of {@code nanos} and request counts per latency bucket, keyed by the bucket's
+     * range in milliseconds.
+     */
+    static Latency latency(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        int index = 0;
+        long lower = 0;
+        for (long bound : HISTOGRAM_BOUNDS_MS) {
+            long count = 0;
+            while (index < sorted.length && sorted[index] <= bound * 1_000_000) {
+                index++;
+                count++;
+            }
+            histogram.put(lower + "-" + bound, count);
+            lower = bound;
+        }
+        histogram.put(lower + "+", (long) (sorted.length - index));
+        double mean = sorted.length == 0 ? 0 : Arrays.stream(sorted).average().orElse(0) / 1e6;
+        return new Latency(percentile(sorted, 0.5), percentile(sorted, 0.9), percentile(sorted, 0.99),
+                percentile(sorted, 0.999), percentile(sorted, 1), mean, histogram);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(rank, 1) - 1] / 1e6;
+    }
+
+    /**
+     * Ids of the {@code k} documents with the highest cosine similarity to each query; the fake
+     * model's vectors are unit length, so that is the dot product.
+     */
+    static List<Set<String>> exactTopK(FakeEmbeddingModel embeddingModel, List<Document> corpus, List<String> queries, int k) {
+        float[][] vectors = new float[corpus.size()][];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = embeddingModel.vector(corpus.get(i).getContent());
+        }
+        List<Set<String>> truth = new ArrayList<>(queries.size());
+        for (String query : queries) {
+            float[] queryVector = embeddingModel.vector(query);
+            PriorityQueue<Map.Entry<Double, Integer>> best = new PriorityQueue<>(Map.Entry.comparingByKey());
+            for (int i = 0; i < vectors.length; i++) {
+                best.add(Map.entry(VectorMath.dot(queryVector, vectors[i]), i));
+                if (best.size() > k) {
+                    best.poll();
+                }
+            }
+            Set<String> ids = new HashSet<>();
+            best.forEach(entry -> ids.add(corpus.get(entry.getValue()).getId()));
+            truth.add(ids);
+        }
+        return truth;
+    }
+
+    static double recall(List<Document> results, Set<String> truth) {
+        if (truth.isEmpty()) {
+            return 1;
+        }
+        long found = results.stream().filter(document -> truth.contains(document.getId())).count();
+        return (double) found / truth.size();
+    }
+}
@@ -0,0 +1,29 @@
+package com.yellowbrick.springai.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Registers the {@code INDEXING} status of {@link YbIngestionHealthIndicator} with the health
+ * endpoint: ranked above {@code UP}, so the aggregate health reports a load in progress instead of
+ * dropping it, and served with HTTP 200, so probes keep routing traffic while the index fills.
+ * The defaults are added last, so an application's own
+ * {@code management.endpoint.health.status.*} settings win.
+ */
+public class YbHealthStatusEnvironmentPostProcessor implements EnvironmentPostProcessor {
+    static final String PROPERTY_SOURCE_NAME = "ybIngestionHealthStatus";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        Map<String, Object> defaults = new LinkedHashMap<>();
+        // the default order with INDEXING between OUT_OF_SERVICE and UP
+        defaults.put("management.endpoint.health.status.order", "DOWN,OUT_OF_SERVICE,INDEXING,UP,UNKNOWN");
+        defaults.put("management.endpoint.health.status.http-mapping.indexing", 200);
+        environment.getPropertySources().addLast(new MapPropertySource(PROPERTY_SOURCE_NAME, defaults));
+    }
+}
@@ -0,0 +1,36 @@
+package com.yellowbrick.springai.config;
+
+import com.yellowbrick.springai.vectorstore.YbIngestionJob;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+
+/**
+ * Reports {@code INDEXING} while the ingestion job is loading, {@code UP} once every source is loaded
+ * and {@code DOWN} if a load failed. {@link YbHealthStatusEnvironmentPostProcessor} ranks
+ * {@code INDEXING} above {@code UP} and maps it to HTTP 200, so the aggregate health shows the load
+ * while the application keeps serving searches over the chunks written so far.
+ */
+public class YbIngestionHealthIndicator implements HealthIndicator {
+    static final Status INDEXING = new Status("INDEXING", "Documents are still being loaded");
+
+    private final YbIngestionJob ingestionJob;
+
+    public YbIngestionHealthIndicator(YbIngestionJob ingestionJob) {
+        this.ingestionJob = ingestionJob;
+    }
+
+    @Override
+    public Health health() {
+        boolean failed = false;
+        Health.Builder builder = Health.up();
+        for (YbIngestionJob.Progress progress : this.ingestionJob.getProgress()) {
+            builder.withDetail(progress.source(), progress);
+            failed |= progress.state() == YbIngestionJob.State.FAILED;
+        }
+        if (failed) {
+            return builder.status(Status.DOWN).build();
+        }
+        return builder.status(this.ingestionJob.isReady() ? Status.UP : INDEXING).build();
+    }
+}
@@ -1,24 +1,34 @@
 package com.yellowbrick.springai.config;
 
+import com.yellowbrick.springai.vectorstore.QueryEmbeddingCache;
+import com.yellowbrick.springai.vectorstore.YbIngestionJob;
+import com.yellowbrick.springai.vectorstore.YbVectorStoreCollections;
 import com.yellowbrick.springai.vectorstore.YellowBrickVectorStore;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.observation.ObservationRegistry;
 import org.springframework.ai.embedding.BatchingStrategy;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.embedding.TokenCountBatchingStrategy;
+import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.ai.vectorstore.observation.VectorStoreObservationConvention;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.PlatformTransactionManager;
 
 import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
 
 
 @AutoConfiguration(after = JdbcTemplateAutoConfiguration.class)
@@ -34,14 +44,115 @@ public class YbVectorStoreAutoConfig {
 
     @Bean
     @ConditionalOnMissingBean
-    YellowBrickVectorStore ybvectorStore(JdbcTemplate jdbcTemplate, EmbeddingModel embeddingModel, YbVectorStoreProperties properties, ObjectProvider<ObservationRegistry> observationRegistry, ObjectProvider<VectorStoreObservationConvention> customObservationConvention, BatchingStrategy batchingStrategy, PlatformTransactionManager platformTransactionManager) {
-        return new YellowBrickVectorStore( properties.getTableName(), jdbcTemplate, embeddingModel, properties.isInitializeSchema(),
-                (ObservationRegistry) observationRegistry.getIfUnique(() -> {
-                    return ObservationRegistry.NOOP;
-                }),
+    YellowBrickVectorStore ybvectorStore(JdbcTemplate jdbcTemplate, EmbeddingModel embeddingModel, YbVectorStoreProperties properties, ObjectProvider<ObservationRegistry> observationRegistry, ObjectProvider<VectorStoreObservationConvention> customObservationConvention, ObjectProvider<MeterRegistry> meterRegistry, BatchingStrategy batchingStrategy, PlatformTransactionManager platformTransactionManager) {
+        YellowBrickVectorStore vectorStore = createVectorStore(qualifiedTableName(properties), jdbcTemplate, embeddingModel, properties,
+                observationRegistry, customObservationConvention, meterRegistry, batchingStrategy, platformTransactionManager, null);
+        vectorStore.setRemoveExistingVectorStoreTable(properties.isRemoveExistingVectorStoreTable());
+        return vectorStore;
+
+    }
+
+    /**
+     * Routes documents and searches to per-collection stores, configured like the main one and
+     * sharing its query embedding cache and hot mirror pool; it is the primary {@link VectorStore}
+     * when enabled.
+     */
+    @Bean
+    @Primary
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = YbVectorStoreProperties.CONFIG_PREFIX, name = "collections.enabled", havingValue = "true")
+    YbVectorStoreCollections ybVectorStoreCollections(YellowBrickVectorStore vectorStore, JdbcTemplate jdbcTemplate, EmbeddingModel embeddingModel, YbVectorStoreProperties properties, ObjectProvider<ObservationRegistry> observationRegistry, ObjectProvider<VectorStoreObservationConvention> customObservationConvention, ObjectProvider<MeterRegistry> meterRegistry, BatchingStrategy batchingStrategy, PlatformTransactionManager platformTransactionManager) {
+        return new YbVectorStoreCollections(vectorStore, qualifiedTableName(properties), jdbcTemplate,
+                tableName -> createVectorStore(tableName, jdbcTemplate, embeddingModel, properties, observationRegistry,
+                        customObservationConvention, meterRegistry, batchingStrategy, platformTransactionManager, vectorStore));
+    }
+
+    private static String qualifiedTableName(YbVectorStoreProperties properties) {
+        String schema = properties.getSchemaName();
+        return schema == null || schema.isBlank() ? properties.getTableName() : schema.trim() + "." + properties.getTableName();
+    }
+
+    /**
+     * @param sharedWith store whose query embedding cache and hot mirror pool are reused, or null to create them
+     */
+    private static YellowBrickVectorStore createVectorStore(String tableName, JdbcTemplate jdbcTemplate, EmbeddingModel embeddingModel, YbVectorStoreProperties properties, ObjectProvider<ObservationRegistry> observationRegistry, ObjectProvider<VectorStoreObservationConvention> customObservationConvention, ObjectProvider<MeterRegistry> meterRegistry, BatchingStrategy batchingStrategy, PlatformTransactionManager platformTransactionManager, YellowBrickVectorStore sharedWith) {
+        ObservationRegistry registry = observationRegistry.getIfUnique(() -> {
+            return ObservationRegistry.NOOP;
+        });
+        YellowBrickVectorStore vectorStore = new YellowBrickVectorStore(tableName, jdbcTemplate, embeddingModel, properties.isInitializeSchema(),
+                registry,
                 (VectorStoreObservationConvention) customObservationConvention.getIfAvailable(() -> {
                     return null;
                 }), batchingStrategy, properties.getMaxDocumentBatchSize(),platformTransactionManager);
+        meterRegistry.ifUnique(vectorStore::setMeterRegistry);
+        vectorStore.setSlowSearchThreshold(properties.getSlowSearchThreshold());
+        vectorStore.setStreamFetchSize(properties.getStreamFetchSize());
+        vectorStore.setSqlDialect(properties.getSqlDialect());
+        vectorStore.setIngestMode(properties.getIngestMode());
+        vectorStore.setCopyBufferSize(properties.getCopyBufferSize());
+        YbVectorStoreProperties.IngestProperties ingest = properties.getIngest();
+        vectorStore.setIngestConcurrency(ingest.getEmbeddingConcurrency(), ingest.getWriterConcurrency(), ingest.getQueueCapacity());
+        vectorStore.setIngestRetry(ingest.getMaxAttempts(), ingest.getRetryBackoff());
+        vectorStore.setNormalizeEmbeddings(properties.isNormalizeEmbeddings());
+        vectorStore.setQueryMode(properties.getQueryMode());
+        vectorStore.setPromotedMetadata(properties.getPromotedMetadata());
+        vectorStore.setStorageLayout(properties.getStorageLayout());
+        vectorStore.setPackedBlockWidth(properties.getPackedBlockWidth());
+        YbVectorStoreProperties.QueryEmbeddingCacheProperties cache = properties.getQueryEmbeddingCache();
+        if (cache.isEnabled()) {
+            QueryEmbeddingCache shared = sharedWith == null ? null : sharedWith.getQueryEmbeddingCache();
+            vectorStore.setQueryEmbeddingCache(shared != null ? shared : new QueryEmbeddingCache(cache.getMaxEntries(),
+                    cache.getMaxMemory().toBytes(), cache.getTtl(), cache.getEvictionPolicy(), registry));
+        }
+        YbVectorStoreProperties.SearchCoalescingProperties coalescing = properties.getSearchCoalescing();
+        if (coalescing.isEnabled()) {
+            vectorStore.setSearchCoalescing(coalescing.getWindow(), coalescing.isNormalizeQuery());
+        }
+        YbVectorStoreProperties.HybridProperties hybrid = properties.getHybrid();
+        vectorStore.setTermIndex(hybrid.isTermIndex());
+        if (hybrid.isEnabled()) {
+            vectorStore.setHybridSearch(new YellowBrickVectorStore.HybridOptions(hybrid.getCandidates(),
+                    hybrid.getLexicalWeight(), hybrid.getVectorWeight(), hybrid.getRankConstant()));
+        }
+        YbVectorStoreProperties.IvfProperties ivf = properties.getIvf();
+        if (ivf.isEnabled()) {
+            vectorStore.setIvf(ivf.getNlist(), ivf.getNprobe(), ivf.getTrainingSampleSize(), ivf.getMaxIterations());
+        }
+        YbVectorStoreProperties.QuantizationProperties quantization = properties.getQuantization();
+        vectorStore.setQuantizeEmbeddings(quantization.isEnabled());
+        vectorStore.setQuantizationCandidateMultiplier(quantization.getCandidateMultiplier());
+        YbVectorStoreProperties.HotMirrorProperties hotMirror = properties.getHotMirror();
+        ForkJoinPool hotMirrorPool = sharedWith == null ? null : sharedWith.getHotMirrorPool();
+        if (hotMirrorPool != null) {
+            vectorStore.setHotMirror(hotMirror.isEnabled(), hotMirrorPool);
+        } else {
+            vectorStore.setHotMirror(hotMirror.isEnabled(), hotMirror.getParallelism());
+        }
+        YbVectorStoreProperties.HnswProperties hnsw = properties.getHnsw();
+        if (hnsw.isEnabled()) {
+            String hnswFile = tableName.substring(tableName.lastIndexOf('.') + 1) + ".hnsw";
+            vectorStore.setHnsw(hnsw.getFile() == null ? Path.of(hnswFile)
+                            : tableName.equals(qualifiedTableName(properties)) ? Path.of(hnsw.getFile())
+                            : Path.of(hnsw.getFile()).resolveSibling(hnswFile),
+                    hnsw.getM(), hnsw.getEfConstruction(), hnsw.getEfSearch());
+        }
+        return vectorStore;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    YbIngestionJob ybIngestionJob(YellowBrickVectorStore vectorStore, YbVectorStoreProperties properties) {
+        return new YbIngestionJob(vectorStore, properties.getIngest().getJobBatchSize());
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(HealthIndicator.class)
+    static class IngestionHealthConfiguration {
 
+        @Bean
+        @ConditionalOnMissingBean(name = "ybIngestionHealthIndicator")
+        YbIngestionHealthIndicator ybIngestionHealthIndicator(YbIngestionJob ingestionJob) {
+            return new YbIngestionHealthIndicator(ingestionJob);
+        }
     }
 }
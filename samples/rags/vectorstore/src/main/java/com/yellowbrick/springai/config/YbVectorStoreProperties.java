@@ -1,7 +1,14 @@
 package com.yellowbrick.springai.config;
 
+import com.yellowbrick.springai.vectorstore.QueryEmbeddingCache;
+import com.yellowbrick.springai.vectorstore.YellowBrickVectorStore;
 import org.springframework.ai.autoconfigure.vectorstore.CommonVectorStoreProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @ConfigurationProperties("spring.ai.vectorstore.ybvector")
 public class YbVectorStoreProperties extends CommonVectorStoreProperties {
@@ -10,12 +17,38 @@ public class YbVectorStoreProperties extends CommonVectorStoreProperties {
     private String tableName;
     private String schemaName;
     private int maxDocumentBatchSize;
+    private YellowBrickVectorStore.IngestMode ingestMode;
+    private YellowBrickVectorStore.SqlDialect sqlDialect;
+    private int copyBufferSize;
+    private boolean normalizeEmbeddings;
+    private YellowBrickVectorStore.QueryMode queryMode;
+    private Map<String, String> promotedMetadata;
+    private YellowBrickVectorStore.StorageLayout storageLayout;
+    private int packedBlockWidth;
+    private Duration slowSearchThreshold;
+    private int streamFetchSize = 100;
+    private final QueryEmbeddingCacheProperties queryEmbeddingCache = new QueryEmbeddingCacheProperties();
+    private final IvfProperties ivf = new IvfProperties();
+    private final QuantizationProperties quantization = new QuantizationProperties();
+    private final IngestProperties ingest = new IngestProperties();
+    private final SearchCoalescingProperties searchCoalescing = new SearchCoalescingProperties();
+    private final HybridProperties hybrid = new HybridProperties();
+    private final HotMirrorProperties hotMirror = new HotMirrorProperties();
+    private final HnswProperties hnsw = new HnswProperties();
+    private final CollectionsProperties collections = new CollectionsProperties();
 
     public YbVectorStoreProperties() {
         this.removeExistingVectorStoreTable = false;
         this.tableName = "vector_store";
-        this.schemaName = "public";
         this.maxDocumentBatchSize = 10000;
+        this.ingestMode = YellowBrickVectorStore.IngestMode.COPY;
+        this.sqlDialect = YellowBrickVectorStore.SqlDialect.YELLOWBRICK;
+        this.copyBufferSize = 65536;
+        this.normalizeEmbeddings = false;
+        this.queryMode = YellowBrickVectorStore.QueryMode.TEMP_TABLE;
+        this.promotedMetadata = new LinkedHashMap<>();
+        this.storageLayout = YellowBrickVectorStore.StorageLayout.ROW_PER_DIMENSION;
+        this.packedBlockWidth = 128;
     }
 
 
@@ -57,4 +90,520 @@ public class YbVectorStoreProperties extends CommonVectorStoreProperties {
     public void setMaxDocumentBatchSize(int maxDocumentBatchSize) {
         this.maxDocumentBatchSize = maxDocumentBatchSize;
     }
+
+    public YellowBrickVectorStore.IngestMode getIngestMode() {
+        return this.ingestMode;
+    }
+
+    public void setIngestMode(YellowBrickVectorStore.IngestMode ingestMode) {
+        this.ingestMode = ingestMode;
+    }
+
+    public YellowBrickVectorStore.SqlDialect getSqlDialect() {
+        return this.sqlDialect;
+    }
+
+    public void setSqlDialect(YellowBrickVectorStore.SqlDialect sqlDialect) {
+        this.sqlDialect = sqlDialect;
+    }
+
+    public int getCopyBufferSize() {
+        return this.copyBufferSize;
+    }
+
+    public void setCopyBufferSize(int copyBufferSize) {
+        this.copyBufferSize = copyBufferSize;
+    }
+
+    public boolean isNormalizeEmbeddings() {
+        return this.normalizeEmbeddings;
+    }
+
+    public void setNormalizeEmbeddings(boolean normalizeEmbeddings) {
+        this.normalizeEmbeddings = normalizeEmbeddings;
+    }
+
+    public YellowBrickVectorStore.QueryMode getQueryMode() {
+        return this.queryMode;
+    }
+
+    public void setQueryMode(YellowBrickVectorStore.QueryMode queryMode) {
+        this.queryMode = queryMode;
+    }
+
+    public Map<String, String> getPromotedMetadata() {
+        return this.promotedMetadata;
+    }
+
+    public void setPromotedMetadata(Map<String, String> promotedMetadata) {
+        this.promotedMetadata = promotedMetadata;
+    }
+
+    public YellowBrickVectorStore.StorageLayout getStorageLayout() {
+        return this.storageLayout;
+    }
+
+    public void setStorageLayout(YellowBrickVectorStore.StorageLayout storageLayout) {
+        this.storageLayout = storageLayout;
+    }
+
+    public int getPackedBlockWidth() {
+        return this.packedBlockWidth;
+    }
+
+    public void setPackedBlockWidth(int packedBlockWidth) {
+        this.packedBlockWidth = packedBlockWidth;
+    }
+
+    public Duration getSlowSearchThreshold() {
+        return this.slowSearchThreshold;
+    }
+
+    public void setSlowSearchThreshold(Duration slowSearchThreshold) {
+        this.slowSearchThreshold = slowSearchThreshold;
+    }
+
+    public int getStreamFetchSize() {
+        return this.streamFetchSize;
+    }
+
+    public void setStreamFetchSize(int streamFetchSize) {
+        this.streamFetchSize = streamFetchSize;
+    }
+
+    public QueryEmbeddingCacheProperties getQueryEmbeddingCache() {
+        return this.queryEmbeddingCache;
+    }
+
+    public IvfProperties getIvf() {
+        return this.ivf;
+    }
+
+    public QuantizationProperties getQuantization() {
+        return this.quantization;
+    }
+
+    public IngestProperties getIngest() {
+        return this.ingest;
+    }
+
+    public SearchCoalescingProperties getSearchCoalescing() {
+        return this.searchCoalescing;
+    }
+
+    public HybridProperties getHybrid() {
+        return this.hybrid;
+    }
+
+    public HotMirrorProperties getHotMirror() {
+        return this.hotMirror;
+    }
+
+    public HnswProperties getHnsw() {
+        return this.hnsw;
+    }
+
+    public CollectionsProperties getCollections() {
+        return this.collections;
+    }
+
+    public static class QueryEmbeddingCacheProperties {
+        private boolean enabled;
+        private long maxEntries;
+        private DataSize maxMemory;
+        private Duration ttl;
+        private QueryEmbeddingCache.EvictionPolicy evictionPolicy;
+
+        public QueryEmbeddingCacheProperties() {
+            this.enabled = false;
+            this.maxEntries = 10000;
+            this.maxMemory = DataSize.ofMegabytes(64);
+            this.ttl = Duration.ofHours(1);
+            this.evictionPolicy = QueryEmbeddingCache.EvictionPolicy.LRU;
+        }
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxEntries() {
+            return this.maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public DataSize getMaxMemory() {
+            return this.maxMemory;
+        }
+
+        public void setMaxMemory(DataSize maxMemory) {
+            this.maxMemory = maxMemory;
+        }
+
+        public Duration getTtl() {
+            return this.ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public QueryEmbeddingCache.EvictionPolicy getEvictionPolicy() {
+            return this.evictionPolicy;
+        }
+
+        public void setEvictionPolicy(QueryEmbeddingCache.EvictionPolicy evictionPolicy) {
+            this.evictionPolicy = evictionPolicy;
+        }
+    }
+
+    public static class IvfProperties {
+        private boolean enabled;
+        private int nlist;
+        private int nprobe;
+        private int trainingSampleSize;
+        private int maxIterations;
+
+        public IvfProperties() {
+            this.enabled = false;
+            this.nlist = 64;
+            this.nprobe = 8;
+            this.trainingSampleSize = 20000;
+            this.maxIterations = 20;
+        }
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getNlist() {
+            return this.nlist;
+        }
+
+        public void setNlist(int nlist) {
+            this.nlist = nlist;
+        }
+
+        public int getNprobe() {
+            return this.nprobe;
+        }
+
+        public void setNprobe(int nprobe) {
+            this.nprobe = nprobe;
+        }
+
+        public int getTrainingSampleSize() {
+            return this.trainingSampleSize;
+        }
+
+        public void setTrainingSampleSize(int trainingSampleSize) {
+            this.trainingSampleSize = trainingSampleSize;
+        }
+
+        public int getMaxIterations() {
+            return this.maxIterations;
+        }
+
+        public void setMaxIterations(int maxIterations) {
+            this.maxIterations = maxIterations;
+        }
+    }
+
+    public static class QuantizationProperties {
+        private boolean enabled;
+        private int candidateMultiplier;
+
+        public QuantizationProperties() {
+            this.enabled = false;
+            this.candidateMultiplier = 10;
+        }
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getCandidateMultiplier() {
+            return this.candidateMultiplier;
+        }
+
+        public void setCandidateMultiplier(int candidateMultiplier) {
+            this.candidateMultiplier = candidateMultiplier;
+        }
+    }
+
+    public static class IngestProperties {
+        private int embeddingConcurrency;
+        private int writerConcurrency;
+        private int queueCapacity;
+        private int maxAttempts;
+        private Duration retryBackoff;
+        private int jobBatchSize;
+
+        public IngestProperties() {
+            this.embeddingConcurrency = 2;
+            this.writerConcurrency = 2;
+            this.queueCapacity = 4;
+            this.maxAttempts = 3;
+            this.retryBackoff = Duration.ofSeconds(1);
+            this.jobBatchSize = 500;
+        }
+
+        public int getEmbeddingConcurrency() {
+            return this.embeddingConcurrency;
+        }
+
+        public void setEmbeddingConcurrency(int embeddingConcurrency) {
+            this.embeddingConcurrency = embeddingConcurrency;
+        }
+
+        public int getWriterConcurrency() {
+            return this.writerConcurrency;
+        }
+
+        public void setWriterConcurrency(int writerConcurrency) {
+            this.writerConcurrency = writerConcurrency;
+        }
+
+        public int getQueueCapacity() {
+            return this.queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getMaxAttempts() {
+            return this.maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getRetryBackoff() {
+            return this.retryBackoff;
+        }
+
+        public void setRetryBackoff(Duration retryBackoff) {
+            this.retryBackoff = retryBackoff;
+        }
+
+        public int getJobBatchSize() {
+            return this.jobBatchSize;
+        }
+
+        public void setJobBatchSize(int jobBatchSize) {
+            this.jobBatchSize = jobBatchSize;
+        }
+    }
+
+    public static class SearchCoalescingProperties {
+        private boolean enabled;
+        private Duration window;
+        private boolean normalizeQuery;
+
+        public SearchCoalescingProperties() {
+            this.window = Duration.ZERO;
+            this.normalizeQuery = true;
+        }
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getWindow() {
+            return this.window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public boolean isNormalizeQuery() {
+            return this.normalizeQuery;
+        }
+
+        public void setNormalizeQuery(boolean normalizeQuery) {
+            this.normalizeQuery = normalizeQuery;
+        }
+    }
+
+    public static class HybridProperties {
+        private boolean enabled;
+        private boolean termIndex;
+        private int candidates;
+        private double lexicalWeight;
+        private double vectorWeight;
+        private int rankConstant;
+
+        public HybridProperties() {
+            YellowBrickVectorStore.HybridOptions defaults = YellowBrickVectorStore.HybridOptions.defaults();
+            this.candidates = defaults.candidates();
+            this.lexicalWeight = defaults.lexicalWeight();
+            this.vectorWeight = defaults.vectorWeight();
+            this.rankConstant = defaults.rankConstant();
+        }
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isTermIndex() {
+            return this.termIndex;
+        }
+
+        public void setTermIndex(boolean termIndex) {
+            this.termIndex = termIndex;
+        }
+
+        public int getCandidates() {
+            return this.candidates;
+        }
+
+        public void setCandidates(int candidates) {
+            this.candidates = candidates;
+        }
+
+        public double getLexicalWeight() {
+            return this.lexicalWeight;
+        }
+
+        public void setLexicalWeight(double lexicalWeight) {
+            this.lexicalWeight = lexicalWeight;
+        }
+
+        public double getVectorWeight() {
+            return this.vectorWeight;
+        }
+
+        public void setVectorWeight(double vectorWeight) {
+            this.vectorWeight = vectorWeight;
+        }
+
+        public int getRankConstant() {
+            return this.rankConstant;
+        }
+
+        public void setRankConstant(int rankConstant) {
+            this.rankConstant = rankConstant;
+        }
+    }
+
+    public static class HotMirrorProperties {
+        private boolean enabled;
+        private int parallelism;
+
+        public HotMirrorProperties() {
+            this.enabled = false;
+            this.parallelism = Runtime.getRuntime().availableProcessors();
+        }
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getParallelism() {
+            return this.parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+    }
+
+    public static class HnswProperties {
+        private boolean enabled;
+        private String file;
+        private int m;
+        private int efConstruction;
+        private int efSearch;
+
+        public HnswProperties() {
+            this.enabled = false;
+            this.m = 16;
+            this.efConstruction = 200;
+            this.efSearch = 64;
+        }
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Path of the index file; {@code <table-name>.hnsw} in the working directory if not set.
+         */
+        public String getFile() {
+            return this.file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public int getM() {
+            return this.m;
+        }
+
+        public void setM(int m) {
+            this.m = m;
+        }
+
+        public int getEfConstruction() {
+            return this.efConstruction;
+        }
+
+        public void setEfConstruction(int efConstruction) {
+            this.efConstruction = efConstruction;
+        }
+
+        public int getEfSearch() {
+            return this.efSearch;
+        }
+
+        public void setEfSearch(int efSearch) {
+            this.efSearch = efSearch;
+        }
+    }
+
+    public static class CollectionsProperties {
+        private boolean enabled;
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
 }
@@ -0,0 +1,131 @@
+package com.yellowbrick.springai.vectorstore;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Spherical k-means over unit vectors: points are assigned to the centroid with the highest dot
+ * product (cosine similarity) and centroids are the normalized mean of their points.
+ * Seeded with k-means++ so repeated runs over the same sample give the same partitioning.
+ */
+final class KMeans {
+
+    private KMeans() {
+    }
+
+    /**
+     * @param points        unit-length training vectors
+     * @param k             number of centroids; capped at the number of points
+     * @param maxIterations Lloyd iterations to run at most
+     * @return unit-length centroids
+     */
+    static float[][] train(List<float[]> points, int k, int maxIterations, long seed) {
+        int n = points.size();
+        k = Math.min(k, n);
+        Random random = new Random(seed);
+        float[][] centroids = initialize(points, k, random);
+        int[] assignment = new int[n];
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            boolean changed = false;
+            for (int i = 0; i < n; i++) {
+                int nearest = nearest(centroids, points.get(i));
+                if (iteration == 0 || nearest != assignment[i]) {
+                    assignment[i] = nearest;
+                    changed = true;
+                }
+            }
+            if (!changed) {
+                break;
+            }
+            int dimensions = points.get(0).length;
+            float[][] sums = new float[k][dimensions];
+            int[] counts = new int[k];
+            for (int i = 0; i < n; i++) {
+                float[] point = points.get(i);
+                float[] sum = sums[assignment[i]];
+                for (int d = 0; d < dimensions; d++) {
+                    sum[d] += point[d];
+                }
+                counts[assignment[i]]++;
+            }
+            for (int c = 0; c < k; c++) {
+                // an empty cluster is re-seeded with a random point rather than dropped
+                centroids[c] = counts[c] == 0 ? points.get(random.nextInt(n)).clone() : VectorMath.normalize(sums[c]);
+            }
+        }
+        return centroids;
+    }
+
+    static int nearest(float[][] centroids, float[] vector) {
+        int best = 0;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int c = 0; c < centroids.length; c++) {
+            double score = VectorMath.dot(centroids[c], vector);
+            if (score > bestScore) {
+                bestScore = score;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the indexes of the {@code count} centroids most similar to {@code vector}, best first
+     */
+    static int[] nearest(float[][] centroids, float[] vector, int count) {
+        count = Math.min(count, centroids.length);
+        int[] best = new int[count];
+        double[] scores = new double[count];
+        int size = 0;
+        for (int c = 0; c < centroids.length; c++) {
+            double score = VectorMath.dot(centroids[c], vector);
+            if (size < count || score > scores[size - 1]) {
+                int i = size < count ? size++ : size - 1;
+                while (i > 0 && scores[i - 1] < score) {
+                    scores[i] = scores[i - 1];
+                    best[i] = best[i - 1];
+                    i--;
+                }
+                scores[i] = score;
+                best[i] = c;
+            }
+        }
+        return best;
+    }
+
+    private static float[][] initialize(List<float[]> points, int k, Random random) {
+        int n = points.size();
+        float[][] centroids = new float[k][];
+        centroids[0] = points.get(random.nextInt(n)).clone();
+        double[] distances = new double[n];
+        for (int i = 0; i < n; i++) {
+            distances[i] = distance(centroids[0], points.get(i));
+        }
+        for (int c = 1; c < k; c++) {
+            double total = 0;
+            for (double distance : distances) {
+                total += distance;
+            }
+            int chosen = random.nextInt(n);
+            if (total > 0) {
+                double target = random.nextDouble() * total;
+                for (int i = 0; i < n; i++) {
+                    target -= distances[i];
+                    if (target <= 0) {
+                        chosen = i;
+                        break;
+                    }
+                }
+            }
+            centroids[c] = points.get(chosen).clone();
+            for (int i = 0; i < n; i++) {
+                distances[i] = Math.min(distances[i], distance(centroids[c], points.get(i)));
+            }
+        }
+        return centroids;
+    }
+
+    private static double distance(float[] a, float[] b) {
+        return Math.max(0, 1 - VectorMath.dot(a, b));
+    }
+}
@@ -0,0 +1,162 @@
+package com.yellowbrick.springai.vectorstore;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Size- and TTL-bounded cache of query embeddings, so repeated questions skip the round trip to the
+ * embedding model. Keys are the normalized query text plus the identity of the embedding model;
+ * values are the {@code float[]} vectors themselves.
+ * <p>
+ * Every lookup is reported as a {@value #OBSERVATION_NAME} observation tagged with
+ * {@code cache.result=hit|miss}, and each evicted entry as an {@code eviction} event on it, so a
+ * meter observation handler turns them into hit/miss timers and an eviction counter.
+ */
+public class QueryEmbeddingCache {
+    public static final String OBSERVATION_NAME = "yb.vectorstore.query.embedding.cache";
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    // object headers, the map node, the key string and the array header
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    public enum EvictionPolicy {
+        /** Evict the entry that was used least recently. */
+        LRU,
+        /** Evict the entry that was added first. */
+        FIFO
+    }
+
+    private record Entry(float[] embedding, long expiresAtNanos, long bytes) {
+    }
+
+    private final long maxEntries;
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final ObservationRegistry observationRegistry;
+    private final LinkedHashMap<String, Entry> entries;
+    private long bytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxEntries upper bound on the number of cached queries
+     * @param maxBytes   approximate upper bound on the memory held by cached vectors and keys
+     * @param ttl        how long an embedding stays valid; zero or null keeps entries until evicted
+     */
+    public QueryEmbeddingCache(long maxEntries, long maxBytes, Duration ttl, EvictionPolicy evictionPolicy, ObservationRegistry observationRegistry) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlNanos = ttl == null || ttl.isZero() ? 0 : ttl.toNanos();
+        this.observationRegistry = observationRegistry;
+        this.entries = new LinkedHashMap<>(16, 0.75f, evictionPolicy == EvictionPolicy.LRU);
+    }
+
+    /**
+     * Return the cached embedding for {@code query}, computing and caching it on a miss.
+     * The embedding model is called outside the cache lock.
+     */
+    public float[] get(String modelIdentity, String query, Supplier<float[]> embed) {
+        String key = key(modelIdentity, query);
+        Observation observation = Observation.createNotStarted(OBSERVATION_NAME, this.observationRegistry).start();
+        try {
+            float[] cached = lookup(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                observation.lowCardinalityKeyValue("cache.result", "hit");
+                return cached;
+            }
+            misses.incrementAndGet();
+            observation.lowCardinalityKeyValue("cache.result", "miss");
+            float[] embedding = embed.get();
+            int evicted = put(key, embedding);
+            for (int i = 0; i < evicted; i++) {
+                observation.event(Observation.Event.of("eviction"));
+            }
+            return embedding;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    /**
+     * @return the cached embedding or null; does not record a hit or miss
+     */
+    public float[] peek(String modelIdentity, String query) {
+        return lookup(key(modelIdentity, query));
+    }
+
+    private synchronized float[] lookup(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (ttlNanos > 0 && System.nanoTime() - entry.expiresAtNanos() > 0) {
+            entries.remove(key);
+            bytes -= entry.bytes();
+            return null;
+        }
+        return entry.embedding();
+    }
+
+    private synchronized int put(String key, float[] embedding) {
+        long size = ENTRY_OVERHEAD_BYTES + 2L * key.length() + 4L * embedding.length;
+        if (size > maxBytes) {
+            return 0;
+        }
+        Entry previous = entries.put(key, new Entry(embedding, System.nanoTime() + ttlNanos, size));
+        bytes += size - (previous == null ? 0 : previous.bytes());
+        int evicted = 0;
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+            Map.Entry<String, Entry> candidate = eldest.next();
+            if (candidate.getKey().equals(key)) {
+                continue;
+            }
+            bytes -= candidate.getValue().bytes();
+            eldest.remove();
+            evicted++;
+        }
+        evictions.addAndGet(evicted);
+        return evicted;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long estimatedBytes() {
+        return bytes;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    static String key(String modelIdentity, String query) {
+        String text = WHITESPACE.matcher(Normalizer.normalize(query, Normalizer.Form.NFKC).trim()).replaceAll(" ");
+        return modelIdentity + '\u0000' + text;
+    }
+}
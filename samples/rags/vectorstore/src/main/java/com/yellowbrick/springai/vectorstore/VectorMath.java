@@ -0,0 +1,86 @@
+package com.yellowbrick.springai.vectorstore;
+
+import java.util.Arrays;
+
+/**
+ * Small float-vector helpers shared by the ingest and search paths.
+ */
+final class VectorMath {
+
+    private VectorMath() {
+    }
+
+    static float norm(float[] vector) {
+        double sum = 0;
+        for (float v : vector) {
+            sum += (double) v * v;
+        }
+        return (float) Math.sqrt(sum);
+    }
+
+    /**
+     * @return a unit-length copy of {@code vector}, or an unchanged copy if its norm is zero
+     */
+    static float[] normalize(float[] vector, float norm) {
+        float[] unit = vector.clone();
+        if (norm > 0) {
+            for (int i = 0; i < unit.length; i++) {
+                unit[i] /= norm;
+            }
+        }
+        return unit;
+    }
+
+    static float[] normalize(float[] vector) {
+        return normalize(vector, norm(vector));
+    }
+
+    /**
+     * {@code vector} at {@code dimensions}, zero padded if shorter; vectors read back from a packed
+     * layout may be longer, but only by zero padding.
+     *
+     * @throws IllegalArgumentException if a component beyond {@code dimensions} is not zero
+     */
+    static float[] resize(float[] vector, int dimensions) {
+        for (int i = dimensions; i < vector.length; i++) {
+            if (vector[i] != 0) {
+                throw new IllegalArgumentException("Vector has " + vector.length + " dimensions, expected " + dimensions);
+            }
+        }
+        return vector.length == dimensions ? vector : Arrays.copyOf(vector, dimensions);
+    }
+
+    /**
+     * Dot product over the common prefix; vectors read back from a packed layout carry zero
+     * padding, which does not change the result.
+     */
+    static double dot(float[] a, float[] b) {
+        double sum = 0;
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Symmetric int8 scalar quantization with one scale per vector: each component becomes
+     * {@code round(v / scale)} with {@code scale = max|v| / 127}, so it fits a SMALLINT column and
+     * the largest component keeps full resolution.
+     */
+    static short[] quantize(float[] vector) {
+        float max = 0;
+        for (float v : vector) {
+            max = Math.max(max, Math.abs(v));
+        }
+        short[] quantized = new short[vector.length];
+        if (max == 0) {
+            return quantized;
+        }
+        float scale = max / 127;
+        for (int i = 0; i < vector.length; i++) {
+            quantized[i] = (short) Math.round(vector[i] / scale);
+        }
+        return quantized;
+    }
+}
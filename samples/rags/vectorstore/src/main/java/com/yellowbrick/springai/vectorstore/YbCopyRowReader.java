@@ -0,0 +1,229 @@
+package com.yellowbrick.springai.vectorstore;
+
+import org.springframework.ai.document.Document;
+
+import java.io.Reader;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Renders rows in PostgreSQL COPY text format on demand, so a batch can be streamed
+ * through {@code COPY ... FROM STDIN} without building the whole payload in memory.
+ */
+abstract class YbCopyRowReader extends Reader {
+    private final StringBuilder row = new StringBuilder(256);
+    private int position;
+    private boolean exhausted;
+
+    /**
+     * Append the next row, including its trailing newline.
+     *
+     * @return false once there are no more rows
+     */
+    protected abstract boolean nextRow(StringBuilder row);
+
+    @Override
+    public int read(char[] buffer, int offset, int length) {
+        if (length == 0) {
+            return 0;
+        }
+        int written = 0;
+        while (written < length) {
+            if (position == row.length()) {
+                row.setLength(0);
+                position = 0;
+                if (exhausted || !nextRow(row)) {
+                    exhausted = true;
+                    break;
+                }
+            }
+            int n = Math.min(length - written, row.length() - position);
+            row.getChars(position, position + n, buffer, offset + written);
+            position += n;
+            written += n;
+        }
+        return written == 0 ? -1 : written;
+    }
+
+    @Override
+    public void close() {
+        exhausted = true;
+    }
+
+    /**
+     * One {@code (doc_id, text, metadata[, embedding_norm], content_hash, source, source_version, promoted...)}
+     * row per document; the norm column is present when the batch stores normalized vectors.
+     */
+    static YbCopyRowReader contentRows(YbWriteBatch batch, Function<Map<String, Object>, String> toJson) {
+        return new YbCopyRowReader() {
+            private int next;
+
+            @Override
+            protected boolean nextRow(StringBuilder row) {
+                if (next == batch.size()) {
+                    return false;
+                }
+                Document document = batch.documents.get(next);
+                row.append(document.getId()).append('\t');
+                appendEscaped(row, document.getContent());
+                row.append('\t');
+                appendEscaped(row, toJson.apply(document.getMetadata()));
+                if (batch.norms != null) {
+                    row.append('\t').append(batch.norms[next]);
+                }
+                appendValue(row, batch.contentHashes[next]);
+                appendValue(row, batch.sources[next]);
+                appendValue(row, batch.sourceVersions[next]);
+                for (Object value : batch.promoted[next]) {
+                    appendValue(row, value);
+                }
+                row.append('\n');
+                next++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * One {@code (doc_id, <block>, <values>[, cluster_id][, <quantized values>])} row per layout block
+     * of every document; the cluster columns are present when the batch has IVF cluster assignments
+     * and the quantized ones when the batch is quantized.
+     */
+    static YbCopyRowReader embeddingRows(YbWriteBatch batch, YbEmbeddingLayout layout) {
+        return new YbCopyRowReader() {
+            private int document;
+            private int block;
+
+            @Override
+            protected boolean nextRow(StringBuilder row) {
+                while (document < batch.size() && block == layout.blocks(batch.vectors[document].length)) {
+                    document++;
+                    block = 0;
+                }
+                if (document == batch.size()) {
+                    return false;
+                }
+                row.append(batch.documents.get(document).getId()).append('\t').append(block);
+                for (int column = 0; column < layout.width; column++) {
+                    row.append('\t').append(layout.value(batch.vectors[document], block, column));
+                }
+                if (batch.clusterIds != null) {
+                    row.append('\t').append(batch.clusterIds[document]);
+                }
+                if (batch.quantized != null) {
+                    for (int column = 0; column < layout.width; column++) {
+                        row.append('\t').append(layout.value(batch.quantized[document], block, column));
+                    }
+                }
+                row.append('\n');
+                block++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * One {@code (query_id, <block>, <values>)} row per layout block of every query vector,
+     * where the query id is the vector's index.
+     */
+    static YbCopyRowReader queryRows(float[][] queryEmbeddings, YbEmbeddingLayout layout) {
+        return new YbCopyRowReader() {
+            private int query;
+            private int block;
+
+            @Override
+            protected boolean nextRow(StringBuilder row) {
+                while (query < queryEmbeddings.length && block == layout.blocks(queryEmbeddings[query].length)) {
+                    query++;
+                    block = 0;
+                }
+                if (query == queryEmbeddings.length) {
+                    return false;
+                }
+                row.append(query).append('\t').append(block);
+                for (int column = 0; column < layout.width; column++) {
+                    row.append('\t').append(layout.value(queryEmbeddings[query], block, column));
+                }
+                row.append('\n');
+                block++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * One {@code (doc_id, term, tf, doc_length)} row per distinct term of every document, with the
+     * terms of document {@code i} in {@code terms.get(i)}.
+     */
+    static YbCopyRowReader termRows(List<Document> documents, List<Map<String, Integer>> terms) {
+        return new YbCopyRowReader() {
+            private int document = -1;
+            private Iterator<Map.Entry<String, Integer>> next = Collections.emptyIterator();
+            private int length;
+
+            @Override
+            protected boolean nextRow(StringBuilder row) {
+                while (!next.hasNext()) {
+                    if (++document == documents.size()) {
+                        return false;
+                    }
+                    next = terms.get(document).entrySet().iterator();
+                    length = YbTermIndex.length(terms.get(document));
+                }
+                Map.Entry<String, Integer> term = next.next();
+                row.append(documents.get(document).getId()).append('\t');
+                appendEscaped(row, term.getKey());
+                row.append('\t').append(term.getValue()).append('\t').append(length).append('\n');
+                return true;
+            }
+        };
+    }
+
+    /**
+     * One {@code (doc_id)} row per id.
+     */
+    static YbCopyRowReader idRows(Collection<String> ids) {
+        Iterator<String> next = ids.iterator();
+        return new YbCopyRowReader() {
+
+            @Override
+            protected boolean nextRow(StringBuilder row) {
+                if (!next.hasNext()) {
+                    return false;
+                }
+                appendEscaped(row, next.next());
+                row.append('\n');
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Append a tab and the value, with null as {@code \N}.
+     */
+    private static void appendValue(StringBuilder row, Object value) {
+        row.append('\t');
+        if (value == null) {
+            row.append("\\N");
+        } else {
+            appendEscaped(row, String.valueOf(value));
+        }
+    }
+
+    static void appendEscaped(StringBuilder row, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> row.append("\\\\");
+                case '\t' -> row.append("\\t");
+                case '\n' -> row.append("\\n");
+                case '\r' -> row.append("\\r");
+                default -> row.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.yellowbrick.springai.vectorstore;
+
+import java.util.regex.Pattern;
+
+/**
+ * Renders the store's DDL for its {@link YellowBrickVectorStore.SqlDialect}. Statements are written
+ * for Yellowbrick; for plain PostgreSQL the distribution and sort clauses, which PostgreSQL does not
+ * know and which only affect data placement, are removed.
+ */
+final class YbDdl {
+    private static final Pattern YELLOWBRICK_CLAUSES = Pattern.compile(
+            "\\s*(DISTRIBUTE\\s+(REPLICATE|RANDOM|ON\\s*\\([^)]*\\))|SORT\\s+ON\\s*\\([^)]*\\))", Pattern.CASE_INSENSITIVE);
+
+    private YbDdl() {
+    }
+
+    static String render(String ddl, YellowBrickVectorStore.SqlDialect dialect) {
+        return dialect == YellowBrickVectorStore.SqlDialect.YELLOWBRICK ? ddl : YELLOWBRICK_CLAUSES.matcher(ddl).replaceAll("");
+    }
+}
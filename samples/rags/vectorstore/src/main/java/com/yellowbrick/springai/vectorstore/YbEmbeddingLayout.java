@@ -0,0 +1,189 @@
+package com.yellowbrick.springai.vectorstore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * How embeddings are laid out in the embeddings table. A vector is split into blocks of
+ * {@link #width} consecutive dimensions; each block is one row keyed by {@code (doc_id, <block column>)}
+ * with one FLOAT column per dimension in the block. The last block is padded with zeros, which
+ * leaves dot products and norms unchanged.
+ * <p>
+ * The original one-row-per-dimension table is the special case of width 1 with the
+ * {@code embedding_id} and {@code embedding} columns, so every SQL fragment here renders exactly
+ * as it did before packing existed.
+ */
+final class YbEmbeddingLayout {
+    static final int MAX_WIDTH = 1024;
+
+    static final YbEmbeddingLayout ROW_PER_DIMENSION =
+            new YbEmbeddingLayout(1, "", "embedding_id", List.of("embedding"), List.of("embedding_q"));
+
+    final int width;
+    /**
+     * Column holding the block number; joins between query and stored vectors are on this column.
+     */
+    final String blockColumn;
+    private final String tableSuffix;
+    private final List<String> valueColumns;
+    private final List<String> quantizedColumns;
+
+    private YbEmbeddingLayout(int width, String tableSuffix, String blockColumn, List<String> valueColumns, List<String> quantizedColumns) {
+        this.width = width;
+        this.tableSuffix = tableSuffix;
+        this.blockColumn = blockColumn;
+        this.valueColumns = valueColumns;
+        this.quantizedColumns = quantizedColumns;
+    }
+
+    /**
+     * Blocks of {@code width} dimensions in {@code (doc_id, block_id, e0 .. e<width-1>)} rows of
+     * {@code <table>_packed}.
+     */
+    static YbEmbeddingLayout packed(int width) {
+        if (width < 1 || width > MAX_WIDTH) {
+            throw new IllegalArgumentException("Packed block width must be between 1 and " + MAX_WIDTH + ": " + width);
+        }
+        List<String> values = new ArrayList<>(width);
+        List<String> quantized = new ArrayList<>(width);
+        for (int i = 0; i < width; i++) {
+            values.add("e" + i);
+            quantized.add("q" + i);
+        }
+        return new YbEmbeddingLayout(width, "_packed", "block_id", List.copyOf(values), List.copyOf(quantized));
+    }
+
+    boolean isPacked() {
+        return !tableSuffix.isEmpty();
+    }
+
+    String tableName(String vectorTableName) {
+        return vectorTableName + tableSuffix;
+    }
+
+    int blocks(int dimensions) {
+        return (dimensions + width - 1) / width;
+    }
+
+    /**
+     * @return component {@code column} of {@code block}, or zero past the end of the vector
+     */
+    float value(float[] vector, int block, int column) {
+        int i = block * width + column;
+        return i < vector.length ? vector[i] : 0f;
+    }
+
+    short value(short[] vector, int block, int column) {
+        int i = block * width + column;
+        return i < vector.length ? vector[i] : 0;
+    }
+
+    /**
+     * @return the block and value columns, for example {@code "block_id, e0, e1"}
+     */
+    String columns() {
+        return blockColumn + ", " + String.join(", ", valueColumns);
+    }
+
+    String quantizedColumns() {
+        return String.join(", ", quantizedColumns);
+    }
+
+    List<String> quantizedColumnList() {
+        return quantizedColumns;
+    }
+
+    String firstQuantizedColumn() {
+        return quantizedColumns.get(0);
+    }
+
+    /**
+     * Column definitions for the block and value columns, without trailing separator.
+     */
+    String columnDefinitions(String valueType) {
+        return blockColumn + " SMALLINT NOT NULL,\n" + join(",\n", c -> c + " " + valueType, valueColumns);
+    }
+
+    String quantizedColumnDefinitions() {
+        return join(",\n", c -> c + " SMALLINT", quantizedColumns);
+    }
+
+    /**
+     * @return {@code ", ?"} once per value column
+     */
+    String valuePlaceholders() {
+        return ", ?".repeat(width);
+    }
+
+    /**
+     * The per-row partial dot product of two aliases, for example {@code "a.e0 * b.e0 + a.e1 * b.e1"};
+     * summing it over the blocks of a document gives the full dot product.
+     */
+    String dot(String a, String b) {
+        return join(" + ", c -> a + "." + c + " * " + b + "." + c, valueColumns);
+    }
+
+    /**
+     * Partial dot product of the full-precision {@code query} alias with the quantized copy of {@code stored}.
+     */
+    String quantizedDot(String query, String stored) {
+        List<String> products = new ArrayList<>(width);
+        for (int i = 0; i < width; i++) {
+            products.add(query + "." + valueColumns.get(i) + " * " + stored + "." + quantizedColumns.get(i));
+        }
+        return String.join(" + ", products);
+    }
+
+    String quantizedSquares(String stored) {
+        return join(" + ", c -> stored + "." + c + " * " + stored + "." + c, quantizedColumns);
+    }
+
+    /**
+     * The largest absolute value within one row of {@code alias}.
+     */
+    String maxAbs(String alias) {
+        String abs = join(", ", c -> "ABS(" + alias + "." + c + ")", valueColumns);
+        return width == 1 ? abs : "GREATEST(" + abs + ")";
+    }
+
+    /**
+     * {@code SET} assignments dividing every value column of {@code table} by {@code divisor}.
+     */
+    String divideAssignments(String table, String divisor) {
+        return join(", ", c -> c + " = " + table + "." + c + " / " + divisor, valueColumns);
+    }
+
+    /**
+     * {@code SET} assignments filling the quantized columns of {@code table} from its value columns.
+     */
+    String quantizeAssignments(String table, String scale) {
+        List<String> assignments = new ArrayList<>(width);
+        for (int i = 0; i < width; i++) {
+            assignments.add(quantizedColumns.get(i) + " = CASE WHEN " + scale + " > 0 THEN ROUND("
+                    + table + "." + valueColumns.get(i) + " / " + scale + ") ELSE 0 END");
+        }
+        return String.join(", ", assignments);
+    }
+
+    /**
+     * Select list turning one-row-per-dimension rows of alias {@code v}, grouped by
+     * {@code doc_id, embedding_id / width}, into this layout's value columns.
+     */
+    String pivotFromRows(String v) {
+        List<String> pivots = new ArrayList<>(width);
+        for (int i = 0; i < width; i++) {
+            pivots.add("COALESCE(MAX(CASE WHEN " + v + ".embedding_id % " + width + " = " + i
+                    + " THEN " + v + ".embedding END), 0)");
+        }
+        return String.join(", ", pivots);
+    }
+
+    private static String join(String separator, Function<String, String> column, List<String> columns) {
+        List<String> parts = new ArrayList<>(columns.size());
+        for (String c : columns) {
+            parts.add(column.apply(c));
+        }
+        return String.join(separator, parts);
+    }
+}
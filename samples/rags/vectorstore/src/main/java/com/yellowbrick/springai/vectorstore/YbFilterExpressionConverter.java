@@ -0,0 +1,128 @@
+package com.yellowbrick.springai.vectorstore;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.converter.AbstractFilterExpressionConverter;
+
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Converts a Spring AI {@link Filter.Expression} into a SQL predicate over the promoted metadata
+ * columns of the content table. Keys that are not promoted cannot be evaluated in SQL and are
+ * rejected rather than silently ignored.
+ */
+final class YbFilterExpressionConverter extends AbstractFilterExpressionConverter {
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private final YbPromotedMetadata promotedMetadata;
+    private final String tableAlias;
+
+    YbFilterExpressionConverter(YbPromotedMetadata promotedMetadata, String tableAlias) {
+        this.promotedMetadata = promotedMetadata;
+        this.tableAlias = tableAlias;
+    }
+
+    @Override
+    protected void doExpression(Filter.Expression expression, StringBuilder context) {
+        switch (expression.type()) {
+            case AND, OR -> {
+                context.append('(');
+                convertOperand(expression.left(), context);
+                context.append(expression.type() == Filter.ExpressionType.AND ? " AND " : " OR ");
+                convertOperand(expression.right(), context);
+                context.append(')');
+            }
+            case IN, NIN -> doIn(expression, context);
+            case EQ, NE -> {
+                convertOperand(expression.left(), context);
+                if (((Filter.Value) expression.right()).value() == null) {
+                    context.append(expression.type() == Filter.ExpressionType.EQ ? " IS NULL" : " IS NOT NULL");
+                } else {
+                    context.append(expression.type() == Filter.ExpressionType.EQ ? " = " : " <> ");
+                    convertOperand(expression.right(), context);
+                }
+            }
+            default -> {
+                convertOperand(expression.left(), context);
+                context.append(operator(expression.type()));
+                convertOperand(expression.right(), context);
+            }
+        }
+    }
+
+    /**
+     * An empty list matches nothing for IN and everything for NOT IN; SQL has no empty {@code IN ()}.
+     */
+    private void doIn(Filter.Expression expression, StringBuilder context) {
+        boolean in = expression.type() == Filter.ExpressionType.IN;
+        Object values = ((Filter.Value) expression.right()).value();
+        Collection<?> list = values instanceof Collection<?> collection ? collection : List.of(values);
+        if (list.isEmpty()) {
+            context.append(in ? "FALSE" : "TRUE");
+            return;
+        }
+        convertOperand(expression.left(), context);
+        context.append(in ? " IN (" : " NOT IN (");
+        int i = 0;
+        for (Object value : list) {
+            context.append(i++ == 0 ? "" : ", ");
+            doSingleValue(value, context);
+        }
+        context.append(')');
+    }
+
+    @Override
+    protected void doNot(Filter.Expression expression, StringBuilder context) {
+        context.append("NOT (");
+        convertOperand(expression.left(), context);
+        context.append(')');
+    }
+
+    private String operator(Filter.ExpressionType type) {
+        return switch (type) {
+            case GT -> " > ";
+            case GTE -> " >= ";
+            case LT -> " < ";
+            case LTE -> " <= ";
+            default -> throw new IllegalArgumentException("Unsupported filter operator: " + type);
+        };
+    }
+
+    @Override
+    protected void doKey(Filter.Key key, StringBuilder context) {
+        String name = hasOuterQuotes(key.key()) ? removeOuterQuotes(key.key().trim()) : key.key();
+        if (!promotedMetadata.isPromoted(name)) {
+            throw new IllegalArgumentException("Metadata key '" + name + "' is not promoted to a column; add it to "
+                    + "spring.ai.vectorstore.ybvector.promoted-metadata to filter on it");
+        }
+        context.append(tableAlias).append('.').append(YbPromotedMetadata.column(name));
+    }
+
+    @Override
+    protected void doStartGroup(Filter.Group group, StringBuilder context) {
+        context.append('(');
+    }
+
+    @Override
+    protected void doEndGroup(Filter.Group group, StringBuilder context) {
+        context.append(')');
+    }
+
+    /**
+     * Dates are written as UTC timestamps, the way {@link YbPromotedMetadata#values} stores them.
+     */
+    @Override
+    protected void doSingleValue(Object value, StringBuilder context) {
+        if (value == null) {
+            context.append("NULL");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            context.append(value);
+        } else if (value instanceof Date date) {
+            context.append("TIMESTAMP '").append(TIMESTAMP.format(YbPromotedMetadata.utc(date))).append('\'');
+        } else {
+            context.append('\'').append(value.toString().replace("'", "''")).append('\'');
+        }
+    }
+}
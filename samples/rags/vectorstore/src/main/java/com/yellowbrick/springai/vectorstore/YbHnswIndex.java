@@ -0,0 +1,657 @@
+package com.yellowbrick.springai.vectorstore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Hierarchical navigable small world graph over a store's embeddings, for approximate search in
+ * roughly logarithmic time. Vectors are normalized, so similarity is the dot product.
+ * <p>
+ * Nodes live in a memory-mapped file of fixed-size records: flags, doc id, the layer 0 neighbour
+ * list and the vector. The file is mapped in segments, so it can outgrow the 2 GB limit of one
+ * mapping. The sparser upper layers and the header are kept in memory and written to
+ * {@code <file>.graph} by {@link #flush()}; reopening maps the node file and reads only that small
+ * file.
+ * <p>
+ * The mapping is not durable between flushes: an insert rewrites the links of nodes already on
+ * disk, and the operating system may write those pages back at any time. The first change after a
+ * flush therefore creates {@code <file>.dirty}, and the next flush removes it. {@link #load()}
+ * refuses an index that still has the marker, as one left behind by a crash would, so the store
+ * rebuilds it.
+ * <p>
+ * A deleted or replaced document's node is flagged and stays in the graph as a waypoint, so
+ * deletes are cheap but the file only grows; {@link #deletedNodes()} tells when a rebuild is due.
+ * Searches take the read lock and updates the write lock; flushes take the read lock and are
+ * serialized among themselves.
+ */
+final class YbHnswIndex {
+    private static final Logger logger = LoggerFactory.getLogger(YbHnswIndex.class);
+
+    private static final int MAGIC = 0x59424857;
+    private static final int VERSION = 1;
+    private static final int MAX_LEVEL = 16;
+    private static final int MAX_SEGMENT_NODES = 16384;
+    private static final int FLAGS = 0;
+    private static final int DOC_ID = 4;
+    private static final int NEIGHBOUR_COUNT = 20;
+    private static final int NEIGHBOURS = 24;
+    private static final int DELETED = 1;
+
+    private record Candidate(int node, double score) {
+    }
+
+    private final Path file;
+    private final Path graphFile;
+    private final Path dirtyFile;
+    final int m;
+    final int efConstruction;
+    final int efSearch;
+    private final int maxNeighbours0;
+    private final double levelMultiplier;
+    private final int maxSegmentNodes;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object flushLock = new Object();
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final Map<String, Integer> nodes = new HashMap<>();
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private FileChannel channel;
+    private int dimensions;
+    private int recordBytes;
+    private int vectorOffset;
+    private int segmentNodes;
+    private int count;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    /** Changed since the last flush; the dirty marker exists. */
+    private boolean dirty;
+    /** {@code upper[node][level - 1]} holds the count followed by the neighbours; null for layer 0 only nodes. */
+    private int[][][] upper = new int[0][][];
+
+    YbHnswIndex(Path file, int m, int efConstruction, int efSearch) {
+        this(file, m, efConstruction, efSearch, MAX_SEGMENT_NODES);
+    }
+
+    /**
+     * @param maxSegmentNodes nodes per mapped segment at most
+     */
+    YbHnswIndex(Path file, int m, int efConstruction, int efSearch, int maxSegmentNodes) {
+        this.file = file;
+        this.graphFile = file.resolveSibling(file.getFileName() + ".graph");
+        this.dirtyFile = file.resolveSibling(file.getFileName() + ".dirty");
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.maxNeighbours0 = 2 * m;
+        this.levelMultiplier = 1 / Math.log(m);
+        this.maxSegmentNodes = maxSegmentNodes;
+    }
+
+    /**
+     * Reopen the index written by an earlier {@link #flush()}.
+     *
+     * @return false, leaving the index empty, if there is none, it was built with another {@code m}
+     * or it was changed after its last flush
+     */
+    boolean load() {
+        this.lock.writeLock().lock();
+        try {
+            reset();
+            if (!Files.exists(this.graphFile) || !Files.exists(this.file)) {
+                return false;
+            }
+            if (Files.exists(this.dirtyFile)) {
+                logger.warn("Ignoring HNSW index {}: it was changed and not flushed, probably by a process that crashed", this.file);
+                return false;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.graphFile)))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    logger.warn("Ignoring HNSW index {}: unknown format", this.file);
+                    return false;
+                }
+                int storedM = in.readInt();
+                if (storedM != this.m) {
+                    logger.info("Ignoring HNSW index {}: built with m={}, configured m={}", this.file, storedM, this.m);
+                    return false;
+                }
+                int storedDimensions = in.readInt();
+                int storedCount = in.readInt();
+                this.entryPoint = in.readInt();
+                this.maxLevel = in.readInt();
+                this.upper = new int[Math.max(storedCount, 16)][][];
+                for (int node = in.readInt(); node >= 0; node = in.readInt()) {
+                    int[][] levels = new int[in.readInt()][];
+                    for (int level = 0; level < levels.length; level++) {
+                        levels[level] = new int[this.m + 1];
+                        levels[level][0] = in.readInt();
+                        for (int i = 1; i <= levels[level][0]; i++) {
+                            levels[level][i] = in.readInt();
+                        }
+                    }
+                    this.upper[node] = levels;
+                }
+                if (storedCount > 0) {
+                    useDimensions(storedDimensions);
+                    if (this.channel.size() < (long) storedCount * this.recordBytes) {
+                        logger.warn("Ignoring HNSW index {}: node file is shorter than the graph", this.file);
+                        reset();
+                        return false;
+                    }
+                    ensureCapacity(storedCount);
+                }
+                this.count = storedCount;
+            }
+            for (int node = 0; node < this.count; node++) {
+                MappedByteBuffer segment = segment(node);
+                int offset = offset(node);
+                if ((segment.getInt(offset + FLAGS) & DELETED) == 0) {
+                    this.nodes.put(new UUID(segment.getLong(offset + DOC_ID), segment.getLong(offset + DOC_ID + 8)).toString(), node);
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open HNSW index " + this.file, e);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return documents searchable through the index
+     */
+    int size() {
+        this.lock.readLock().lock();
+        try {
+            return this.nodes.size();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return nodes of deleted or replaced documents still in the graph
+     */
+    int deletedNodes() {
+        this.lock.readLock().lock();
+        try {
+            return this.count - this.nodes.size();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Insert the embedding of each document, replacing any it had.
+     */
+    void addAll(Map<String, float[]> embeddings) {
+        this.lock.writeLock().lock();
+        try {
+            markDirty();
+            embeddings.forEach(this::insert);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    void removeAll(Collection<String> ids) {
+        this.lock.writeLock().lock();
+        try {
+            markDirty();
+            ids.forEach(this::markDeleted);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Delete the index files and start over empty.
+     */
+    void clear() {
+        this.lock.writeLock().lock();
+        try {
+            reset();
+            Files.deleteIfExists(this.file);
+            Files.deleteIfExists(this.graphFile);
+            Files.deleteIfExists(this.dirtyFile);
+            this.dirty = false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete HNSW index " + this.file, e);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Write the node records to disk and replace the graph file, atomically where the file system allows.
+     */
+    void flush() {
+        synchronized (this.flushLock) {
+            this.lock.readLock().lock();
+            try {
+                writeGraph();
+            } finally {
+                this.lock.readLock().unlock();
+            }
+        }
+    }
+
+    private void writeGraph() {
+        try {
+            this.segments.forEach(MappedByteBuffer::force);
+            Path temporary = this.graphFile.resolveSibling(this.graphFile.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(this.m);
+                out.writeInt(this.dimensions);
+                out.writeInt(this.count);
+                out.writeInt(this.entryPoint);
+                out.writeInt(this.maxLevel);
+                for (int node = 0; node < this.count; node++) {
+                    int[][] levels = this.upper[node];
+                    if (levels == null) {
+                        continue;
+                    }
+                    out.writeInt(node);
+                    out.writeInt(levels.length);
+                    for (int[] neighbours : levels) {
+                        for (int i = 0; i <= neighbours[0]; i++) {
+                            out.writeInt(neighbours[i]);
+                        }
+                    }
+                }
+                out.writeInt(-1);
+            }
+            try {
+                Files.move(temporary, this.graphFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(temporary, this.graphFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.deleteIfExists(this.dirtyFile);
+            this.dirty = false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write HNSW index " + this.file, e);
+        }
+    }
+
+    /**
+     * Create the dirty marker, and force it to disk, before the first change after a flush reaches
+     * the mapped file.
+     */
+    private void markDirty() {
+        if (this.dirty) {
+            return;
+        }
+        try (FileChannel marker = FileChannel.open(this.dirtyFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            marker.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not mark HNSW index " + this.file + " as changed", e);
+        }
+        this.dirty = true;
+    }
+
+    /**
+     * The approximate {@code topK} documents most similar to {@code query} with a similarity of at
+     * least {@code threshold}, best first. The search keeps {@code max(efSearch, topK)} candidates.
+     */
+    List<YbSearchHit> search(float[] query, int topK, double threshold) {
+        this.lock.readLock().lock();
+        try {
+            if (this.entryPoint < 0 || topK <= 0) {
+                return List.of();
+            }
+            float[] unit = VectorMath.normalize(VectorMath.resize(query, this.dimensions));
+            Candidate nearest = descend(unit, this.maxLevel, 0);
+            List<Candidate> found = searchLayer(unit, List.of(nearest), Math.max(this.efSearch, topK), 0);
+            List<YbSearchHit> hits = new ArrayList<>(topK);
+            for (Candidate candidate : found) {
+                if (hits.size() == topK || candidate.score() < threshold) {
+                    break;
+                }
+                if (!isDeleted(candidate.node())) {
+                    hits.add(new YbSearchHit(docId(candidate.node()), candidate.score()));
+                }
+            }
+            return hits;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private void insert(String docId, float[] embedding) {
+        markDeleted(docId);
+        if (this.dimensions == 0) {
+            useDimensions(embedding.length);
+        }
+        float[] vector = VectorMath.normalize(VectorMath.resize(embedding, this.dimensions));
+        int node = this.count;
+        ensureCapacity(node + 1);
+        MappedByteBuffer segment = segment(node);
+        int offset = offset(node);
+        UUID uuid = UUID.fromString(docId);
+        segment.putInt(offset + FLAGS, 0);
+        segment.putLong(offset + DOC_ID, uuid.getMostSignificantBits());
+        segment.putLong(offset + DOC_ID + 8, uuid.getLeastSignificantBits());
+        segment.putInt(offset + NEIGHBOUR_COUNT, 0);
+        for (int i = 0; i < vector.length; i++) {
+            segment.putFloat(offset + this.vectorOffset + i * Float.BYTES, vector[i]);
+        }
+        int level = Math.min(MAX_LEVEL, (int) (-Math.log(1 - this.random.nextDouble()) * this.levelMultiplier));
+        if (level > 0) {
+            int[][] levels = new int[level][];
+            for (int i = 0; i < level; i++) {
+                levels[i] = new int[this.m + 1];
+            }
+            this.upper[node] = levels;
+        }
+        this.count++;
+        this.nodes.put(docId, node);
+
+        if (this.entryPoint < 0) {
+            this.entryPoint = node;
+            this.maxLevel = level;
+            return;
+        }
+        List<Candidate> entryPoints = List.of(descend(vector, this.maxLevel, level));
+        for (int layer = Math.min(level, this.maxLevel); layer >= 0; layer--) {
+            List<Candidate> found = searchLayer(vector, entryPoints, this.efConstruction, layer);
+            int[] selected = selectNeighbours(found, this.m);
+            setNeighbours(node, layer, selected);
+            for (int neighbour : selected) {
+                connect(neighbour, node, layer);
+            }
+            entryPoints = found;
+        }
+        if (level > this.maxLevel) {
+            this.entryPoint = node;
+            this.maxLevel = level;
+        }
+    }
+
+    private void markDeleted(String docId) {
+        Integer node = this.nodes.remove(docId);
+        if (node != null) {
+            MappedByteBuffer segment = segment(node);
+            int offset = offset(node);
+            segment.putInt(offset + FLAGS, segment.getInt(offset + FLAGS) | DELETED);
+        }
+    }
+
+    /**
+     * Greedy walk from the entry point down to {@code toLevel}, following whichever neighbour is closer.
+     */
+    private Candidate descend(float[] query, int fromLevel, int toLevel) {
+        Candidate nearest = new Candidate(this.entryPoint, dot(query, this.entryPoint));
+        for (int layer = fromLevel; layer > toLevel; layer--) {
+            boolean moved = true;
+            while (moved) {
+                moved = false;
+                int[] neighbours = neighbours(nearest.node(), layer);
+                for (int neighbour : neighbours) {
+                    double score = dot(query, neighbour);
+                    if (score > nearest.score()) {
+                        nearest = new Candidate(neighbour, score);
+                        moved = true;
+                    }
+                }
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Best-first search of one layer.
+     *
+     * @return up to {@code ef} nodes, best first, deleted ones included
+     */
+    private List<Candidate> searchLayer(float[] query, List<Candidate> entryPoints, int ef, int layer) {
+        BitSet visited = new BitSet(this.count);
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>(Comparator.comparingDouble(Candidate::score).reversed());
+        PriorityQueue<Candidate> found = new PriorityQueue<>(ef + 1, Comparator.comparingDouble(Candidate::score));
+        for (Candidate entryPoint : entryPoints) {
+            visited.set(entryPoint.node());
+            frontier.add(entryPoint);
+            found.add(entryPoint);
+            if (found.size() > ef) {
+                found.poll();
+            }
+        }
+        while (!frontier.isEmpty()) {
+            Candidate closest = frontier.poll();
+            if (found.size() >= ef && closest.score() < found.peek().score()) {
+                break;
+            }
+            for (int neighbour : neighbours(closest.node(), layer)) {
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                double score = dot(query, neighbour);
+                if (found.size() < ef || score > found.peek().score()) {
+                    Candidate candidate = new Candidate(neighbour, score);
+                    frontier.add(candidate);
+                    found.add(candidate);
+                    if (found.size() > ef) {
+                        found.poll();
+                    }
+                }
+            }
+        }
+        List<Candidate> result = new ArrayList<>(found);
+        result.sort(Comparator.comparingDouble(Candidate::score).reversed());
+        return result;
+    }
+
+    /**
+     * The neighbour selection heuristic of the HNSW paper: a candidate is kept unless it is closer to
+     * an already kept neighbour than to the base node, which spreads links across directions; the
+     * remaining slots are filled with the pruned candidates.
+     *
+     * @param candidates best first, scored against the base node
+     */
+    private int[] selectNeighbours(List<Candidate> candidates, int max) {
+        int[] selected = new int[Math.min(max, candidates.size())];
+        List<float[]> selectedVectors = new ArrayList<>();
+        List<Candidate> pruned = new ArrayList<>();
+        int n = 0;
+        for (Candidate candidate : candidates) {
+            if (n == selected.length) {
+                break;
+            }
+            float[] vector = vector(candidate.node());
+            boolean diverse = true;
+            for (float[] kept : selectedVectors) {
+                if (VectorMath.dot(vector, kept) > candidate.score()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected[n++] = candidate.node();
+                selectedVectors.add(vector);
+            } else {
+                pruned.add(candidate);
+            }
+        }
+        for (int i = 0; n < selected.length && i < pruned.size(); i++) {
+            selected[n++] = pruned.get(i).node();
+        }
+        return selected;
+    }
+
+    /**
+     * Link {@code node} from {@code neighbour}, re-selecting the neighbour's links if it has too many.
+     */
+    private void connect(int neighbour, int node, int layer) {
+        int max = layer == 0 ? this.maxNeighbours0 : this.m;
+        int[] current = neighbours(neighbour, layer);
+        if (current.length < max) {
+            int[] linked = Arrays.copyOf(current, current.length + 1);
+            linked[current.length] = node;
+            setNeighbours(neighbour, layer, linked);
+            return;
+        }
+        float[] base = vector(neighbour);
+        List<Candidate> candidates = new ArrayList<>(current.length + 1);
+        for (int existing : current) {
+            candidates.add(new Candidate(existing, dot(base, existing)));
+        }
+        candidates.add(new Candidate(node, dot(base, node)));
+        candidates.sort(Comparator.comparingDouble(Candidate::score).reversed());
+        int[] selected = selectNeighbours(candidates, max);
+        setNeighbours(neighbour, layer, selected);
+    }
+
+    /**
+     * Links to nodes past {@link #count} are skipped; a flushed index has none, but a node file
+     * written past its graph file could.
+     */
+    private int[] neighbours(int node, int layer) {
+        if (layer > 0) {
+            int[][] levels = this.upper[node];
+            if (levels == null || layer > levels.length) {
+                return new int[0];
+            }
+            return Arrays.stream(levels[layer - 1], 1, 1 + levels[layer - 1][0]).filter(n -> n < this.count).toArray();
+        }
+        MappedByteBuffer segment = segment(node);
+        int offset = offset(node);
+        int[] neighbours = new int[segment.getInt(offset + NEIGHBOUR_COUNT)];
+        int n = 0;
+        for (int i = 0; i < neighbours.length; i++) {
+            int neighbour = segment.getInt(offset + NEIGHBOURS + i * Integer.BYTES);
+            if (neighbour < this.count) {
+                neighbours[n++] = neighbour;
+            }
+        }
+        return n == neighbours.length ? neighbours : Arrays.copyOf(neighbours, n);
+    }
+
+    private void setNeighbours(int node, int layer, int[] neighbours) {
+        if (layer > 0) {
+            int[] list = this.upper[node][layer - 1];
+            list[0] = neighbours.length;
+            System.arraycopy(neighbours, 0, list, 1, neighbours.length);
+            return;
+        }
+        MappedByteBuffer segment = segment(node);
+        int offset = offset(node);
+        for (int i = 0; i < neighbours.length; i++) {
+            segment.putInt(offset + NEIGHBOURS + i * Integer.BYTES, neighbours[i]);
+        }
+        segment.putInt(offset + NEIGHBOUR_COUNT, neighbours.length);
+    }
+
+    private double dot(float[] query, int node) {
+        MappedByteBuffer segment = segment(node);
+        int base = offset(node) + this.vectorOffset;
+        float sum = 0;
+        for (int i = 0; i < this.dimensions; i++) {
+            sum += query[i] * segment.getFloat(base + i * Float.BYTES);
+        }
+        return sum;
+    }
+
+    private float[] vector(int node) {
+        MappedByteBuffer segment = segment(node);
+        int base = offset(node) + this.vectorOffset;
+        float[] vector = new float[this.dimensions];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = segment.getFloat(base + i * Float.BYTES);
+        }
+        return vector;
+    }
+
+    private boolean isDeleted(int node) {
+        return (segment(node).getInt(offset(node) + FLAGS) & DELETED) != 0;
+    }
+
+    private String docId(int node) {
+        MappedByteBuffer segment = segment(node);
+        int offset = offset(node);
+        return new UUID(segment.getLong(offset + DOC_ID), segment.getLong(offset + DOC_ID + 8)).toString();
+    }
+
+    private MappedByteBuffer segment(int node) {
+        return this.segments.get(node / this.segmentNodes);
+    }
+
+    private int offset(int node) {
+        return (node % this.segmentNodes) * this.recordBytes;
+    }
+
+    private void useDimensions(int dimensions) {
+        this.dimensions = dimensions;
+        this.vectorOffset = NEIGHBOURS + this.maxNeighbours0 * Integer.BYTES;
+        this.recordBytes = this.vectorOffset + dimensions * Float.BYTES;
+        this.segmentNodes = Math.max(1, Math.min(this.maxSegmentNodes, Integer.MAX_VALUE / this.recordBytes));
+        try {
+            this.channel = FileChannel.open(this.file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open HNSW index " + this.file, e);
+        }
+    }
+
+    /**
+     * Map enough segments for {@code nodes} nodes; mapping past the end grows the file.
+     */
+    private void ensureCapacity(int nodes) {
+        long segmentBytes = (long) this.segmentNodes * this.recordBytes;
+        try {
+            while ((long) this.segments.size() * this.segmentNodes < nodes) {
+                MappedByteBuffer segment = this.channel.map(FileChannel.MapMode.READ_WRITE, this.segments.size() * segmentBytes, segmentBytes);
+                segment.order(ByteOrder.LITTLE_ENDIAN);
+                this.segments.add(segment);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map HNSW index " + this.file, e);
+        }
+        if (nodes > this.upper.length) {
+            this.upper = Arrays.copyOf(this.upper, Math.max(nodes, this.upper.length * 2));
+        }
+    }
+
+    private void reset() {
+        this.segments.clear();
+        if (this.channel != null) {
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                logger.warn("Could not close HNSW index {}: {}", this.file, e.getMessage());
+            }
+            this.channel = null;
+        }
+        this.nodes.clear();
+        this.upper = new int[16][][];
+        this.dimensions = 0;
+        this.count = 0;
+        this.entryPoint = -1;
+        this.maxLevel = -1;
+    }
+}
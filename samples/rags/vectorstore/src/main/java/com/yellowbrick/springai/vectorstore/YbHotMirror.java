@@ -0,0 +1,228 @@
+package com.yellowbrick.springai.vectorstore;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory copy of a store's embeddings for exact search without a database round trip. The
+ * vectors are normalized to unit length and packed row after row into one direct buffer, outside
+ * the Java heap, so a dot product is the cosine similarity and a scan is a linear walk over
+ * contiguous memory. Deleting a row moves the last row into its place, which keeps the rows dense.
+ * <p>
+ * A scan takes the read lock and updates take the write lock. Mirrors larger than
+ * {@link #ROWS_PER_TASK} rows are scanned in slices on a fork/join pool, which the mirrors of
+ * several stores may share, each slice keeping its own top k, and the slices' results are merged.
+ */
+final class YbHotMirror {
+    /** Rows scanned by one task; below this, splitting costs more than it saves. */
+    static final int ROWS_PER_TASK = 16384;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ForkJoinPool pool;
+    private final Map<String, Integer> rows = new HashMap<>();
+    private String[] docIds = new String[0];
+    private FloatBuffer vectors;
+    private int dimensions;
+    private int size;
+
+    YbHotMirror(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    ForkJoinPool pool() {
+        return this.pool;
+    }
+
+    int size() {
+        this.lock.readLock().lock();
+        try {
+            return this.size;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the off-heap bytes held by the vectors, including spare capacity
+     */
+    long memoryBytes() {
+        this.lock.readLock().lock();
+        try {
+            return this.vectors == null ? 0 : (long) this.vectors.capacity() * Float.BYTES;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add or replace the embedding of each document.
+     */
+    void putAll(Map<String, float[]> embeddings) {
+        this.lock.writeLock().lock();
+        try {
+            embeddings.forEach(this::put);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private void put(String docId, float[] embedding) {
+        if (this.dimensions == 0) {
+            this.dimensions = embedding.length;
+        }
+        Integer row = this.rows.get(docId);
+        if (row == null) {
+            ensureCapacity(this.size + 1);
+            row = this.size++;
+            this.rows.put(docId, row);
+            this.docIds[row] = docId;
+        }
+        float[] unit = VectorMath.normalize(VectorMath.resize(embedding, this.dimensions));
+        this.vectors.put(row * this.dimensions, unit);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= this.docIds.length) {
+            return;
+        }
+        int rowCapacity = Math.max(capacity, Math.max(1024, this.docIds.length * 2));
+        FloatBuffer grown = ByteBuffer.allocateDirect(Math.multiplyExact(rowCapacity, this.dimensions * Float.BYTES))
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+        if (this.vectors != null) {
+            grown.put(0, this.vectors, 0, this.size * this.dimensions);
+        }
+        this.vectors = grown;
+        this.docIds = Arrays.copyOf(this.docIds, rowCapacity);
+    }
+
+    void removeAll(Collection<String> ids) {
+        this.lock.writeLock().lock();
+        try {
+            for (String docId : ids) {
+                Integer row = this.rows.remove(docId);
+                if (row == null) {
+                    continue;
+                }
+                int last = --this.size;
+                if (row != last) {
+                    this.vectors.put(row * this.dimensions, this.vectors, last * this.dimensions, this.dimensions);
+                    this.docIds[row] = this.docIds[last];
+                    this.rows.put(this.docIds[row], row);
+                }
+                this.docIds[last] = null;
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        this.lock.writeLock().lock();
+        try {
+            this.rows.clear();
+            this.docIds = new String[0];
+            this.vectors = null;
+            this.dimensions = 0;
+            this.size = 0;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The {@code topK} documents most similar to {@code query} with a similarity of at least
+     * {@code threshold}, best first.
+     */
+    List<YbSearchHit> search(float[] query, int topK, double threshold) {
+        this.lock.readLock().lock();
+        try {
+            if (this.size == 0 || topK <= 0) {
+                return List.of();
+            }
+            float[] unit = VectorMath.normalize(VectorMath.resize(query, this.dimensions));
+            int tasks = (this.size + ROWS_PER_TASK - 1) / ROWS_PER_TASK;
+            PriorityQueue<YbSearchHit> best;
+            if (tasks == 1) {
+                best = scan(unit, 0, this.size, topK, threshold);
+            } else {
+                List<Callable<PriorityQueue<YbSearchHit>>> slices = new ArrayList<>(tasks);
+                for (int t = 0; t < tasks; t++) {
+                    int from = t * ROWS_PER_TASK;
+                    int to = Math.min(this.size, from + ROWS_PER_TASK);
+                    slices.add(() -> scan(unit, from, to, topK, threshold));
+                }
+                best = newHeap(topK);
+                for (Future<PriorityQueue<YbSearchHit>> slice : this.pool.invokeAll(slices)) {
+                    for (YbSearchHit hit : slice.get()) {
+                        offer(best, topK, hit.docId(), hit.score());
+                    }
+                }
+            }
+            List<YbSearchHit> hits = new ArrayList<>(best);
+            hits.sort(Comparator.comparingDouble(YbSearchHit::score).reversed());
+            return hits;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scanning the hot mirror", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Scanning the hot mirror failed", e.getCause());
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private PriorityQueue<YbSearchHit> scan(float[] query, int from, int to, int topK, double threshold) {
+        PriorityQueue<YbSearchHit> best = newHeap(topK);
+        FloatBuffer vectors = this.vectors;
+        int dimensions = this.dimensions;
+        for (int row = from; row < to; row++) {
+            int base = row * dimensions;
+            // four independent sums, so consecutive multiply-adds don't wait on each other
+            float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+            int i = 0;
+            for (; i + 3 < dimensions; i += 4) {
+                s0 += query[i] * vectors.get(base + i);
+                s1 += query[i + 1] * vectors.get(base + i + 1);
+                s2 += query[i + 2] * vectors.get(base + i + 2);
+                s3 += query[i + 3] * vectors.get(base + i + 3);
+            }
+            for (; i < dimensions; i++) {
+                s0 += query[i] * vectors.get(base + i);
+            }
+            double score = (s0 + s1) + (s2 + s3);
+            if (score >= threshold) {
+                offer(best, topK, this.docIds[row], score);
+            }
+        }
+        return best;
+    }
+
+    private static PriorityQueue<YbSearchHit> newHeap(int topK) {
+        return new PriorityQueue<>(Math.min(topK, 1024) + 1, Comparator.comparingDouble(YbSearchHit::score));
+    }
+
+    private static void offer(PriorityQueue<YbSearchHit> best, int topK, String docId, double score) {
+        if (best.size() < topK) {
+            best.add(new YbSearchHit(docId, score));
+        } else if (score > best.peek().score()) {
+            best.poll();
+            best.add(new YbSearchHit(docId, score));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.yellowbrick.springai.vectorstore;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * One row per source in {@code <table>_ingest_checkpoint}, recording which version of the source an
+ * {@link YbIngestionJob} is loading and how many of its chunks are written. The row is advanced
+ * after every committed batch and marked completed once the sync has finished, so a restart can
+ * tell a finished source from one whose load was interrupted.
+ */
+final class YbIngestCheckpoints {
+
+    record Checkpoint(String version, int totalDocuments, int writtenDocuments, boolean completed) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    final String tableName;
+
+    YbIngestCheckpoints(JdbcTemplate jdbcTemplate, String tableName) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tableName = tableName;
+    }
+
+    void createSchema(YellowBrickVectorStore.SqlDialect dialect) {
+        jdbcTemplate.execute(YbDdl.render(String.format(
+                " CREATE TABLE IF NOT EXISTS %s (\n" +
+                        " source VARCHAR(1024) NOT NULL,\n" +
+                        " source_version VARCHAR(256) NOT NULL,\n" +
+                        " total_documents INTEGER NOT NULL,\n" +
+                        " written_documents INTEGER NOT NULL,\n" +
+                        " completed BOOLEAN NOT NULL,\n" +
+                        " updated_at TIMESTAMP NOT NULL)\n" +
+                        " DISTRIBUTE REPLICATE", tableName), dialect));
+    }
+
+    Optional<Checkpoint> find(String source) {
+        List<Checkpoint> checkpoints = jdbcTemplate.query(
+                "SELECT source_version, total_documents, written_documents, completed FROM " + tableName + " WHERE source = ?",
+                (rs, rowNum) -> new Checkpoint(rs.getString(1), rs.getInt(2), rs.getInt(3), rs.getBoolean(4)), source);
+        return checkpoints.isEmpty() ? Optional.empty() : Optional.of(checkpoints.get(0));
+    }
+
+    /**
+     * Replace the checkpoint of {@code source} with an open one for {@code version}.
+     */
+    void begin(String source, String version, int totalDocuments, int writtenDocuments) {
+        jdbcTemplate.update("DELETE FROM " + tableName + " WHERE source = ?", source);
+        jdbcTemplate.update("INSERT INTO " + tableName
+                        + " (source, source_version, total_documents, written_documents, completed, updated_at)"
+                        + " VALUES (?, ?, ?, ?, FALSE, CURRENT_TIMESTAMP)",
+                source, version, totalDocuments, writtenDocuments);
+    }
+
+    void written(String source, int documents) {
+        jdbcTemplate.update("UPDATE " + tableName + " SET written_documents = written_documents + ?, updated_at = CURRENT_TIMESTAMP"
+                + " WHERE source = ?", documents, source);
+    }
+
+    void complete(String source) {
+        jdbcTemplate.update("UPDATE " + tableName + " SET completed = TRUE, updated_at = CURRENT_TIMESTAMP WHERE source = ?", source);
+    }
+}
@@ -0,0 +1,208 @@
+package com.yellowbrick.springai.vectorstore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Overlaps embedding and writing during ingest. Up to {@code embeddingConcurrency} embedding
+ * batches are sent to the model at once; each embedded batch is split into write batches that go
+ * through a queue of {@code queueCapacity} to {@code writerConcurrency} JDBC writers. Embedding
+ * threads block on a full queue, so a slow database throttles the model calls instead of
+ * buffering the whole input.
+ * <p>
+ * Every embedding call and every write is retried up to {@code maxAttempts} times with exponential
+ * backoff. Writes run in their own transaction, so a retried write never sees a partial batch.
+ * After the first batch fails for good no new work is started and the failure is rethrown.
+ * <p>
+ * The embedding and writer threads belong to the pipeline and are reused by every run; they time
+ * out when idle and are stopped by {@link #close()}. Runs take turns, since a run's writers hold
+ * their threads until the run's last batch is written.
+ */
+final class YbIngestPipeline implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(YbIngestPipeline.class);
+    private static final List<Document> END = new ArrayList<>();
+
+    final int embeddingConcurrency;
+    final int writerConcurrency;
+    final int queueCapacity;
+    final int maxAttempts;
+    final Duration retryBackoff;
+    private final ThreadPoolExecutor embedders;
+    private final ThreadPoolExecutor writers;
+    private final ReentrantLock running = new ReentrantLock();
+
+    YbIngestPipeline(int embeddingConcurrency, int writerConcurrency, int queueCapacity, int maxAttempts, Duration retryBackoff) {
+        if (embeddingConcurrency < 1 || writerConcurrency < 1 || queueCapacity < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("Ingest concurrency, queue capacity and attempts must be at least 1");
+        }
+        this.embeddingConcurrency = embeddingConcurrency;
+        this.writerConcurrency = writerConcurrency;
+        this.queueCapacity = queueCapacity;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.embedders = pool(embeddingConcurrency, "yb-embed-");
+        this.writers = pool(writerConcurrency, "yb-write-");
+    }
+
+    /**
+     * @param embeddingBatches batches as produced by the {@code BatchingStrategy}
+     * @param embed            embeds a batch in place
+     * @param split            splits an embedded batch into write batches
+     * @param write            writes one batch in its own transaction
+     */
+    void run(List<List<Document>> embeddingBatches, Consumer<List<Document>> embed,
+             Function<List<Document>, List<List<Document>>> split, Consumer<List<Document>> write) {
+        BlockingQueue<List<Document>> queue = new ArrayBlockingQueue<>(this.queueCapacity);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        this.running.lock();
+        try {
+            List<Future<?>> writing = new ArrayList<>();
+            for (int i = 0; i < this.writerConcurrency; i++) {
+                writing.add(this.writers.submit(() -> {
+                    List<Document> batch;
+                    while ((batch = take(queue)) != END) {
+                        // after a failure keep draining so blocked embedders can finish
+                        if (failure.get() == null) {
+                            runWithRetry("write", batch, write, failure);
+                        }
+                    }
+                }));
+            }
+            List<Future<?>> embedding = new ArrayList<>();
+            for (List<Document> batch : embeddingBatches) {
+                embedding.add(this.embedders.submit(() -> {
+                    if (failure.get() != null || !runWithRetry("embed", batch, embed, failure)) {
+                        return;
+                    }
+                    for (List<Document> writeBatch : split.apply(batch)) {
+                        put(queue, writeBatch);
+                    }
+                }));
+            }
+            try {
+                awaitAll(embedding, failure);
+                for (int i = 0; i < this.writerConcurrency; i++) {
+                    queue.put(END);
+                }
+                awaitAll(writing, failure);
+            } catch (InterruptedException e) {
+                // stop this run's tasks, so the threads are free for the next run
+                embedding.forEach(future -> future.cancel(true));
+                writing.forEach(future -> future.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while ingesting documents", e);
+            }
+        } finally {
+            this.running.unlock();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    /**
+     * Stop the pipeline's threads, interrupting a run in progress.
+     */
+    @Override
+    public void close() {
+        this.embedders.shutdownNow();
+        this.writers.shutdownNow();
+    }
+
+    /**
+     * @return false if the batch failed on every attempt; the failure is recorded
+     */
+    private boolean runWithRetry(String stage, List<Document> batch, Consumer<List<Document>> action, AtomicReference<RuntimeException> failure) {
+        long backoff = this.retryBackoff.toMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                action.accept(batch);
+                return true;
+            } catch (RuntimeException e) {
+                if (attempt >= this.maxAttempts) {
+                    logger.error("Giving up on {} of a batch of {} documents after {} attempts", stage, batch.size(), attempt, e);
+                    failure.compareAndSet(null, e);
+                    return false;
+                }
+                logger.warn("Failed to {} a batch of {} documents (attempt {} of {}), retrying in {} ms", stage, batch.size(), attempt, this.maxAttempts, backoff, e);
+                sleep(backoff);
+                backoff *= 2;
+            }
+        }
+    }
+
+    private static List<Document> take(BlockingQueue<List<Document>> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a batch to write", e);
+        }
+    }
+
+    private static void put(BlockingQueue<List<Document>> queue, List<Document> batch) {
+        try {
+            queue.put(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing a batch to write", e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while backing off", e);
+        }
+    }
+
+    /**
+     * Wait for every task, recording the first that failed; returning early would leave tasks
+     * running into the next run.
+     */
+    private static void awaitAll(List<Future<?>> futures, AtomicReference<RuntimeException> failure) throws InterruptedException {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                failure.compareAndSet(null, e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause()));
+            }
+        }
+    }
+
+    private static ThreadPoolExecutor pool(int threads, String prefix) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threads(prefix));
+        // an idle store holds no threads
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static ThreadFactory threads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,187 @@
+package com.yellowbrick.springai.vectorstore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Loads sources into a {@link YellowBrickVectorStore} in the background, one source at a time, so an
+ * application can serve requests while its index fills.
+ * <p>
+ * A load reads the source, plans a {@link YellowBrickVectorStore#sync(String, String, List) sync}
+ * against the stored chunks and adds the new chunks in batches of {@code batchSize}, advancing a
+ * checkpoint after each committed batch. Because planning skips every chunk already stored under
+ * its hash, a load that crashed or was stopped resumes with the first batch it had not written,
+ * without embedding anything twice. A source whose checkpoint is completed at the requested version
+ * is not read at all.
+ */
+public class YbIngestionJob implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(YbIngestionJob.class);
+
+    public enum State {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * Progress of one source, counted in chunks. {@code skipped} chunks were already stored by an
+     * earlier load and count as written; {@code embedded} and the rest of {@code written} are this
+     * load's work.
+     */
+    public record Progress(String source, String version, State state, int read, int total, int skipped,
+                           int embedded, int written, String error) {
+    }
+
+    private final YellowBrickVectorStore vectorStore;
+    private final YbIngestCheckpoints checkpoints;
+    private final int batchSize;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "yb-ingest");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, Tracker> sources = new ConcurrentHashMap<>();
+    private volatile Tracker current;
+
+    /**
+     * @param batchSize chunks added per checkpoint; a restart redoes at most one batch of model calls
+     */
+    public YbIngestionJob(YellowBrickVectorStore vectorStore, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Ingestion batch size must be at least 1");
+        }
+        this.vectorStore = vectorStore;
+        this.checkpoints = vectorStore.getIngestCheckpoints();
+        this.batchSize = batchSize;
+        vectorStore.addIngestListener(new YellowBrickVectorStore.IngestListener() {
+            @Override
+            public void onEmbedded(int documents) {
+                Tracker tracker = current;
+                if (tracker != null) {
+                    tracker.embedded.addAndGet(documents);
+                }
+            }
+
+            @Override
+            public void onWritten(int documents) {
+                Tracker tracker = current;
+                if (tracker != null) {
+                    tracker.written.addAndGet(documents);
+                }
+            }
+        });
+    }
+
+    /**
+     * Queue a load of {@code source} at {@code version}. The reader runs on the ingestion thread and
+     * is only called when the source is not already loaded at that version.
+     *
+     * @return completes with the final progress, or exceptionally if the load failed
+     */
+    public CompletableFuture<Progress> start(String source, String version, Supplier<List<Document>> reader) {
+        Tracker tracker = new Tracker(source, version);
+        this.sources.put(source, tracker);
+        return CompletableFuture.supplyAsync(() -> run(tracker, reader), this.executor);
+    }
+
+    private Progress run(Tracker tracker, Supplier<List<Document>> reader) {
+        String source = tracker.source;
+        String version = tracker.version;
+        tracker.state = State.RUNNING;
+        this.current = tracker;
+        try {
+            Optional<YbIngestCheckpoints.Checkpoint> checkpoint = this.checkpoints.find(source);
+            if (checkpoint.filter(c -> c.completed() && c.version().equals(version)).isPresent()) {
+                int total = checkpoint.get().totalDocuments();
+                tracker.total = total;
+                tracker.skipped = total;
+                tracker.written.set(total);
+                tracker.state = State.COMPLETED;
+                logger.info("{} is already loaded at version {}", source, version);
+                return tracker.progress();
+            }
+
+            List<Document> documents = reader.get();
+            tracker.read = documents.size();
+            YellowBrickVectorStore.SyncPlan plan = this.vectorStore.planSync(source, version, documents);
+            tracker.total = plan.added().size() + plan.unchanged();
+            tracker.skipped = plan.unchanged();
+            tracker.written.set(plan.unchanged());
+            if (checkpoint.filter(c -> !c.completed() && c.version().equals(version)).isPresent()) {
+                logger.info("resuming load of {} at version {}: {} of {} chunks already written", source, version, plan.unchanged(), tracker.total);
+            }
+            this.checkpoints.begin(source, version, tracker.total, plan.unchanged());
+
+            List<Document> added = plan.added();
+            for (int i = 0; i < added.size(); i += this.batchSize) {
+                List<Document> batch = added.subList(i, Math.min(i + this.batchSize, added.size()));
+                this.vectorStore.add(batch);
+                this.checkpoints.written(source, batch.size());
+                logger.debug("loaded {} of {} chunks of {}", tracker.written.get(), tracker.total, source);
+            }
+            YellowBrickVectorStore.SyncResult result = this.vectorStore.finishSync(plan);
+            this.checkpoints.complete(source);
+            tracker.state = State.COMPLETED;
+            logger.info("loaded {} at version {}: {}", source, version, result);
+            return tracker.progress();
+        } catch (RuntimeException e) {
+            tracker.error = e.getMessage();
+            tracker.state = State.FAILED;
+            logger.error("Failed to load {} at version {}; the next start resumes from the last written batch", source, version, e);
+            throw e;
+        } finally {
+            this.current = null;
+        }
+    }
+
+    public Optional<Progress> getProgress(String source) {
+        return Optional.ofNullable(this.sources.get(source)).map(Tracker::progress);
+    }
+
+    public List<Progress> getProgress() {
+        return this.sources.values().stream().map(Tracker::progress).toList();
+    }
+
+    /**
+     * @return true once every source started so far has completed
+     */
+    public boolean isReady() {
+        return this.sources.values().stream().allMatch(tracker -> tracker.state == State.COMPLETED);
+    }
+
+    @Override
+    public void destroy() {
+        this.executor.shutdownNow();
+    }
+
+    private static final class Tracker {
+        final String source;
+        final String version;
+        final AtomicInteger embedded = new AtomicInteger();
+        final AtomicInteger written = new AtomicInteger();
+        volatile State state = State.PENDING;
+        volatile int read;
+        volatile int total;
+        volatile int skipped;
+        volatile String error;
+
+        Tracker(String source, String version) {
+            this.source = source;
+            this.version = version;
+        }
+
+        Progress progress() {
+            return new Progress(source, version, state, read, total, skipped, embedded.get(), written.get(), error);
+        }
+    }
+}
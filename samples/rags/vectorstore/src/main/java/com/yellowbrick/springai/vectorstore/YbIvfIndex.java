@@ -0,0 +1,156 @@
+package com.yellowbrick.springai.vectorstore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Inverted-file partitioning of the embeddings table. Every document carries the {@code cluster_id}
+ * of its nearest centroid; a search only scores the documents in the {@code nprobe} clusters
+ * nearest to the query. Centroids live in {@code <table>_centroids} and are mirrored in memory.
+ */
+final class YbIvfIndex {
+    private static final Logger logger = LoggerFactory.getLogger(YbIvfIndex.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String tableName;
+    private final String centroidTableName;
+    private final YbEmbeddingLayout layout;
+    final int nlist;
+    final int nprobe;
+    private volatile float[][] centroids;
+
+    /**
+     * @param tableName the embeddings table; centroids are stored next to it in the same layout
+     */
+    YbIvfIndex(JdbcTemplate jdbcTemplate, String tableName, YbEmbeddingLayout layout, int nlist, int nprobe) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tableName = tableName;
+        this.centroidTableName = tableName + "_centroids";
+        this.layout = layout;
+        this.nlist = nlist;
+        this.nprobe = nprobe;
+    }
+
+    void createSchema(YellowBrickVectorStore.SqlDialect dialect) {
+        jdbcTemplate.execute(YbDdl.render(String.format(
+                " CREATE TABLE IF NOT EXISTS %s (\n" +
+                        " cluster_id INTEGER NOT NULL,\n" +
+                        " %s)\n" +
+                        " DISTRIBUTE REPLICATE", centroidTableName, layout.columnDefinitions("FLOAT NOT NULL")), dialect));
+    }
+
+    String getCentroidTableName() {
+        return centroidTableName;
+    }
+
+    /**
+     * Load the centroids of a previous clustering run, if there is one.
+     */
+    void load() {
+        float[][] loaded = new float[nlist][];
+        int[] count = {0};
+        YbStoredEmbeddings.forEachCluster(jdbcTemplate, centroidTableName, layout, (clusterId, centroid) -> {
+            if (clusterId < loaded.length) {
+                loaded[clusterId] = centroid;
+                count[0]++;
+            }
+        });
+        this.centroids = count[0] == 0 ? null : Arrays.copyOf(loaded, count[0]);
+        logger.info("loaded {} IVF centroids for table: {}", count[0], tableName);
+    }
+
+    boolean isTrained() {
+        return centroids != null;
+    }
+
+    /**
+     * @return the nearest cluster per vector, or null if no clustering has been run yet
+     */
+    int[] assign(float[][] vectors) {
+        float[][] current = centroids;
+        if (current == null) {
+            return null;
+        }
+        int[] clusterIds = new int[vectors.length];
+        for (int i = 0; i < vectors.length; i++) {
+            clusterIds[i] = KMeans.nearest(current, vectors[i]);
+        }
+        return clusterIds;
+    }
+
+    /**
+     * A predicate on {@code v2.cluster_id} selecting the clusters to probe for these queries.
+     * Documents added before the first clustering run have no cluster and are always scanned.
+     *
+     * @return the predicate, or null if there are no centroids yet
+     */
+    String probePredicate(List<float[]> queryEmbeddings) {
+        float[][] current = centroids;
+        if (current == null) {
+            return null;
+        }
+        TreeSet<Integer> probes = new TreeSet<>();
+        for (float[] query : queryEmbeddings) {
+            for (int clusterId : KMeans.nearest(current, query, nprobe)) {
+                probes.add(clusterId);
+            }
+        }
+        StringBuilder predicate = new StringBuilder("(v2.cluster_id IN (");
+        int i = 0;
+        for (int clusterId : probes) {
+            predicate.append(i++ == 0 ? "" : ", ").append(clusterId);
+        }
+        return predicate.append(") OR v2.cluster_id IS NULL)").toString();
+    }
+
+    /**
+     * Replace the stored centroids and reassign every stored document to its nearest one.
+     * Must run inside a transaction; call {@link #use(float[][])} once it has committed.
+     */
+    void store(float[][] newCentroids) {
+        jdbcTemplate.update("DELETE FROM " + centroidTableName);
+        int blocks = layout.blocks(newCentroids[0].length);
+        jdbcTemplate.batchUpdate("INSERT INTO " + centroidTableName + " (cluster_id, " + layout.columns() + ") VALUES (?, ?" + layout.valuePlaceholders() + ")",
+                new BatchPreparedStatementSetter() {
+
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        StatementCreatorUtils.setParameterValue(ps, 1, Integer.MIN_VALUE, i / blocks);
+                        StatementCreatorUtils.setParameterValue(ps, 2, Integer.MIN_VALUE, i % blocks);
+                        for (int column = 0; column < layout.width; column++) {
+                            StatementCreatorUtils.setParameterValue(ps, 3 + column, Integer.MIN_VALUE, layout.value(newCentroids[i / blocks], i % blocks, column));
+                        }
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return newCentroids.length * blocks;
+                    }
+                });
+        // centroids are unit length, so the largest dot product is the highest cosine whatever the document norm
+        int updated = jdbcTemplate.update(String.format(
+                "UPDATE %s SET cluster_id = a.cluster_id FROM" +
+                        " (SELECT doc_id, cluster_id FROM" +
+                        "   (SELECT doc_id, cluster_id, ROW_NUMBER() OVER (PARTITION BY doc_id ORDER BY score DESC) AS rank FROM" +
+                        "     (SELECT v.doc_id, c.cluster_id, SUM(" + layout.dot("c", "v") + ") AS score" +
+                        "      FROM %s v INNER JOIN %s c ON v." + layout.blockColumn + " = c." + layout.blockColumn +
+                        "      GROUP BY v.doc_id, c.cluster_id) s) r" +
+                        "  WHERE rank = 1) a" +
+                        " WHERE %s.doc_id = a.doc_id",
+                tableName, tableName, centroidTableName, tableName));
+        logger.info("assigned {} embedding rows of {} to {} clusters", updated, tableName, newCentroids.length);
+    }
+
+    void use(float[][] newCentroids) {
+        this.centroids = newCentroids;
+    }
+}
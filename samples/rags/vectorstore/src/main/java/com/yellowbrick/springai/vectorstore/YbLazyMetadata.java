@@ -0,0 +1,101 @@
+package com.yellowbrick.springai.vectorstore;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Document metadata that keeps the stored JSON and decodes it on first access, so search results
+ * whose metadata is never read cost a string instead of a map. Values the store adds to every hit,
+ * such as the score, are held aside and merged in when the JSON is decoded. Decoding happens once,
+ * under the map's lock; after that the map behaves like a {@link LinkedHashMap}.
+ */
+final class YbLazyMetadata extends AbstractMap<String, Object> {
+    private final ObjectReader reader;
+    private String json;
+    private Map<String, Object> pending = new LinkedHashMap<>(4);
+    private volatile Map<String, Object> decoded;
+
+    /**
+     * @param reader a thread-safe reader for {@code Map<String, Object>}
+     */
+    YbLazyMetadata(ObjectReader reader, String json) {
+        this.reader = reader;
+        this.json = json;
+    }
+
+    /**
+     * Add an entry without decoding the JSON; it takes precedence over a stored entry with the same key.
+     */
+    synchronized void putWithoutDecoding(String key, Object value) {
+        (this.decoded != null ? this.decoded : this.pending).put(key, value);
+    }
+
+    /**
+     * An independent copy that has not been decoded yet, whether or not this one has.
+     */
+    synchronized YbLazyMetadata copy() {
+        YbLazyMetadata copy = new YbLazyMetadata(this.reader, this.json);
+        copy.pending.putAll(this.decoded != null ? this.decoded : this.pending);
+        return copy;
+    }
+
+    private Map<String, Object> decoded() {
+        Map<String, Object> current = this.decoded;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (this.decoded == null) {
+                Map<String, Object> map = new LinkedHashMap<>();
+                try {
+                    Map<String, Object> stored = this.json == null ? null : this.reader.readValue(this.json);
+                    if (stored != null) {
+                        map.putAll(stored);
+                    }
+                } catch (JsonProcessingException e) {
+                    throw new IllegalStateException("Stored metadata is not a JSON object: " + this.json, e);
+                }
+                map.putAll(this.pending);
+                this.json = null;
+                this.pending = null;
+                this.decoded = map;
+            }
+            return this.decoded;
+        }
+    }
+
+    @Override
+    public Object get(Object key) {
+        return decoded().get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return decoded().containsKey(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        return decoded().put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return decoded().remove(key);
+    }
+
+    @Override
+    public int size() {
+        return decoded().size();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return decoded().entrySet();
+    }
+}
@@ -0,0 +1,94 @@
+package com.yellowbrick.springai.vectorstore;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Metadata keys that are copied out of the JSON metadata into typed columns of the content table
+ * at ingest, so filter expressions on them can be evaluated in SQL.
+ */
+final class YbPromotedMetadata {
+    static final String COLUMN_PREFIX = "meta_";
+    private static final Pattern KEY = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+    private static final Pattern TYPE = Pattern.compile("[A-Za-z][A-Za-z0-9_ ]*(\\(\\s*\\d+(\\s*,\\s*\\d+)?\\s*\\))?");
+
+    private final Map<String, String> types;
+
+    YbPromotedMetadata(Map<String, String> types) {
+        Map<String, String> checked = new LinkedHashMap<>();
+        types.forEach((key, type) -> {
+            if (!KEY.matcher(key).matches()) {
+                throw new IllegalArgumentException("Promoted metadata key must be a plain identifier: " + key);
+            }
+            if (!TYPE.matcher(type.trim()).matches()) {
+                throw new IllegalArgumentException("Unsupported column type for promoted metadata key " + key + ": " + type);
+            }
+            checked.put(key, type.trim());
+        });
+        this.types = Collections.unmodifiableMap(checked);
+    }
+
+    boolean isEmpty() {
+        return types.isEmpty();
+    }
+
+    List<String> keys() {
+        return new ArrayList<>(types.keySet());
+    }
+
+    String type(String key) {
+        return types.get(key);
+    }
+
+    boolean isPromoted(String key) {
+        return types.containsKey(key);
+    }
+
+    static String column(String key) {
+        return COLUMN_PREFIX + key.toLowerCase();
+    }
+
+    /**
+     * @return {@code ", meta_a, meta_b"} or an empty string, ready to append to a column list
+     */
+    String columnList() {
+        StringBuilder columns = new StringBuilder();
+        types.keySet().forEach(key -> columns.append(", ").append(column(key)));
+        return columns.toString();
+    }
+
+    /**
+     * @return {@code "meta_a VARCHAR(256),\n"} style column definitions for CREATE TABLE
+     */
+    String columnDefinitions() {
+        StringBuilder columns = new StringBuilder();
+        types.forEach((key, type) -> columns.append("                ").append(column(key)).append(' ').append(type).append(",\n"));
+        return columns.toString();
+    }
+
+    /**
+     * The promoted values of one document in {@link #keys()} order; missing keys are null. Dates
+     * become UTC date-times, so a stored timestamp doesn't depend on the JVM's time zone.
+     */
+    Object[] values(Map<String, Object> metadata) {
+        Object[] values = new Object[types.size()];
+        int i = 0;
+        for (String key : types.keySet()) {
+            Object value = metadata.get(key);
+            values[i++] = value instanceof Date date ? utc(date) : value;
+        }
+        return values;
+    }
+
+    static LocalDateTime utc(Date date) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(date.getTime()), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,99 @@
+package com.yellowbrick.springai.vectorstore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A query whose rows are mapped as the stream is consumed, through a forward-only, read-only
+ * cursor that fetches {@code fetchSize} rows per round trip. The PostgreSQL driver, which also
+ * talks to Yellowbrick, only uses a cursor outside auto-commit, so a connection in auto-commit is
+ * switched out of it for the life of the stream; a connection bound to a Spring transaction is
+ * used as it is. Closing the stream closes the cursor and releases the connection.
+ */
+final class YbResultStream {
+    private static final Logger logger = LoggerFactory.getLogger(YbResultStream.class);
+    private static final String TASK = "similaritySearchStream";
+
+    private YbResultStream() {
+    }
+
+    static <T> Stream<T> open(JdbcTemplate jdbcTemplate, String sql, Object[] args, int fetchSize, RowMapper<T> rowMapper) {
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        Connection con = DataSourceUtils.getConnection(dataSource);
+        boolean autoCommit = false;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            autoCommit = con.getAutoCommit();
+            if (autoCommit) {
+                con.setAutoCommit(false);
+            }
+            ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            new ArgumentPreparedStatementSetter(args).setValues(ps);
+            rs = ps.executeQuery();
+        } catch (SQLException e) {
+            close(dataSource, con, autoCommit, ps, rs);
+            throw translate(jdbcTemplate, sql, e);
+        }
+        ResultSet resultSet = rs;
+        PreparedStatement statement = ps;
+        boolean restoreAutoCommit = autoCommit;
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private int rowNum;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!resultSet.next()) {
+                        return false;
+                    }
+                    action.accept(rowMapper.mapRow(resultSet, this.rowNum++));
+                    return true;
+                } catch (SQLException e) {
+                    throw translate(jdbcTemplate, sql, e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false)
+                .onClose(() -> close(dataSource, con, restoreAutoCommit, statement, resultSet));
+    }
+
+    private static void close(DataSource dataSource, Connection con, boolean restoreAutoCommit, PreparedStatement ps, ResultSet rs) {
+        JdbcUtils.closeResultSet(rs);
+        JdbcUtils.closeStatement(ps);
+        if (restoreAutoCommit) {
+            try {
+                // the cursor only read, so ending the transaction either way is fine
+                con.rollback();
+                con.setAutoCommit(true);
+            } catch (SQLException e) {
+                logger.warn("Could not restore auto-commit after streaming a search: {}", e.getMessage());
+            }
+        }
+        DataSourceUtils.releaseConnection(con, dataSource);
+    }
+
+    private static DataAccessException translate(JdbcTemplate jdbcTemplate, String sql, SQLException e) {
+        DataAccessException translated = jdbcTemplate.getExceptionTranslator().translate(TASK, sql, e);
+        return translated != null ? translated : new UncategorizedSQLException(TASK, sql, e);
+    }
+}
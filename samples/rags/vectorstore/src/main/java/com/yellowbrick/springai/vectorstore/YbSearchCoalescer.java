@@ -0,0 +1,179 @@
+package com.yellowbrick.springai.vectorstore;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Single-flight execution of similarity searches. The first search for a key runs; searches for the
+ * same key that arrive while it runs wait for it and receive its result, or its exception, instead
+ * of embedding the query and querying the database again. With a non-zero {@code window} a finished
+ * result keeps being handed out for that long, which also collapses bursts that miss the flight by
+ * a few milliseconds; {@link #clear()} drops all results when the store's content changes.
+ * Hybrid searches and batches are keyed apart from plain searches for the same requests.
+ * <p>
+ * The shared result is never handed out itself: the leader and every follower get their own copies
+ * of the documents, metadata and embeddings, so a caller that changes its results cannot change
+ * another's. Lazily decoded metadata is copied without decoding it.
+ * <p>
+ * Every search is reported as a {@value #OBSERVATION_NAME} observation tagged with
+ * {@code coalescing.result=leader|follower}; the follower count is the number of collapsed requests.
+ */
+final class YbSearchCoalescer {
+    static final String OBSERVATION_NAME = "yb.vectorstore.search.coalescing";
+
+    private static final class Flight {
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        volatile long completedAtNanos;
+    }
+
+    /**
+     * A search of {@code key} run another way, such as a hybrid search with given options.
+     */
+    private record VariantKey(Object key, Object variant) {
+    }
+
+    private record BatchKey(List<Object> keys) {
+    }
+
+    private final Map<Object, Flight> flights = new ConcurrentHashMap<>();
+    private final long windowNanos;
+    private final Function<SearchRequest, Object> key;
+    private final ObservationRegistry observationRegistry;
+    private final AtomicLong collapsed = new AtomicLong();
+
+    /**
+     * @param window how long a finished result is shared; zero shares it only with searches that
+     *               arrived while it was running
+     * @param key    searches with equal keys share one execution
+     */
+    YbSearchCoalescer(Duration window, Function<SearchRequest, Object> key, ObservationRegistry observationRegistry) {
+        this.windowNanos = window == null ? 0 : window.toNanos();
+        this.key = key;
+        this.observationRegistry = observationRegistry;
+    }
+
+    /**
+     * The default key: query text, topK, similarity threshold and filter expression. With
+     * {@code normalizeQuery} the text is compared after Unicode and whitespace normalization, the
+     * same way the {@link QueryEmbeddingCache} compares it.
+     */
+    static Function<SearchRequest, Object> defaultKey(boolean normalizeQuery) {
+        return request -> Arrays.asList(
+                normalizeQuery ? QueryEmbeddingCache.key("", request.getQuery()) : request.getQuery(),
+                request.getTopK(), request.getSimilarityThreshold(), request.getFilterExpression());
+    }
+
+    List<Document> search(SearchRequest request, Function<SearchRequest, List<Document>> search) {
+        return run(this.key.apply(request), () -> search.apply(request), YbSearchCoalescer::copies);
+    }
+
+    /**
+     * @param variant what sets this search apart from a plain search of {@code request}
+     */
+    List<Document> search(SearchRequest request, Object variant, Function<SearchRequest, List<Document>> search) {
+        return run(new VariantKey(this.key.apply(request), variant), () -> search.apply(request), YbSearchCoalescer::copies);
+    }
+
+    /**
+     * A batch is shared only with batches of the same requests in the same order.
+     */
+    List<List<Document>> searchAll(List<SearchRequest> requests, Function<List<SearchRequest>, List<List<Document>>> search) {
+        BatchKey batchKey = new BatchKey(requests.stream().map(this.key).toList());
+        return run(batchKey, () -> search.apply(requests), results -> results.stream().map(YbSearchCoalescer::copies).toList());
+    }
+
+    private <T> T run(Object searchKey, Supplier<T> search, UnaryOperator<T> copy) {
+        Flight flight = new Flight();
+        Observation observation = Observation.createNotStarted(OBSERVATION_NAME, this.observationRegistry).start();
+        try {
+            Flight existing;
+            while ((existing = this.flights.putIfAbsent(searchKey, flight)) != null) {
+                if (!expired(existing)) {
+                    this.collapsed.incrementAndGet();
+                    observation.lowCardinalityKeyValue("coalescing.result", "follower");
+                    return copy.apply(join(existing));
+                }
+                this.flights.remove(searchKey, existing);
+            }
+            observation.lowCardinalityKeyValue("coalescing.result", "leader");
+            return copy.apply(lead(searchKey, flight, search));
+        } finally {
+            observation.stop();
+        }
+    }
+
+    private <T> T lead(Object searchKey, Flight flight, Supplier<T> search) {
+        try {
+            T result = search.get();
+            flight.completedAtNanos = System.nanoTime();
+            flight.result.complete(result);
+            if (this.windowNanos == 0) {
+                this.flights.remove(searchKey, flight);
+            } else {
+                this.flights.values().removeIf(this::expired);
+            }
+            return result;
+        } catch (RuntimeException | Error e) {
+            // a failure is handed to the current waiters but never shared past them
+            this.flights.remove(searchKey, flight);
+            flight.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private boolean expired(Flight flight) {
+        return flight.result.isDone() && (flight.result.isCompletedExceptionally()
+                || System.nanoTime() - flight.completedAtNanos > this.windowNanos);
+    }
+
+    private static List<Document> copies(List<Document> documents) {
+        List<Document> copies = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            Map<String, Object> metadata = document.getMetadata() instanceof YbLazyMetadata lazy
+                    ? lazy.copy() : new LinkedHashMap<>(document.getMetadata());
+            Document copy = new Document(document.getId(), document.getContent(), metadata);
+            if (document.getEmbedding() != null) {
+                copy.setEmbedding(document.getEmbedding().clone());
+            }
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T join(Flight flight) {
+        try {
+            return (T) flight.result.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        }
+    }
+
+    /**
+     * Forget every result, including those still running, so later searches see the new content;
+     * searches already waiting on a flight still receive its result.
+     */
+    void clear() {
+        this.flights.clear();
+    }
+
+    long getCollapsedCount() {
+        return this.collapsed.get();
+    }
+}
@@ -0,0 +1,8 @@
+package com.yellowbrick.springai.vectorstore;
+
+/**
+ * A document found by an in-memory index, with its cosine similarity to the query; text and
+ * metadata are read from the content table afterwards.
+ */
+record YbSearchHit(String docId, double score) {
+}
@@ -0,0 +1,89 @@
+package com.yellowbrick.springai.vectorstore;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Per-phase meters of one store, all tagged with {@code table}:
+ * <ul>
+ *     <li>{@value #SEARCH_PHASE} timer, tagged {@code search.mode} and {@code phase}: embedding,
+ *     temp_table_ddl, query_vector_insert, scoring, row_mapping, cleanup; hot_mirror and hnsw searches
+ *     time embedding, scoring and fetch</li>
+ *     <li>{@value #SEARCH_CANDIDATES} and {@value #SEARCH_RESULTS} summaries, tagged {@code search.mode}:
+ *     documents scored at full precision and documents returned per search</li>
+ *     <li>{@value #INGEST_PHASE} timer, tagged {@code ingest.mode} and {@code phase}: embedding,
+ *     delete, content, embeddings, terms; content and embeddings carry the mode actually used, which
+ *     is batch_insert when COPY fell back</li>
+ *     <li>{@value #INGEST_BATCH_SIZE} summary, documents per written batch, and {@value #INGEST_ROWS}
+ *     counter, tagged {@code target}: rows written to the content, embeddings and terms tables</li>
+ * </ul>
+ */
+final class YbStoreMetrics {
+    static final String SEARCH_PHASE = "yb.vectorstore.search.phase";
+    static final String SEARCH_CANDIDATES = "yb.vectorstore.search.candidates";
+    static final String SEARCH_RESULTS = "yb.vectorstore.search.results";
+    static final String INGEST_PHASE = "yb.vectorstore.ingest.phase";
+    static final String INGEST_BATCH_SIZE = "yb.vectorstore.ingest.batch.size";
+    static final String INGEST_ROWS = "yb.vectorstore.ingest.rows";
+
+    private final MeterRegistry registry;
+    private final String table;
+
+    YbStoreMetrics(MeterRegistry registry, String table) {
+        this.registry = registry;
+        this.table = table;
+    }
+
+    <T> T timeSearch(String mode, String phase, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            searchPhase(mode, phase, System.nanoTime() - start);
+        }
+    }
+
+    void searchPhase(String mode, String phase, long nanos) {
+        Timer.builder(SEARCH_PHASE).tags("table", this.table, "search.mode", mode, "phase", phase)
+                .register(this.registry).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void searchCandidates(String mode, long candidates) {
+        DistributionSummary.builder(SEARCH_CANDIDATES).baseUnit("documents").tags("table", this.table, "search.mode", mode)
+                .register(this.registry).record(candidates);
+    }
+
+    void searchResults(String mode, int results) {
+        DistributionSummary.builder(SEARCH_RESULTS).baseUnit("documents").tags("table", this.table, "search.mode", mode)
+                .register(this.registry).record(results);
+    }
+
+    <T> T timeIngest(String mode, String phase, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            ingestPhase(mode, phase, System.nanoTime() - start);
+        }
+    }
+
+    void ingestPhase(String mode, String phase, long nanos) {
+        Timer.builder(INGEST_PHASE).tags("table", this.table, "ingest.mode", mode, "phase", phase)
+                .register(this.registry).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void ingestBatch(int documents) {
+        DistributionSummary.builder(INGEST_BATCH_SIZE).baseUnit("documents").tags("table", this.table)
+                .register(this.registry).record(documents);
+    }
+
+    void rowsWritten(String target, long rows) {
+        Counter.builder(INGEST_ROWS).tags("table", this.table, "target", target)
+                .register(this.registry).increment(rows);
+    }
+}
@@ -0,0 +1,86 @@
+package com.yellowbrick.springai.vectorstore;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * Reassembles the block rows of an embeddings table into whole vectors. Vectors from a packed
+ * layout keep the zero padding of their last block.
+ */
+final class YbStoredEmbeddings {
+
+    private YbStoredEmbeddings() {
+    }
+
+    /**
+     * Stream every stored embedding whose document matches {@code docIdPredicate} to {@code consumer},
+     * one document at a time.
+     *
+     * @param docIdPredicate a SQL predicate on {@code doc_id}, for example {@code "doc_id IN (...)"},
+     *                       or null for all documents
+     */
+    static void forEach(JdbcTemplate jdbcTemplate, String tableName, YbEmbeddingLayout layout, String docIdPredicate, Object[] args,
+                        BiConsumer<String, float[]> consumer) {
+        String sql = "SELECT doc_id, " + layout.columns() + " FROM " + tableName
+                + (docIdPredicate == null ? "" : " WHERE " + docIdPredicate)
+                + " ORDER BY doc_id, " + layout.blockColumn;
+        Assembler assembler = new Assembler(layout.width, consumer);
+        jdbcTemplate.query(sql, assembler, args);
+        assembler.flush();
+    }
+
+    /**
+     * Same as {@link #forEach} for a table keyed by an integer {@code cluster_id}.
+     */
+    static void forEachCluster(JdbcTemplate jdbcTemplate, String tableName, YbEmbeddingLayout layout, BiConsumer<Integer, float[]> consumer) {
+        String sql = "SELECT CAST(cluster_id AS VARCHAR(16)), " + layout.columns() + " FROM " + tableName
+                + " ORDER BY cluster_id, " + layout.blockColumn;
+        Assembler assembler = new Assembler(layout.width, (id, vector) -> consumer.accept(Integer.valueOf(id), vector));
+        jdbcTemplate.query(sql, assembler);
+        assembler.flush();
+    }
+
+    private static final class Assembler implements RowCallbackHandler {
+        private final int width;
+        private final BiConsumer<String, float[]> consumer;
+        private String docId;
+        private float[] vector = new float[1024];
+        private int dimensions;
+
+        Assembler(int width, BiConsumer<String, float[]> consumer) {
+            this.width = width;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            String id = rs.getString(1);
+            if (!id.equals(docId)) {
+                flush();
+                docId = id;
+            }
+            int offset = rs.getInt(2) * width;
+            if (offset + width > vector.length) {
+                vector = Arrays.copyOf(vector, Math.max(vector.length * 2, offset + width));
+            }
+            for (int column = 0; column < width; column++) {
+                vector[offset + column] = rs.getFloat(3 + column);
+            }
+            dimensions = Math.max(dimensions, offset + width);
+        }
+
+        void flush() {
+            if (docId != null) {
+                consumer.accept(docId, Arrays.copyOf(vector, dimensions));
+                Arrays.fill(vector, 0, dimensions, 0f);
+                dimensions = 0;
+                docId = null;
+            }
+        }
+    }
+}
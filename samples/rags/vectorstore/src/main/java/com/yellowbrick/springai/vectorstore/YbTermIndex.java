@@ -0,0 +1,128 @@
+package com.yellowbrick.springai.vectorstore;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index over the text of the stored documents, for the lexical pass of hybrid search.
+ * {@code <table>_terms} holds one {@code (doc_id, term, tf, doc_length)} row per distinct term of a
+ * document; it is distributed like the embeddings so restricting the vector join to lexical
+ * candidates stays local.
+ * <p>
+ * Documents are scored with Okapi BM25. The corpus size and average document length it needs are
+ * read once and cached until the store's content changes.
+ */
+final class YbTermIndex {
+    static final int MAX_TERM_LENGTH = 64;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "has", "have", "i", "in", "is",
+            "it", "its", "of", "on", "or", "that", "the", "this", "to", "was", "were", "what", "when",
+            "where", "which", "who", "will", "with", "you", "your");
+
+    private record CorpusStats(long documents, double averageLength) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    final String tableName;
+    private volatile CorpusStats stats;
+
+    YbTermIndex(JdbcTemplate jdbcTemplate, String tableName) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tableName = tableName;
+    }
+
+    void createSchema(YellowBrickVectorStore.SqlDialect dialect) {
+        jdbcTemplate.execute(YbDdl.render(String.format(
+                " CREATE TABLE IF NOT EXISTS %s (\n" +
+                        " doc_id UUID NOT NULL,\n" +
+                        " term VARCHAR(%d) NOT NULL,\n" +
+                        " tf INTEGER NOT NULL,\n" +
+                        " doc_length INTEGER NOT NULL)\n" +
+                        " DISTRIBUTE ON (doc_id) SORT ON (term)", tableName, MAX_TERM_LENGTH), dialect));
+    }
+
+    /**
+     * Term frequencies of {@code text}: NFKC-normalized, lower-cased, split on anything that is not
+     * a letter or digit, without stop words. Identifiers such as policy numbers survive as their
+     * alphanumeric parts.
+     */
+    static Map<String, Integer> analyze(String text) {
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        if (text == null) {
+            return frequencies;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        for (String term : SEPARATORS.split(normalized)) {
+            if (!term.isEmpty() && term.length() <= MAX_TERM_LENGTH && !STOP_WORDS.contains(term)) {
+                frequencies.merge(term, 1, Integer::sum);
+            }
+        }
+        return frequencies;
+    }
+
+    static int length(Map<String, Integer> frequencies) {
+        int length = 0;
+        for (int tf : frequencies.values()) {
+            length += tf;
+        }
+        return length;
+    }
+
+    /**
+     * CTEs {@code qt}, {@code df} and {@code lex}, the last holding the {@code (doc_id, lexical_score)}
+     * of the {@code candidates} best BM25 matches for the query terms, and {@code lr} ranking them.
+     *
+     * @param docFilter predicate on {@code t.doc_id} restricting the candidates, or null
+     * @param args      receives the bound parameters, in order
+     */
+    String lexicalCandidates(Map<String, Integer> queryTerms, String docFilter, int candidates, List<Object> args) {
+        CorpusStats corpus = stats();
+        List<String> values = new ArrayList<>(queryTerms.size());
+        queryTerms.forEach((term, tf) -> {
+            values.add("(?, ?)");
+            args.add(term);
+            args.add(tf);
+        });
+        args.add(candidates);
+        double averageLength = Math.max(corpus.averageLength(), 1);
+        String idf = "LN(1 + (" + corpus.documents() + " - df.df + 0.5) / (df.df + 0.5))";
+        String tf = "(t.tf * " + (K1 + 1) + ") / (t.tf + " + K1 + " * (1 - " + B + " + " + B + " * t.doc_length / " + averageLength + "))";
+        return " qt (term, qtf) AS (VALUES " + String.join(", ", values) + ")," +
+                " df AS (SELECT t.term, COUNT(*) AS df FROM " + tableName + " t INNER JOIN qt ON t.term = qt.term GROUP BY t.term)," +
+                " lex AS (SELECT t.doc_id, SUM(qt.qtf * " + idf + " * " + tf + ") AS lexical_score" +
+                "        FROM " + tableName + " t" +
+                "        INNER JOIN qt ON t.term = qt.term" +
+                "        INNER JOIN df ON df.term = t.term" +
+                (docFilter != null ? "        WHERE " + docFilter : "") +
+                "        GROUP BY t.doc_id" +
+                "        ORDER BY lexical_score DESC LIMIT ?)," +
+                " lr AS (SELECT doc_id, ROW_NUMBER() OVER (ORDER BY lexical_score DESC) AS lexical_rank FROM lex)";
+    }
+
+    private CorpusStats stats() {
+        CorpusStats current = this.stats;
+        if (current == null) {
+            current = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*), COALESCE(AVG(doc_length), 0) FROM (SELECT doc_id, MAX(doc_length) AS doc_length FROM "
+                            + tableName + " GROUP BY doc_id) d",
+                    (rs, rowNum) -> new CorpusStats(rs.getLong(1), rs.getDouble(2)));
+            this.stats = current;
+        }
+        return current;
+    }
+
+    void invalidate() {
+        this.stats = null;
+    }
+}
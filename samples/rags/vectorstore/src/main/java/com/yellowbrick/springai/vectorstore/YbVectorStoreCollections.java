@@ -0,0 +1,231 @@
+package com.yellowbrick.springai.vectorstore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Named collections of documents, each in its own set of tables, so a tenant's searches, deletes
+ * and index maintenance only ever touch that tenant's rows. Collection {@code acme} of a store on
+ * {@code vector_store} lives in {@code vector_store__acme}, {@code vector_store__acme_content} and
+ * so on; the {@value #DEFAULT_COLLECTION} collection is the store's own tables. A collection's
+ * tables are created the first time it is used. Names are kept to letters and digits so that no
+ * collection's tables can be mistaken for another's {@code _content}, {@code _terms} or similar
+ * side tables.
+ * <p>
+ * As a {@link VectorStore}, documents go to the collection named by their
+ * {@value #COLLECTION_METADATA_KEY} metadata, and a search goes to the collection named by a
+ * {@code collection == '<name>'} term of its filter expression, alone or joined to the rest with
+ * AND; the term is dropped from the filter before the search runs. Documents and searches without
+ * one use the default collection.
+ */
+public class YbVectorStoreCollections implements VectorStore, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(YbVectorStoreCollections.class);
+
+    /**
+     * Metadata key and filter key naming a document's collection.
+     */
+    public static final String COLLECTION_METADATA_KEY = "collection";
+
+    public static final String DEFAULT_COLLECTION = "default";
+
+    private static final Pattern COLLECTION_NAME = Pattern.compile("[a-z][a-z0-9]{0,47}");
+
+    private final YellowBrickVectorStore defaultStore;
+    private final String tableName;
+    private final JdbcTemplate jdbcTemplate;
+    private final Function<String, YellowBrickVectorStore> storeFactory;
+    private final Map<String, YellowBrickVectorStore> collections = new ConcurrentHashMap<>();
+
+    /**
+     * @param defaultStore the store holding the default collection
+     * @param tableName    its table name, schema-qualified if it is
+     * @param storeFactory a configured, not yet initialized store for a collection's table name
+     */
+    public YbVectorStoreCollections(YellowBrickVectorStore defaultStore, String tableName, JdbcTemplate jdbcTemplate,
+                                    Function<String, YellowBrickVectorStore> storeFactory) {
+        this.defaultStore = defaultStore;
+        this.tableName = tableName;
+        this.jdbcTemplate = jdbcTemplate;
+        this.storeFactory = storeFactory;
+    }
+
+    /**
+     * The store of one collection, creating its tables on first use.
+     *
+     * @param name up to 48 lower case letters and digits, starting with a letter
+     */
+    public YellowBrickVectorStore collection(String name) {
+        if (DEFAULT_COLLECTION.equals(name)) {
+            return this.defaultStore;
+        }
+        if (!COLLECTION_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid collection name: " + name);
+        }
+        return this.collections.computeIfAbsent(name, this::open);
+    }
+
+    private YellowBrickVectorStore open(String name) {
+        YellowBrickVectorStore store = this.storeFactory.apply(tableName(name));
+        try {
+            store.afterPropertiesSet();
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not open collection " + name + " of " + this.tableName, e);
+        }
+        logger.info("Opened collection {} of {}", name, this.tableName);
+        return store;
+    }
+
+    /**
+     * Stop the ingest threads of the collections opened here; the default store is closed by its owner.
+     */
+    @Override
+    public void destroy() {
+        this.collections.values().forEach(YellowBrickVectorStore::destroy);
+    }
+
+    private String tableName(String collection) {
+        return this.tableName + "__" + collection;
+    }
+
+    /**
+     * @return the default collection and every collection with tables in the database
+     */
+    public List<String> collectionNames() {
+        int dot = this.tableName.lastIndexOf('.');
+        String schema = dot < 0 ? null : this.tableName.substring(0, dot);
+        String prefix = this.tableName.substring(dot + 1) + "__";
+        String pattern = prefix.replace("_", "\\_") + "%\\_content";
+        List<String> tables = schema == null
+                ? this.jdbcTemplate.queryForList("SELECT table_name FROM information_schema.tables WHERE table_name LIKE ?",
+                String.class, pattern)
+                : this.jdbcTemplate.queryForList("SELECT table_name FROM information_schema.tables WHERE table_schema = ? AND table_name LIKE ?",
+                String.class, schema, pattern);
+        Set<String> names = new LinkedHashSet<>();
+        names.add(DEFAULT_COLLECTION);
+        for (String table : tables) {
+            String name = table.substring(prefix.length(), table.length() - "_content".length());
+            if (COLLECTION_NAME.matcher(name).matches()) {
+                names.add(name);
+            }
+        }
+        names.addAll(this.collections.keySet());
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * Add each document to the collection named in its metadata. Untagged documents are stored
+     * with the default collection in their metadata; the caller's metadata maps are left as they
+     * are, and only the embeddings computed for them are set on the caller's documents.
+     */
+    @Override
+    public void add(List<Document> documents) {
+        Map<String, List<Document>> byCollection = new LinkedHashMap<>();
+        Map<Document, Document> untagged = new IdentityHashMap<>();
+        for (Document document : documents) {
+            Object collection = document.getMetadata().get(COLLECTION_METADATA_KEY);
+            Document stored = document;
+            if (collection == null) {
+                stored = tagged(document);
+                untagged.put(stored, document);
+            }
+            byCollection.computeIfAbsent(collection == null ? DEFAULT_COLLECTION : collection.toString(), name -> new ArrayList<>())
+                    .add(stored);
+        }
+        byCollection.forEach((name, batch) -> collection(name).add(batch));
+        untagged.forEach((copy, document) -> document.setEmbedding(copy.getEmbedding()));
+    }
+
+    private static Document tagged(Document document) {
+        Map<String, Object> metadata = new LinkedHashMap<>(document.getMetadata());
+        metadata.put(COLLECTION_METADATA_KEY, DEFAULT_COLLECTION);
+        Document copy = new Document(document.getId(), document.getContent(), metadata);
+        copy.setEmbedding(document.getEmbedding());
+        return copy;
+    }
+
+    /**
+     * Delete documents from the default collection; a tenant's documents are deleted with
+     * {@link #delete(String, List)}, so a delete never touches another tenant's tables.
+     */
+    @Override
+    public Optional<Boolean> delete(List<String> idList) {
+        return this.defaultStore.delete(idList);
+    }
+
+    public Optional<Boolean> delete(String collection, List<String> idList) {
+        return collection(collection).delete(idList);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        Filter.Expression filter = request.getFilterExpression();
+        String[] collection = new String[1];
+        Filter.Expression rest = withoutCollection(filter, collection);
+        if (collection[0] == null) {
+            return this.defaultStore.similaritySearch(request);
+        }
+        return collection(collection[0]).similaritySearch(SearchRequest.from(request).withFilterExpression(rest));
+    }
+
+    public List<Document> similaritySearch(String collection, SearchRequest request) {
+        return collection(collection).similaritySearch(request);
+    }
+
+    /**
+     * {@code expression} without its {@code collection == '<name>'} term, which is stored in
+     * {@code collection[0]}; only terms at the top or under AND count.
+     *
+     * @return the remaining expression, or null if nothing remains
+     */
+    private static Filter.Expression withoutCollection(Filter.Expression expression, String[] collection) {
+        if (expression == null) {
+            return null;
+        }
+        if (expression.type() == Filter.ExpressionType.EQ && expression.left() instanceof Filter.Key key
+                && COLLECTION_METADATA_KEY.equals(unquote(key.key())) && expression.right() instanceof Filter.Value value) {
+            String name = String.valueOf(value.value());
+            if (collection[0] != null && !collection[0].equals(name)) {
+                throw new IllegalArgumentException("Search names two collections: " + collection[0] + " and " + name);
+            }
+            collection[0] = name;
+            return null;
+        }
+        if (expression.type() != Filter.ExpressionType.AND) {
+            return expression;
+        }
+        Filter.Expression left = withoutCollection(operand(expression.left()), collection);
+        Filter.Expression right = withoutCollection(operand(expression.right()), collection);
+        if (left == null || right == null) {
+            return left == null ? right : left;
+        }
+        return left == operand(expression.left()) && right == operand(expression.right())
+                ? expression : new Filter.Expression(Filter.ExpressionType.AND, left, right);
+    }
+
+    private static Filter.Expression operand(Filter.Operand operand) {
+        return operand instanceof Filter.Group group ? group.content() : (Filter.Expression) operand;
+    }
+
+    private static String unquote(String key) {
+        boolean quoted = key.length() > 1 && (key.startsWith("'") && key.endsWith("'") || key.startsWith("\"") && key.endsWith("\""));
+        return quoted ? key.substring(1, key.length() - 1) : key;
+    }
+}
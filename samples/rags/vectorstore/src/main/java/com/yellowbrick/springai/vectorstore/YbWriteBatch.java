@@ -0,0 +1,128 @@
+package com.yellowbrick.springai.vectorstore;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.springframework.ai.document.Document;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A batch of embedded documents together with the vectors that are actually stored for them.
+ */
+final class YbWriteBatch {
+    /**
+     * Writes maps and beans with their keys sorted at every level, so equal metadata always hashes the same.
+     */
+    private static final ObjectWriter CANONICAL_JSON = JsonMapper.builder()
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .build()
+            .writer();
+
+    final List<Document> documents;
+    final float[][] vectors;
+    /**
+     * Original L2 norm per document, or null when vectors are stored as embedded.
+     */
+    final float[] norms;
+    /**
+     * Promoted metadata values per document, in {@link YbPromotedMetadata#keys()} order.
+     */
+    final Object[][] promoted;
+    /**
+     * IVF cluster per document, or null when the store is not clustered.
+     */
+    final int[] clusterIds;
+    /**
+     * Int8-quantized copy of each stored vector, or null when the store keeps full precision only.
+     */
+    final short[][] quantized;
+    /**
+     * Content hash, source and source version per document, see {@link #contentHash(Document)}.
+     */
+    final String[] contentHashes;
+    final String[] sources;
+    final String[] sourceVersions;
+
+    private YbWriteBatch(List<Document> documents, float[][] vectors, float[] norms, Object[][] promoted, int[] clusterIds, short[][] quantized) {
+        this.documents = documents;
+        this.vectors = vectors;
+        this.norms = norms;
+        this.promoted = promoted;
+        this.clusterIds = clusterIds;
+        this.quantized = quantized;
+        this.contentHashes = new String[documents.size()];
+        this.sources = new String[documents.size()];
+        this.sourceVersions = new String[documents.size()];
+        for (int i = 0; i < documents.size(); i++) {
+            Map<String, Object> metadata = documents.get(i).getMetadata();
+            this.contentHashes[i] = contentHash(documents.get(i));
+            this.sources[i] = stringOrNull(metadata.get(YellowBrickVectorStore.SOURCE_METADATA_KEY));
+            this.sourceVersions[i] = stringOrNull(metadata.get(YellowBrickVectorStore.SOURCE_VERSION_METADATA_KEY));
+        }
+    }
+
+    static YbWriteBatch of(List<Document> documents, boolean normalize, YbPromotedMetadata promotedMetadata, YbIvfIndex ivfIndex, boolean quantize) {
+        float[][] vectors = new float[documents.size()][];
+        float[] norms = normalize ? new float[documents.size()] : null;
+        Object[][] promoted = new Object[documents.size()][];
+        for (int i = 0; i < documents.size(); i++) {
+            promoted[i] = promotedMetadata.values(documents.get(i).getMetadata());
+            float[] embedding = documents.get(i).getEmbedding();
+            if (normalize) {
+                norms[i] = VectorMath.norm(embedding);
+                vectors[i] = VectorMath.normalize(embedding, norms[i]);
+            } else {
+                vectors[i] = embedding;
+            }
+        }
+        int[] clusterIds = ivfIndex == null ? null : ivfIndex.assign(vectors);
+        short[][] quantized = null;
+        if (quantize) {
+            quantized = new short[vectors.length][];
+            for (int i = 0; i < vectors.length; i++) {
+                quantized[i] = VectorMath.quantize(vectors[i]);
+            }
+        }
+        return new YbWriteBatch(documents, vectors, norms, promoted, clusterIds, quantized);
+    }
+
+    /**
+     * SHA-256 over the text and the canonical JSON of the metadata of a chunk, leaving out the
+     * source version so that a new version of an unchanged chunk hashes the same.
+     */
+    static String contentHash(Document document) {
+        Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+        metadata.remove(YellowBrickVectorStore.SOURCE_VERSION_METADATA_KEY);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(document.getContent().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(CANONICAL_JSON.writeValueAsBytes(metadata));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String stringOrNull(Object value) {
+        return value == null ? null : String.valueOf(value);
+    }
+
+    int size() {
+        return documents.size();
+    }
+
+    int dimensions() {
+        return vectors.length == 0 ? 0 : vectors[0].length;
+    }
+}
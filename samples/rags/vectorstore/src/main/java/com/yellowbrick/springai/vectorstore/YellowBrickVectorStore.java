@@ -1,49 +1,229 @@
 package com.yellowbrick.springai.vectorstore;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.observation.Observation;
 import io.micrometer.observation.ObservationRegistry;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.embedding.BatchingStrategy;
 import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
 import org.springframework.ai.embedding.EmbeddingOptionsBuilder;
 
-import org.springframework.ai.observation.conventions.VectorStoreProvider;
+import org.springframework.ai.observation.conventions.VectorStoreSimilarityMetric;
 import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
 import org.springframework.ai.vectorstore.observation.AbstractObservationVectorStore;
+import org.springframework.ai.vectorstore.observation.DefaultVectorStoreObservationConvention;
 import org.springframework.ai.vectorstore.observation.VectorStoreObservationContext;
 import org.springframework.ai.vectorstore.observation.VectorStoreObservationConvention;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationDocumentation;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.StatementCreatorUtils;
 import org.springframework.transaction.PlatformTransactionManager;
-import org.springframework.transaction.TransactionManager;
-import org.springframework.transaction.TransactionStatus;
-import org.springframework.transaction.support.TransactionCallback;
 import org.springframework.transaction.support.TransactionTemplate;
 
-
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
 import java.sql.*;
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class YellowBrickVectorStore extends AbstractObservationVectorStore implements InitializingBean, DisposableBean {
+
+    /**
+     * How {@link #doAdd(List)} writes content, embedding and term rows. Ids staged for a delete and
+     * query embeddings staged for a batch search are copied whenever the driver can.
+     */
+    public enum IngestMode {
+        /** JDBC batched INSERT statements. */
+        BATCH_INSERT,
+        /** {@code COPY ... FROM STDIN} streaming; falls back to {@link #BATCH_INSERT} if the driver can't copy. */
+        COPY
+    }
 
-public class YellowBrickVectorStore extends AbstractObservationVectorStore implements InitializingBean {
     private static final Logger logger = LoggerFactory.getLogger(YellowBrickVectorStore.class);
+
+    /**
+     * The convention {@link AbstractObservationVectorStore} falls back to, for the searches this
+     * store observes itself.
+     */
+    private static final VectorStoreObservationConvention DEFAULT_OBSERVATION_CONVENTION = new DefaultVectorStoreObservationConvention();
+
+    /**
+     * The {@code db.system} reported in this store's observations.
+     */
+    public static final String PROVIDER = "yellowbrick";
+
+    /**
+     * Metadata key holding the cosine similarity of a search hit.
+     */
+    public static final String SCORE_METADATA_KEY = "score";
+
+    /**
+     * Metadata key holding {@code 1 - score}, the convention used by other Spring AI vector stores.
+     */
+    public static final String DISTANCE_METADATA_KEY = "distance";
+
+    /**
+     * Metadata key naming where a chunk came from; stored in the {@code source} column and used by
+     * {@link #sync(String, String, List)} to find the chunks of a source.
+     */
+    public static final String SOURCE_METADATA_KEY = "source";
+
+    /**
+     * Metadata key holding the version of the source a chunk was last synced from.
+     */
+    public static final String SOURCE_VERSION_METADATA_KEY = "source_version";
+
+    /**
+     * Progress callbacks of {@link #add(List)}, counted in documents.
+     */
+    public interface IngestListener {
+        void onEmbedded(int documents);
+
+        void onWritten(int documents);
+    }
+
+    /**
+     * Metadata key holding the reciprocal-rank-fusion score of a hybrid search result.
+     */
+    public static final String HYBRID_SCORE_METADATA_KEY = "hybrid_score";
+
+    /**
+     * Per-search settings of hybrid retrieval. The {@code candidates} best BM25 matches are picked
+     * first, only they are scored against the query vector, and the two rankings are merged by
+     * reciprocal rank fusion: {@code lexicalWeight / (rankConstant + lexical rank) + vectorWeight /
+     * (rankConstant + vector rank)}.
+     */
+    public record HybridOptions(int candidates, double lexicalWeight, double vectorWeight, int rankConstant) {
+        public HybridOptions {
+            if (candidates < 1 || rankConstant < 0 || lexicalWeight < 0 || vectorWeight < 0) {
+                throw new IllegalArgumentException("Hybrid candidates must be positive and weights and rank constant non-negative");
+            }
+        }
+
+        public static HybridOptions defaults() {
+            return new HybridOptions(200, 1.0, 1.0, 60);
+        }
+
+        public HybridOptions withCandidates(int candidates) {
+            return new HybridOptions(candidates, lexicalWeight, vectorWeight, rankConstant);
+        }
+
+        public HybridOptions withWeights(double lexicalWeight, double vectorWeight) {
+            return new HybridOptions(candidates, lexicalWeight, vectorWeight, rankConstant);
+        }
+
+        public HybridOptions withRankConstant(int rankConstant) {
+            return new HybridOptions(candidates, lexicalWeight, vectorWeight, rankConstant);
+        }
+    }
+
+    /**
+     * Outcome of {@link #sync(String, String, List)}: chunks embedded and inserted, chunks kept
+     * as they were, and chunks deleted because they are no longer in the source.
+     */
+    public record SyncResult(int added, int unchanged, int deleted) {
+    }
+
+    /**
+     * The database the store's DDL is written for.
+     */
+    public enum SqlDialect {
+        /** Tables are distributed and sorted with Yellowbrick's {@code DISTRIBUTE} and {@code SORT ON} clauses. */
+        YELLOWBRICK,
+        /** Plain PostgreSQL, for local development and benchmarks; the Yellowbrick clauses are left out. */
+        POSTGRESQL
+    }
+    /**
+     * How {@link #doSimilaritySearch(SearchRequest)} hands the query vector to the database.
+     */
+    public enum QueryMode {
+        /** Load the query vector into a per-transaction temporary table, then score against it. */
+        TEMP_TABLE,
+        /** Bind the query vector inline as a {@code VALUES} relation; one statement per search. */
+        INLINE
+    }
+
+    /**
+     * How embeddings are laid out in the database.
+     */
+    public enum StorageLayout {
+        /** One {@code (doc_id, embedding_id, embedding)} row per dimension in {@code <table>}. */
+        ROW_PER_DIMENSION,
+        /** One {@code (doc_id, block_id, e0 .. eN)} row per block of dimensions in {@code <table>_packed}. */
+        PACKED
+    }
+
     private final JdbcTemplate jdbcTemplate;
     private final BatchingStrategy batchingStrategy;
     private final String vectorTableName;
+    private final String schemaName;
+    private final String localTableName;
     private final EmbeddingModel embeddingModel;
     private final int maxDocumentBatchSize;
-    private final boolean removeExistingVectorStoreTable;
+    private boolean removeExistingVectorStoreTable;
     private final boolean initializeSchema;
     private final ObjectMapper objectMapper;
+    private final ObjectReader metadataReader;
     private final TransactionTemplate transactionTemplate;
-
-    private Logger log = LoggerFactory.getLogger(YellowBrickVectorStore.class);
+    private final ObservationRegistry observationRegistry;
+    private final VectorStoreObservationConvention observationConvention;
+    private final String embeddingModelIdentity;
+    private QueryEmbeddingCache queryEmbeddingCache;
+    private volatile YbSearchCoalescer searchCoalescer;
+    private final List<Runnable> contentChangeListeners = new CopyOnWriteArrayList<>();
+    private final List<IngestListener> ingestListeners = new CopyOnWriteArrayList<>();
+    private final YbIngestCheckpoints ingestCheckpoints;
+    private final YbTermIndex termIndex;
+    private boolean termIndexEnabled;
+    private HybridOptions hybridOptions;
+    private YbIvfIndex ivfIndex;
+    private int ivfTrainingSampleSize = 20000;
+    private int ivfMaxIterations = 20;
+    private boolean quantizeEmbeddings;
+    private StorageLayout storageLayout = StorageLayout.ROW_PER_DIMENSION;
+    private int packedBlockWidth = 128;
+    private YbEmbeddingLayout layout = YbEmbeddingLayout.ROW_PER_DIMENSION;
+    private int quantizationCandidateMultiplier = 10;
+    private IngestMode ingestMode = IngestMode.COPY;
+    private SqlDialect sqlDialect = SqlDialect.YELLOWBRICK;
+    private YbIngestPipeline ingestPipeline = new YbIngestPipeline(1, 1, 2, 1, Duration.ofSeconds(1));
+    private int copyBufferSize = 1 << 16;
+    private boolean normalizeEmbeddings;
+    private QueryMode queryMode = QueryMode.TEMP_TABLE;
+    private YbPromotedMetadata promotedMetadata = new YbPromotedMetadata(Map.of());
+    private final Map<Integer, String> inlineQueryRelations = new ConcurrentHashMap<>();
+    private YbStoreMetrics metrics;
+    private Duration slowSearchThreshold;
+    private int streamFetchSize = 100;
+    private YbHotMirror hotMirror;
+    private ForkJoinPool ownedHotMirrorPool;
+    private YbHnswIndex hnswIndex;
 
     public YellowBrickVectorStore(String vectorTableName, JdbcTemplate jdbcTemplate, EmbeddingModel embeddingModel, boolean initializeSchema, ObservationRegistry observationRegistry, VectorStoreObservationConvention observationConvention, BatchingStrategy batchingStrategy, int maxDocumentBatchSize, PlatformTransactionManager transactionManager) {
         super(observationRegistry, observationConvention);
@@ -52,70 +232,250 @@ public class YellowBrickVectorStore extends AbstractObservationVectorStore imple
         this.batchingStrategy = batchingStrategy;
         this.maxDocumentBatchSize = maxDocumentBatchSize;
         this.vectorTableName = null != vectorTableName && !vectorTableName.isEmpty() ? vectorTableName.trim() : "vector_store";
+        // a schema-qualified name puts the store's tables in that schema; temporary tables can't be qualified
+        int dot = this.vectorTableName.lastIndexOf('.');
+        this.schemaName = dot < 0 ? null : this.vectorTableName.substring(0, dot);
+        this.localTableName = this.vectorTableName.substring(dot + 1);
         this.initializeSchema = initializeSchema;
-        this.removeExistingVectorStoreTable = true;
+        this.removeExistingVectorStoreTable = false;
         this.objectMapper = new ObjectMapper();
+        this.metadataReader = this.objectMapper.readerFor(new TypeReference<Map<String, Object>>() {
+        });
         this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.observationRegistry = observationRegistry;
+        this.observationConvention = observationConvention;
+        this.embeddingModelIdentity = embeddingModel.getClass().getName() + '@' + Integer.toHexString(System.identityHashCode(embeddingModel));
+        this.ingestCheckpoints = new YbIngestCheckpoints(jdbcTemplate, this.vectorTableName + "_ingest_checkpoint");
+        this.termIndex = new YbTermIndex(jdbcTemplate, this.vectorTableName + "_terms");
+        // a composite without registries hands out no-op meters until setMeterRegistry is called
+        this.metrics = new YbStoreMetrics(new CompositeMeterRegistry(), this.vectorTableName);
     }
 
     /**
-     * Add a document to the vector store
+     * Add a document to the vector store. Embedding batches from the {@link BatchingStrategy} are
+     * embedded and written concurrently, see {@link #setIngestConcurrency(int, int, int)}. Of
+     * documents sharing an id only the last is stored.
      *
      * @param documents
      */
     @Override
     public void doAdd(List<Document> documents) {
-        this.embeddingModel.embed(documents, EmbeddingOptionsBuilder.builder().build(), this.batchingStrategy);
-        List<List<Document>> batchedDocuments = this.batchDocuments(documents);
-        batchedDocuments.forEach(this::insertOrUpdateBatch);
+        EmbeddingOptions options = EmbeddingOptionsBuilder.builder().build();
+        this.ingestPipeline.run(this.batchingStrategy.batch(lastById(documents)),
+                batch -> {
+                    this.metrics.timeIngest(ingestModeTag(), "embedding", () -> this.embeddingModel.embed(batch, options, this.batchingStrategy));
+                    this.ingestListeners.forEach(listener -> listener.onEmbedded(batch.size()));
+                },
+                this::batchDocuments,
+                batch -> {
+                    this.transactionTemplate.executeWithoutResult(status -> this.writeBatch(batch));
+                    if (this.hotMirror != null) {
+                        this.hotMirror.putAll(indexEntries(batch));
+                    }
+                    if (this.hnswIndex != null) {
+                        this.hnswIndex.addAll(indexEntries(batch));
+                    }
+                    this.ingestListeners.forEach(listener -> listener.onWritten(batch.size()));
+                });
+        if (this.ivfIndex != null && !this.ivfIndex.isTrained()) {
+            clusterOnceEnoughDocuments();
+        }
+        if (this.hnswIndex != null) {
+            this.hnswIndex.flush();
+        }
+        fireContentChanged();
+    }
+
+    /**
+     * Concurrent writers upserting the same id could each delete before either inserts and leave
+     * both rows, so duplicates are dropped before the work is handed out.
+     */
+    private static List<Document> lastById(List<Document> documents) {
+        Map<String, Document> byId = new LinkedHashMap<>();
+        for (Document document : documents) {
+            byId.remove(document.getId());
+            byId.put(document.getId(), document);
+        }
+        return byId.size() == documents.size() ? documents : new ArrayList<>(byId.values());
+    }
+
+    private void writeBatch(List<Document> documents) {
+        this.metrics.ingestBatch(documents.size());
+        // documents that are already stored are replaced, which makes add() an upsert
+        int replaced = this.metrics.timeIngest(ingestModeTag(), "delete",
+                () -> deleteDocuments(documents.stream().map(Document::getId).collect(Collectors.toCollection(LinkedHashSet::new))));
+        if (replaced > 0) {
+            logger.debug("replacing {} existing documents in {}", replaced, getTableName());
+        }
+        YbWriteBatch batch = YbWriteBatch.of(documents, this.normalizeEmbeddings, this.promotedMetadata, this.ivfIndex, this.quantizeEmbeddings);
+        if (this.ingestMode != IngestMode.COPY || !this.copyBatch(batch)) {
+            this.insertOrUpdateBatch(batch);
+        }
+        if (this.termIndexEnabled) {
+            this.metrics.timeIngest(ingestModeTag(), "terms", () -> writeTerms(documents));
+        }
+    }
+
+    private String ingestModeTag() {
+        return this.ingestMode.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Add the term rows of {@code documents} to the term index, by COPY in {@link IngestMode#COPY}
+     * where the driver supports it.
+     */
+    private int writeTerms(List<Document> documents) {
+        List<Map<String, Integer>> terms = documents.stream().map(document -> YbTermIndex.analyze(document.getContent())).toList();
+        String columns = "doc_id, term, tf, doc_length";
+        Long copied = this.jdbcTemplate.execute((ConnectionCallback<Long>) con -> {
+            if (this.ingestMode != IngestMode.COPY || !supportsCopy(con)) {
+                return null;
+            }
+            return copyIn(con, "COPY " + this.termIndex.tableName + " (" + columns + ") FROM STDIN", YbCopyRowReader.termRows(documents, terms));
+        });
+        if (copied != null) {
+            this.metrics.rowsWritten("terms", copied);
+            return copied.intValue();
+        }
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < documents.size(); i++) {
+            UUID docId = UUID.fromString(documents.get(i).getId());
+            int length = YbTermIndex.length(terms.get(i));
+            terms.get(i).forEach((term, tf) -> rows.add(new Object[]{docId, term, tf, length}));
+        }
+        this.jdbcTemplate.batchUpdate("INSERT INTO " + this.termIndex.tableName + " (" + columns + ") VALUES (?, ?, ?, ?)", rows);
+        this.metrics.rowsWritten("terms", rows.size());
+        return rows.size();
     }
 
-    private String toJson(Map<String, Object> map) {
+    String toJson(Map<String, Object> map) {
         try {
             return this.objectMapper.writeValueAsString(map);
-        } catch (JsonProcessingException var3) {
-            JsonProcessingException e = var3;
+        } catch (JsonProcessingException e) {
             throw new RuntimeException(e);
         }
     }
 
-    private void insertOrUpdateEmbeddings(float[] embeddings, String doc_id) {
-        String sql = "INSERT INTO " + getContentTableName() + "(doc_id, embedding_id, embedding) VALUES (?, ?,?)";
+    private String embeddingColumns(YbWriteBatch batch) {
+        return "doc_id, " + this.layout.columns()
+                + (batch.clusterIds != null ? ", cluster_id" : "")
+                + (batch.quantized != null ? ", " + this.layout.quantizedColumns() : "");
+    }
+
+    private String contentColumns(YbWriteBatch batch) {
+        return (batch.norms != null ? "doc_id, text, metadata, embedding_norm" : "doc_id, text, metadata")
+                + ", content_hash, source, source_version" + this.promotedMetadata.columnList();
+    }
+
+    /**
+     * Stream the content rows and the embedding rows of a batch through {@code COPY ... FROM STDIN}.
+     *
+     * @return false if the connection does not speak the PostgreSQL copy protocol, in which case
+     * nothing has been written and the caller should fall back to batched inserts
+     */
+    private boolean copyBatch(YbWriteBatch batch) {
+        Boolean copied = this.jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            if (!supportsCopy(con)) {
+                logger.warn("Connection does not support COPY, falling back to batched inserts for table: {}", this.getTableName());
+                return false;
+            }
+            long start = System.nanoTime();
+            long contentRows = copyIn(con, "COPY " + getContentTableName() + " (" + contentColumns(batch) + ") FROM STDIN",
+                    YbCopyRowReader.contentRows(batch, this::toJson));
+            this.metrics.ingestPhase("copy", "content", System.nanoTime() - start);
+            start = System.nanoTime();
+            long embeddingRows = copyIn(con, "COPY " + getTableName() + " (" + embeddingColumns(batch) + ") FROM STDIN",
+                    YbCopyRowReader.embeddingRows(batch, this.layout));
+            this.metrics.ingestPhase("copy", "embeddings", System.nanoTime() - start);
+            this.metrics.rowsWritten("content", contentRows);
+            this.metrics.rowsWritten("embeddings", embeddingRows);
+            logger.debug("copied {} content rows and {} embedding rows", contentRows, embeddingRows);
+            return true;
+        });
+        return Boolean.TRUE.equals(copied);
+    }
+
+    /**
+     * Whether the driver speaks the copy protocol; whether ingest uses it is up to {@link IngestMode}.
+     */
+    private static boolean supportsCopy(Connection con) throws SQLException {
+        return con.isWrapperFor(PGConnection.class);
+    }
+
+    private long copyIn(Connection con, String sql, Reader rows) throws SQLException {
+        CopyManager copyManager = con.unwrap(PGConnection.class).getCopyAPI();
+        try {
+            return copyManager.copyIn(sql, rows, this.copyBufferSize);
+        } catch (IOException e) {
+            throw new SQLException("Failed to stream rows for: " + sql, e);
+        }
+    }
+
+    private void insertOrUpdateEmbeddings(YbWriteBatch batch) {
+        YbEmbeddingLayout layout = this.layout;
+        String sql = "INSERT INTO " + getTableName() + "(" + embeddingColumns(batch) + ") VALUES (?, ?" + layout.valuePlaceholders()
+                + (batch.clusterIds != null ? ", ?" : "") + (batch.quantized != null ? layout.valuePlaceholders() : "") + ")";
+        int blocks = layout.blocks(batch.dimensions());
+        long start = System.nanoTime();
 
         this.jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
 
             @Override
             public void setValues(PreparedStatement ps, int i) throws SQLException {
-                StatementCreatorUtils.setParameterValue(ps, 1, Integer.MIN_VALUE, UUID.fromString(doc_id));
-                StatementCreatorUtils.setParameterValue(ps, 2, Integer.MIN_VALUE, i);
-                StatementCreatorUtils.setParameterValue(ps, 3, Integer.MIN_VALUE, embeddings[i]);
+                int document = i / blocks;
+                int block = i % blocks;
+                StatementCreatorUtils.setParameterValue(ps, 1, Integer.MIN_VALUE, UUID.fromString(batch.documents.get(document).getId()));
+                StatementCreatorUtils.setParameterValue(ps, 2, Integer.MIN_VALUE, block);
+                int parameter = 3;
+                for (int column = 0; column < layout.width; column++) {
+                    StatementCreatorUtils.setParameterValue(ps, parameter++, Integer.MIN_VALUE, layout.value(batch.vectors[document], block, column));
+                }
+                if (batch.clusterIds != null) {
+                    StatementCreatorUtils.setParameterValue(ps, parameter++, Integer.MIN_VALUE, batch.clusterIds[document]);
+                }
+                if (batch.quantized != null) {
+                    for (int column = 0; column < layout.width; column++) {
+                        StatementCreatorUtils.setParameterValue(ps, parameter++, Integer.MIN_VALUE, layout.value(batch.quantized[document], block, column));
+                    }
+                }
 
             }
 
             @Override
             public int getBatchSize() {
-                return embeddings.length;
+                return batch.size() * blocks;
             }
         });
-
+        this.metrics.ingestPhase("batch_insert", "embeddings", System.nanoTime() - start);
+        this.metrics.rowsWritten("embeddings", (long) batch.size() * blocks);
     }
 
-    private void insertOrUpdateBatch(List<Document> batch) {
-        String sql = "INSERT INTO " + this.getTableName() + " (doc_id, text, metadata) VALUES (?, ?, ?)";
+    private void insertOrUpdateBatch(YbWriteBatch batch) {
+        String sql = "INSERT INTO " + this.getContentTableName() + " (" + contentColumns(batch) + ") VALUES (?, ?, ?"
+                + (batch.norms != null ? ", ?" : "") + ", ?, ?, ?" + ", ?".repeat(this.promotedMetadata.keys().size()) + ")";
+        long start = System.nanoTime();
 
         this.jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
 
             @Override
             public void setValues(PreparedStatement ps, int i) throws SQLException {
 
-                Document document = batch.get(i);
+                Document document = batch.documents.get(i);
                 String content = document.getContent();
                 String json = toJson(document.getMetadata());
-                float[] embedding = document.getEmbedding();
                 StatementCreatorUtils.setParameterValue(ps, 1, Integer.MIN_VALUE, UUID.fromString(document.getId()));
                 StatementCreatorUtils.setParameterValue(ps, 2, Integer.MIN_VALUE, content);
                 StatementCreatorUtils.setParameterValue(ps, 3, Integer.MIN_VALUE, json);
-                insertOrUpdateEmbeddings(embedding, document.getId());
+                int parameter = 4;
+                if (batch.norms != null) {
+                    StatementCreatorUtils.setParameterValue(ps, parameter++, Integer.MIN_VALUE, batch.norms[i]);
+                }
+                StatementCreatorUtils.setParameterValue(ps, parameter++, Integer.MIN_VALUE, batch.contentHashes[i]);
+                StatementCreatorUtils.setParameterValue(ps, parameter++, Integer.MIN_VALUE, batch.sources[i]);
+                StatementCreatorUtils.setParameterValue(ps, parameter++, Integer.MIN_VALUE, batch.sourceVersions[i]);
+                for (Object value : batch.promoted[i]) {
+                    StatementCreatorUtils.setParameterValue(ps, parameter++, Integer.MIN_VALUE, value);
+                }
 
             }
 
@@ -124,9 +484,12 @@ public class YellowBrickVectorStore extends AbstractObservationVectorStore imple
                 return batch.size();
             }
         });
+        this.metrics.ingestPhase("batch_insert", "content", System.nanoTime() - start);
+        this.metrics.rowsWritten("content", batch.size());
+        insertOrUpdateEmbeddings(batch);
     }
 
-    private List<List<Document>> batchDocuments(List<Document> documents) {
+    List<List<Document>> batchDocuments(List<Document> documents) {
         List<List<Document>> batches = new ArrayList<>();
 
         for (int i = 0; i < documents.size(); i += this.maxDocumentBatchSize) {
@@ -136,104 +499,704 @@ public class YellowBrickVectorStore extends AbstractObservationVectorStore imple
         return batches;
     }
 
+    /**
+     * Delete documents from the embeddings and content tables in one transaction.
+     *
+     * @return true if every distinct id was a stored document
+     */
     @Override
     public Optional<Boolean> doDelete(List<String> idList) {
-        //AtomicInteger updateCount = new AtomicInteger();
-        //increment atomic integer from inside lambda.
-        long count =  idList.stream()
-                .filter(id-> 1 == this.jdbcTemplate.update("DELETE FROM " + this.getTableName() + " WHERE id = ?", new Object[]{UUID.fromString(id)}))
-                .count();
-
-        logger.info("records deleted {}",count);
-        //todo total deleted records and return true if total=sizeof(idList)
-        return Optional.of(true);
+        Set<String> ids = new LinkedHashSet<>(idList);
+        Integer deleted = this.transactionTemplate.execute(status -> deleteDocuments(ids));
+        removeFromIndexes(ids);
+        logger.info("deleted {} of {} documents from {}", deleted, ids.size(), getTableName());
+        fireContentChanged();
+        return Optional.of(deleted != null && deleted == ids.size());
     }
 
     @Override
     public List<Document> doSimilaritySearch(SearchRequest request) {
+        YbSearchCoalescer coalescer = this.searchCoalescer;
+        return coalescer != null ? coalescer.search(request, this::search) : search(request);
+    }
+
+    private List<Document> search(SearchRequest request) {
+        String mode = this.hybridOptions != null ? "hybrid"
+                : Objects.requireNonNullElse(inMemoryMode(request), this.queryMode.name().toLowerCase(Locale.ROOT));
+        List<Document> documents = search(request, mode);
+        this.metrics.searchResults(mode, documents.size());
+        return documents;
+    }
+
+    private List<Document> search(SearchRequest request, String mode) {
         //create embeddings out of the search request
-        float[] embeddings = this.getQueryEmbedding(request.getQuery());
+        float[] embeddings = this.metrics.timeSearch(mode, "embedding", () -> this.getQueryEmbedding(request.getQuery()));
+        if (this.normalizeEmbeddings) {
+            embeddings = VectorMath.normalize(embeddings);
+        }
+        float[] queryEmbedding = embeddings;
+        if (this.hybridOptions != null) {
+            return getHybridDocuments(queryEmbedding, request, this.hybridOptions);
+        }
+        if (inMemoryMode(request) != null) {
+            return getIndexedDocuments(mode, queryEmbedding, request);
+        }
+        if (this.queryMode == QueryMode.INLINE) {
+            return getDocuments(mode, inlineQueryRelation(queryEmbedding.length), inlineQueryArgs(queryEmbedding), queryEmbedding, request);
+        }
         UUID searchDocumentId = UUID.randomUUID();
 
-        List<Document> query = (List<Document>) transactionTemplate.execute(new TransactionCallback() {
-            @Override
-            public Object doInTransaction(TransactionStatus status) {
-                log.info("doing in transaction");
-                createTemporaryTable(searchDocumentId, embeddings);
+        return this.transactionTemplate.execute(status -> {
+            long start = System.nanoTime();
+            createTemporaryTable(searchDocumentId, queryEmbedding);
+            this.metrics.searchPhase(mode, "temp_table_ddl", System.nanoTime() - start);
+
+            start = System.nanoTime();
+            insertSearchDocEmbeddings(searchDocumentId, queryEmbedding);
+            this.metrics.searchPhase(mode, "query_vector_insert", System.nanoTime() - start);
+
+            List<Document> query = getDocuments(mode, "(SELECT " + this.layout.columns() + " FROM " + getQueryTableName() + " WHERE doc_id = ?)",
+                    List.of(searchDocumentId.toString()), queryEmbedding, request);
+
+            start = System.nanoTime();
+            cleanUpTempTable(searchDocumentId);
+            this.metrics.searchPhase(mode, "cleanup", System.nanoTime() - start);
+            return query;
+        });
+    }
+
+    /**
+     * The in-memory index answering {@code request}, as a search mode: the exact hot mirror, else the
+     * HNSW index. Filtered searches need the content table and go to the database.
+     *
+     * @return null if the database answers
+     */
+    private String inMemoryMode(SearchRequest request) {
+        if (this.hybridOptions != null || request.getFilterExpression() != null) {
+            return null;
+        }
+        return this.hotMirror != null ? "hot_mirror" : this.hnswIndex != null ? "hnsw" : null;
+    }
+
+    /**
+     * Find the top k in the hot mirror or the HNSW index and read text and metadata of those only.
+     */
+    private List<Document> getIndexedDocuments(String mode, float[] queryEmbedding, SearchRequest request) {
+        double threshold = request.getSimilarityThreshold() > SearchRequest.SIMILARITY_THRESHOLD_ACCEPT_ALL
+                ? request.getSimilarityThreshold() : Double.NEGATIVE_INFINITY;
+        List<YbSearchHit> hits = this.metrics.timeSearch(mode, "scoring", () -> this.hotMirror != null
+                ? this.hotMirror.search(queryEmbedding, request.getTopK(), threshold)
+                : this.hnswIndex.search(queryEmbedding, request.getTopK(), threshold));
+        this.metrics.searchCandidates(mode, this.hotMirror != null ? this.hotMirror.size()
+                : Math.max(this.hnswIndex.efSearch, request.getTopK()));
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+        return this.metrics.timeSearch(mode, "fetch", () -> {
+            Map<String, Document> documents = new HashMap<>();
+            Map<String, Double> scores = hits.stream().collect(Collectors.toMap(YbSearchHit::docId, YbSearchHit::score));
+            this.jdbcTemplate.query("SELECT doc_id, text, metadata FROM " + getContentTableName() + " WHERE doc_id IN ("
+                            + String.join(", ", Collections.nCopies(hits.size(), "?")) + ")",
+                    (RowCallbackHandler) rs -> {
+                        String docId = rs.getString(1);
+                        double similarity = scores.get(docId);
+                        YbLazyMetadata metadata = new YbLazyMetadata(this.metadataReader, rs.getString(3));
+                        metadata.putWithoutDecoding(SCORE_METADATA_KEY, similarity);
+                        metadata.putWithoutDecoding(DISTANCE_METADATA_KEY, 1 - similarity);
+                        documents.put(docId, new Document(docId, rs.getString(2), metadata));
+                    },
+                    hits.stream().map(hit -> UUID.fromString(hit.docId())).toArray());
+            // a document deleted since the index was read has no content row and drops out
+            return hits.stream().map(hit -> documents.get(hit.docId())).filter(Objects::nonNull).toList();
+        });
+    }
+
+    private static Map<String, float[]> indexEntries(List<Document> documents) {
+        Map<String, float[]> entries = new LinkedHashMap<>();
+        for (Document document : documents) {
+            entries.put(UUID.fromString(document.getId()).toString(), document.getEmbedding());
+        }
+        return entries;
+    }
+
+    private void removeFromIndexes(Collection<String> ids) {
+        if (this.hotMirror != null) {
+            this.hotMirror.removeAll(indexKeys(ids));
+        }
+        if (this.hnswIndex != null) {
+            this.hnswIndex.removeAll(indexKeys(ids));
+            this.hnswIndex.flush();
+        }
+    }
+
+    /**
+     * Document ids in the form the database returns them, which is how the in-memory indexes are keyed.
+     */
+    private static List<String> indexKeys(Collection<String> ids) {
+        return ids.stream().map(id -> UUID.fromString(id).toString()).toList();
+    }
+
+    /**
+     * Hybrid lexical and vector search with the given options, whatever the store's default search
+     * mode. Needs the term index, see {@link #setTermIndex(boolean)}. Observed and coalesced like
+     * {@link #similaritySearch(SearchRequest)}, with the options part of the coalescing key.
+     */
+    public List<Document> similaritySearch(SearchRequest request, HybridOptions options) {
+        return observeQuery(request, () -> {
+            YbSearchCoalescer coalescer = this.searchCoalescer;
+            return coalescer != null ? coalescer.search(request, options, r -> hybridSearch(r, options)) : hybridSearch(request, options);
+        });
+    }
+
+    private List<Document> hybridSearch(SearchRequest request, HybridOptions options) {
+        float[] embedding = this.metrics.timeSearch("hybrid", "embedding", () -> this.getQueryEmbedding(request.getQuery()));
+        List<Document> documents = getHybridDocuments(this.normalizeEmbeddings ? VectorMath.normalize(embedding) : embedding, request, options);
+        this.metrics.searchResults("hybrid", documents.size());
+        return documents;
+    }
 
-                insertSearchDocEmbeddings(searchDocumentId, embeddings);
+    /**
+     * Search like {@link #similaritySearch(SearchRequest)}, mapping result rows only as the stream is
+     * consumed. Rows come through a forward-only cursor, {@link #setStreamFetchSize(int)} at a time,
+     * and each document's metadata is decoded on first access, so large topK values and exports
+     * don't hold every result in memory. The query vector is always bound inline, whatever the
+     * {@link QueryMode}; IVF, quantization, filters and hybrid search apply as usual.
+     * <p>
+     * The stream holds a database connection until it is closed, so use it in a try-with-resources
+     * block. The search is observed like {@link #similaritySearch(SearchRequest)} until then.
+     */
+    public Stream<Document> similaritySearchStream(SearchRequest request) {
+        Observation observation = queryObservation(queryObservationContext(request)).start();
+        try {
+            return openStream(request).onClose(observation::stop);
+        } catch (RuntimeException | Error e) {
+            observation.error(e);
+            observation.stop();
+            throw e;
+        }
+    }
+
+    private Stream<Document> openStream(SearchRequest request) {
+        float[] embedding = this.metrics.timeSearch("stream", "embedding", () -> this.getQueryEmbedding(request.getQuery()));
+        float[] queryEmbedding = this.normalizeEmbeddings ? VectorMath.normalize(embedding) : embedding;
+        Map<String, Integer> queryTerms = this.hybridOptions != null ? YbTermIndex.analyze(request.getQuery()) : Map.of();
+        if (!queryTerms.isEmpty()) {
+            List<Object> args = new ArrayList<>();
+            String selectSQL = hybridStatement(queryTerms, queryEmbedding, request, this.hybridOptions, args);
+            return countedStream(selectSQL, args, this::toHybridDocument);
+        }
+        List<Object> args = inlineQueryArgs(queryEmbedding);
+        String selectSQL = scoringStatement(inlineQueryRelation(queryEmbedding.length), queryEmbedding, request,
+                this.quantizeEmbeddings && this.hybridOptions == null, true, args);
+        return countedStream(selectSQL, args, (rs, rowNum) -> toDocument(rs, 1));
+    }
+
+    private Stream<Document> countedStream(String selectSQL, List<Object> args, RowMapper<Document> rowMapper) {
+        int[] results = new int[1];
+        return YbResultStream.open(this.jdbcTemplate, selectSQL, args.toArray(), this.streamFetchSize, (rs, rowNum) -> {
+            results[0]++;
+            return rowMapper.mapRow(rs, rowNum);
+        }).onClose(() -> this.metrics.searchResults("stream", results[0]));
+    }
+
+    /**
+     * One statement: BM25 over the term index picks the lexical candidates, only their embeddings
+     * are scored against the query vector, and the two rankings are fused. The similarity threshold
+     * applies to the vector score; IVF probing and the quantized first pass are not used, since the
+     * candidate set already bounds the join. A query with no indexable terms falls back to vector search.
+     */
+    private List<Document> getHybridDocuments(float[] queryEmbedding, SearchRequest request, HybridOptions options) {
+        Map<String, Integer> queryTerms = YbTermIndex.analyze(request.getQuery());
+        if (queryTerms.isEmpty()) {
+            return getDocuments("hybrid", inlineQueryRelation(queryEmbedding.length), inlineQueryArgs(queryEmbedding), queryEmbedding, request, false, true);
+        }
+        List<Object> args = new ArrayList<>();
+        String selectSQL = hybridStatement(queryTerms, queryEmbedding, request, options, args);
+        long[] candidateCount = new long[1];
+        List<Document> documents = scoreQuery("hybrid", selectSQL, args.toArray(), (rs, rowNum) -> {
+            candidateCount[0] = rs.getLong(6);
+            return toHybridDocument(rs, rowNum);
+        });
+        this.metrics.searchCandidates("hybrid", candidateCount[0]);
+        return documents;
+    }
 
-                List<Document> query = getDocuments(searchDocumentId);
+    /**
+     * The hybrid search statement, returning {@code doc_id, text, metadata, score, hybrid_score,
+     * candidate_count}.
+     *
+     * @param args receives the bound parameters, in order
+     */
+    private String hybridStatement(Map<String, Integer> queryTerms, float[] queryEmbedding, SearchRequest request, HybridOptions options, List<Object> args) {
+        String score = scoreExpression();
+        boolean hasThreshold = request.getSimilarityThreshold() > SearchRequest.SIMILARITY_THRESHOLD_ACCEPT_ALL;
+        String lexical = this.termIndex.lexicalCandidates(queryTerms, filterPredicate("t.doc_id", request.getFilterExpression()),
+                Math.max(options.candidates(), request.getTopK()), args);
+        args.addAll(inlineQueryArgs(queryEmbedding));
+        String selectSQL = " WITH" + lexical + "," +
+                " vr AS (SELECT" +
+                "                v2.doc_id doc_id," +
+                "                " + score + " AS score," +
+                "                ROW_NUMBER() OVER (ORDER BY " + score + " DESC) AS vector_rank," +
+                "                COUNT(*) OVER () AS candidate_count" +
+                "                FROM " + inlineQueryRelation(queryEmbedding.length) + " v1 (" + this.layout.columns() + ")" +
+                "                INNER JOIN " + getTableName() + " v2" +
+                "                ON " + blockJoin() +
+                "                WHERE v2.doc_id IN (SELECT doc_id FROM lex)" +
+                "                GROUP BY v2.doc_id" +
+                (hasThreshold ? "                HAVING " + score + " >= ?" : "") + ")" +
+                " SELECT" +
+                "        v3.doc_id," +
+                "        text," +
+                "        metadata," +
+                "        score," +
+                "        hybrid_score," +
+                "        candidate_count" +
+                "  FROM" +
+                "        (SELECT vr.doc_id, vr.score, vr.candidate_count," +
+                "                ? / (? + lr.lexical_rank) + ? / (? + vr.vector_rank) AS hybrid_score" +
+                "                FROM vr INNER JOIN lr ON lr.doc_id = vr.doc_id" +
+                "                ORDER BY hybrid_score DESC LIMIT ?" +
+                "        ) v4" +
+                " INNER JOIN" +
+                " " + getContentTableName() + " v3" +
+                " ON v4.doc_id = v3.doc_id" +
+                " ORDER BY hybrid_score DESC";
+        if (hasThreshold) {
+            args.add(request.getSimilarityThreshold());
+        }
+        args.add(options.lexicalWeight());
+        args.add((double) options.rankConstant());
+        args.add(options.vectorWeight());
+        args.add((double) options.rankConstant());
+        args.add(request.getTopK());
+        return selectSQL;
+    }
+
+    /**
+     * The query vector as an inline {@code VALUES} relation with one bound parameter per dimension,
+     * one row per layout block, so the whole search is a single statement without temp-table DDL.
+     */
+    private String inlineQueryRelation(int dimensions) {
+        return this.inlineQueryRelations.computeIfAbsent(dimensions, n -> {
+            int blocks = this.layout.blocks(n);
+            StringBuilder values = new StringBuilder(n * 10).append("(VALUES ");
+            for (int i = 0; i < blocks; i++) {
+                values.append(i == 0 ? "" : ", ").append('(').append(i).append(this.layout.valuePlaceholders()).append(')');
+            }
+            return values.append(')').toString();
+        });
+    }
 
-                cleanUpTempTable(searchDocumentId);
-                return query;
+    private List<Object> inlineQueryArgs(float[] embedding) {
+        int blocks = this.layout.blocks(embedding.length);
+        List<Object> args = new ArrayList<>(blocks * this.layout.width);
+        for (int block = 0; block < blocks; block++) {
+            for (int column = 0; column < this.layout.width; column++) {
+                args.add(this.layout.value(embedding, block, column));
             }
+        }
+        return args;
+    }
+
+    /**
+     * Run several searches at once. All query texts are embedded in a single
+     * {@link EmbeddingModel#embed(List)} call. The query vectors are loaded into one temporary table.
+     * Requests sharing a filter expression are then scored in a single join grouped by
+     * {@code (query_id, doc_id)}, with each request's own topK and similarity threshold.
+     *
+     * <p>
+     * The batch is reported as one query observation and coalesced with identical batches.
+     *
+     * @return one result list per request, in input order
+     */
+    public List<List<Document>> similaritySearch(List<SearchRequest> requests) {
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+        VectorStoreObservationContext context = createObservationContextBuilder(VectorStoreObservationContext.Operation.QUERY.value()).build();
+        return queryObservation(context).observe(() -> {
+            YbSearchCoalescer coalescer = this.searchCoalescer;
+            List<List<Document>> results = coalescer != null ? coalescer.searchAll(requests, this::searchAll) : searchAll(requests);
+            context.setQueryResponse(results.stream().flatMap(List::stream).toList());
+            return results;
+        });
+    }
+
+    private List<List<Document>> searchAll(List<SearchRequest> requests) {
+        List<float[]> embeddings = this.metrics.timeSearch("batch", "embedding",
+                () -> this.getQueryEmbeddings(requests.stream().map(SearchRequest::getQuery).toList()));
+        float[][] queryEmbeddings = new float[requests.size()][];
+        for (int i = 0; i < requests.size(); i++) {
+            queryEmbeddings[i] = this.normalizeEmbeddings ? VectorMath.normalize(embeddings.get(i)) : embeddings.get(i);
+        }
+
+        Map<Filter.Expression, List<Integer>> byFilter = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            byFilter.computeIfAbsent(requests.get(i).getFilterExpression(), f -> new ArrayList<>()).add(i);
+        }
 
+        List<List<Document>> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            results.add(new ArrayList<>());
+        }
+        this.transactionTemplate.executeWithoutResult(status -> {
+            long start = System.nanoTime();
+            createBatchQueryTable();
+            this.metrics.searchPhase("batch", "temp_table_ddl", System.nanoTime() - start);
+            start = System.nanoTime();
+            loadBatchQueryEmbeddings(queryEmbeddings);
+            this.metrics.searchPhase("batch", "query_vector_insert", System.nanoTime() - start);
+            byFilter.forEach((filter, queryIds) -> getBatchDocuments(requests, queryEmbeddings, queryIds, filter, results));
+        });
+        results.forEach(documents -> this.metrics.searchResults("batch", documents.size()));
+        return results;
+    }
+
+    private void createBatchQueryTable() {
+        jdbcTemplate.execute(ddl(String.format(
+                " CREATE TEMPORARY TABLE  %s ( \n" +
+                        "     query_id INTEGER,\n" +
+                        "     %s)\n" +
+                        "  ON COMMIT DROP\n" +
+                        "  DISTRIBUTE REPLICATE\n", getBatchQueryTableName(), this.layout.columnDefinitions("FLOAT"))));
+    }
 
+    private void loadBatchQueryEmbeddings(float[][] queryEmbeddings) {
+        YbEmbeddingLayout layout = this.layout;
+        int blocks = layout.blocks(queryEmbeddings[0].length);
+        String copySql = "COPY " + getBatchQueryTableName() + " (query_id, " + layout.columns() + ") FROM STDIN";
+        Boolean copied = this.jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            if (!supportsCopy(con)) {
+                return false;
+            }
+            copyIn(con, copySql, YbCopyRowReader.queryRows(queryEmbeddings, layout));
+            return true;
         });
-        return query;
+        if (Boolean.TRUE.equals(copied)) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO " + getBatchQueryTableName() + " (query_id, " + layout.columns() + ") VALUES (?,?" + layout.valuePlaceholders() + ")",
+                new BatchPreparedStatementSetter() {
+
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        StatementCreatorUtils.setParameterValue(ps, 1, Integer.MIN_VALUE, i / blocks);
+                        StatementCreatorUtils.setParameterValue(ps, 2, Integer.MIN_VALUE, i % blocks);
+                        for (int column = 0; column < layout.width; column++) {
+                            StatementCreatorUtils.setParameterValue(ps, 3 + column, Integer.MIN_VALUE, layout.value(queryEmbeddings[i / blocks], i % blocks, column));
+                        }
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return queryEmbeddings.length * blocks;
+                    }
+                });
+    }
+
+    private void getBatchDocuments(List<SearchRequest> requests, float[][] queryEmbeddings, List<Integer> queryIds, Filter.Expression filter, List<List<Document>> results) {
+        StringBuilder parameters = new StringBuilder("(VALUES ");
+        List<Object> args = new ArrayList<>();
+        for (int i = 0; i < queryIds.size(); i++) {
+            SearchRequest request = requests.get(queryIds.get(i));
+            parameters.append(i == 0 ? "" : ", ").append("(?, ?, ?)");
+            args.add(queryIds.get(i));
+            args.add(request.getTopK());
+            // cosine similarity is never below -1, so this accepts everything
+            args.add(request.getSimilarityThreshold() > SearchRequest.SIMILARITY_THRESHOLD_ACCEPT_ALL ? request.getSimilarityThreshold() : -2.0);
+        }
+        parameters.append(')');
+        String queryIdList = String.join(", ", queryIds.stream().map(String::valueOf).toList());
+        String restriction = "                AND v1.query_id IN (" + queryIdList + ")" +
+                restrictionClause(filter, queryIds.stream().map(i -> queryEmbeddings[i]).toList());
+        String candidates = "";
+        String queryParameters = parameters + " p (query_id, top_k, threshold)";
+        if (this.quantizeEmbeddings) {
+            // per query, the top_k * multiplier documents by approximate score on the int8 copy
+            candidates = " WITH p (query_id, top_k, threshold) AS " + parameters + "," +
+                    " c AS (SELECT s.query_id, s.doc_id FROM" +
+                    "        (SELECT v1.query_id query_id, v2.doc_id doc_id," +
+                    "                ROW_NUMBER() OVER (PARTITION BY v1.query_id ORDER BY " + approximateScoreExpression() + " DESC NULLS LAST) AS rank" +
+                    "         FROM " + getBatchQueryTableName() + " v1" +
+                    "         INNER JOIN " + getTableName() + " v2" +
+                    "         ON " + blockJoin() +
+                    restriction +
+                    "         GROUP BY v1.query_id, v2.doc_id) s" +
+                    "        INNER JOIN p ON s.query_id = p.query_id" +
+                    "        WHERE s.rank <= p.top_k * ?)";
+            restriction = "                INNER JOIN c ON c.query_id = v1.query_id AND c.doc_id = v2.doc_id";
+            queryParameters = "p";
+            args.add(this.quantizationCandidateMultiplier);
+        }
+
+        String selectSQL = candidates +
+                " SELECT " +
+                "        r.query_id," +
+                "        v3.doc_id," +
+                "        text," +
+                "        metadata," +
+                "        r.score" +
+                "  FROM" +
+                "        (SELECT query_id, doc_id, score," +
+                "                ROW_NUMBER() OVER (PARTITION BY query_id ORDER BY score DESC) AS rank" +
+                "         FROM" +
+                "                (SELECT" +
+                "                        v1.query_id query_id," +
+                "                        v2.doc_id doc_id," +
+                "                        " + scoreExpression() + " AS score" +
+                "                FROM" +
+                "                " + getBatchQueryTableName() + " v1" +
+                "                INNER JOIN" +
+                "               " + getTableName() + " v2" +
+                "                ON " + blockJoin() +
+                restriction +
+                "                GROUP BY v1.query_id, v2.doc_id" +
+                "                ) s" +
+                "        ) r" +
+                " INNER JOIN " + queryParameters +
+                " ON r.query_id = p.query_id" +
+                " INNER JOIN" +
+                " " + getContentTableName() + " v3" +
+                " ON r.doc_id = v3.doc_id" +
+                " WHERE r.rank <= p.top_k AND r.score >= p.threshold" +
+                " ORDER BY r.query_id, r.score DESC";
+
+        scoreQuery("batch", selectSQL, args.toArray(), (rs, rowNum) -> Map.entry(rs.getInt(1), toDocument(rs, 2)))
+                .forEach(row -> results.get(row.getKey()).add(row.getValue()));
     }
 
     private void insertSearchDocEmbeddings(UUID searchDocumentId, float[] embeddings) {
-        String insertTemp = "INSERT INTO "+ getQueryTableName() + " (doc_id, embedding_id, embedding) VALUES (?,?,?)";
+        YbEmbeddingLayout layout = this.layout;
+        String insertTemp = "INSERT INTO "+ getQueryTableName() + " (doc_id, " + layout.columns() + ") VALUES (?,?" + layout.valuePlaceholders() + ")";
         jdbcTemplate.batchUpdate(insertTemp, new BatchPreparedStatementSetter() {
 
             @Override
             public void setValues(PreparedStatement ps, int i) throws SQLException {
                 StatementCreatorUtils.setParameterValue(ps, 1, Integer.MIN_VALUE, searchDocumentId.toString());
                 StatementCreatorUtils.setParameterValue(ps, 2, Integer.MIN_VALUE, i);
-                StatementCreatorUtils.setParameterValue(ps, 3, Integer.MIN_VALUE, embeddings[i]);
+                for (int column = 0; column < layout.width; column++) {
+                    StatementCreatorUtils.setParameterValue(ps, 3 + column, Integer.MIN_VALUE, layout.value(embeddings, i, column));
+                }
             }
 
             @Override
             public int getBatchSize() {
-                return embeddings.length;
+                return layout.blocks(embeddings.length);
+            }
+        });
+    }
+
+    /**
+     * @param queryRelation a relation yielding the query vector as rows of the layout's block and value columns
+     * @param queryArgs the parameters bound inside {@code queryRelation}
+     */
+    private List<Document> getDocuments(String mode, String queryRelation, List<Object> queryArgs, float[] queryEmbedding, SearchRequest request) {
+        return getDocuments(mode, queryRelation, queryArgs, queryEmbedding, request, this.quantizeEmbeddings, true);
+    }
+
+    /**
+     * @param quantized pick {@code topK * candidateMultiplier} candidates by their int8 copy first,
+     *                  then score only those against the full-precision embeddings
+     * @param probe     in IVF mode, score only the clusters nearest to the query; without it every
+     *                  document is scored
+     */
+    private List<Document> getDocuments(String mode, String queryRelation, List<Object> queryArgs, float[] queryEmbedding, SearchRequest request,
+                                        boolean quantized, boolean probe) {
+        List<Object> args = new ArrayList<>(queryArgs);
+        String selectSQL = scoringStatement(queryRelation, queryEmbedding, request, quantized, probe, args);
+        long[] candidateCount = new long[1];
+        List<Document> query = scoreQuery(mode, selectSQL, args.toArray(), new RowMapper<Document>() {
+
+            @Override
+            public Document mapRow(ResultSet rs, int rowNum) throws SQLException {
+                candidateCount[0] = rs.getLong(5);
+                return toDocument(rs, 1);
             }
         });
+        this.metrics.searchCandidates(mode, candidateCount[0]);
+        return query;
     }
 
-    private List<Document> getDocuments(UUID searchDocumentId) {
-        String selectSQL = " SELECT " +
+    /**
+     * The vector search statement, returning {@code doc_id, text, metadata, score, candidate_count}.
+     *
+     * @param args holds the parameters bound inside {@code queryRelation} and receives the rest, in order
+     */
+    private String scoringStatement(String queryRelation, float[] queryEmbedding, SearchRequest request, boolean quantized, boolean probe, List<Object> args) {
+        String score = scoreExpression();
+        boolean hasThreshold = request.getSimilarityThreshold() > SearchRequest.SIMILARITY_THRESHOLD_ACCEPT_ALL;
+        String filter = restrictionClause(request.getFilterExpression(), probe ? List.of(queryEmbedding) : null);
+        String source = queryRelation + " v1 (" + this.layout.columns() + ")";
+        String candidates = "";
+        if (quantized) {
+            // the query vector is read by both passes, so it is bound once in a CTE
+            candidates = " WITH q (" + this.layout.columns() + ") AS (SELECT * FROM " + queryRelation + " r)," +
+                    " c AS (SELECT v2.doc_id doc_id" +
+                    "        FROM q v1" +
+                    "        INNER JOIN " + getTableName() + " v2" +
+                    "        ON " + blockJoin() +
+                    filter +
+                    "        GROUP BY v2.doc_id" +
+                    "        ORDER BY " + approximateScoreExpression() + " DESC NULLS LAST LIMIT ?)";
+            source = "q v1";
+            filter = "                WHERE v2.doc_id IN (SELECT doc_id FROM c)";
+            args.add(request.getTopK() * this.quantizationCandidateMultiplier);
+        }
+        String selectSQL = candidates +
+                " SELECT " +
+                "        v3.doc_id," +
                 "        text," +
                 "         metadata," +
-                "        score" +
+                "        score," +
+                "        candidate_count" +
                 "  FROM" +
                 "        (SELECT" +
                 "                v2.doc_id doc_id," +
-                "                SUM(v1.embedding * v2.embedding) /" +
-                "                        (SQRT(SUM(v1.embedding * v1.embedding)) *" +
-                "                                SQRT(SUM(v2.embedding * v2.embedding))) AS score" +
+                "                " + score + " AS score," +
+                "                COUNT(*) OVER () AS candidate_count" +
                 "                FROM" +
-                "                " + getQueryTableName() +" v1 " +
+                "                " + source +
                 "                INNER JOIN" +
                 "               " + getTableName() +" v2" +
-                "                ON v1.embedding_id = v2.embedding_id" +
-                "                where v1.doc_id = ?" +
+                "                ON " + blockJoin() +
+                filter +
                 "                GROUP BY v2.doc_id" +
-                "                ORDER BY score DESC LIMIT 4" +
+                (hasThreshold ? "                HAVING " + score + " >= ?" : "") +
+                "                ORDER BY score DESC LIMIT ?" +
                 "        ) v4" +
                 " INNER JOIN" +
                 " " + getContentTableName()+" v3" +
                 " ON v4.doc_id = v3.doc_id" +
                 " ORDER BY score DESC";
 
-        List<Document> query = jdbcTemplate.query(selectSQL, new RowMapper<Document>() {
-
-            @Override
-            public Document mapRow(ResultSet rs, int rowNum) throws SQLException {
-                Map<String, Object> result =
-                        null;
-                try {
-                    String res = rs.getString(2);
-                    logger.debug(res);
-                    result = new ObjectMapper().readValue(rs.getString(2), Map.class);
-                } catch (JsonProcessingException e) {
-                    throw new RuntimeException(e);
-                }
-                return new Document(rs.getString(1), result);
-            }
-        }, new Object[]{searchDocumentId.toString()});
-        return query;
+        if (hasThreshold) {
+            args.add(request.getSimilarityThreshold());
+        }
+        args.add(request.getTopK());
+        return selectSQL;
+    }
+
+    /**
+     * Run a scoring statement, timing the database work and the row mapping separately. A statement
+     * slower than the slow-search threshold has its plan logged.
+     */
+    private <T> List<T> scoreQuery(String mode, String sql, Object[] args, RowMapper<T> rowMapper) {
+        long[] mappingNanos = new long[1];
+        long start = System.nanoTime();
+        List<T> rows = this.jdbcTemplate.query(sql, (rs, rowNum) -> {
+            long mapStart = System.nanoTime();
+            T row = rowMapper.mapRow(rs, rowNum);
+            mappingNanos[0] += System.nanoTime() - mapStart;
+            return row;
+        }, args);
+        long elapsed = System.nanoTime() - start;
+        this.metrics.searchPhase(mode, "scoring", elapsed - mappingNanos[0]);
+        this.metrics.searchPhase(mode, "row_mapping", mappingNanos[0]);
+        if (this.slowSearchThreshold != null && elapsed >= this.slowSearchThreshold.toNanos()) {
+            logSlowSearch(mode, sql, args, elapsed);
+        }
+        return rows;
+    }
+
+    private void logSlowSearch(String mode, String sql, Object[] args, long nanos) {
+        logger.debug("slow search statement: {}", sql);
+        try {
+            List<String> plan = this.jdbcTemplate.query("EXPLAIN " + sql, (rs, rowNum) -> rs.getString(1), args);
+            logger.warn("{} search on {} took {} ms, over the {} ms threshold; plan:\n{}", mode, getTableName(),
+                    nanos / 1_000_000, this.slowSearchThreshold.toMillis(), String.join("\n", plan));
+        } catch (DataAccessException e) {
+            logger.warn("{} search on {} took {} ms, over the {} ms threshold; EXPLAIN failed: {}", mode, getTableName(),
+                    nanos / 1_000_000, this.slowSearchThreshold.toMillis(), e.getMessage());
+        }
+    }
+
+    private String scoreExpression() {
+        // stored and query vectors are unit length in normalized mode, so the dot product is the cosine
+        String dot = "SUM(" + this.layout.dot("v1", "v2") + ")";
+        return this.normalizeEmbeddings ? dot :
+                dot + " /" +
+                "                        (SQRT(SUM(" + this.layout.dot("v1", "v1") + ")) *" +
+                "                                SQRT(SUM(" + this.layout.dot("v2", "v2") + ")))";
+    }
+
+    private String blockJoin() {
+        return "v1." + this.layout.blockColumn + " = v2." + this.layout.blockColumn;
+    }
+
+    /**
+     * Cosine similarity against the int8 copy, up to the constant query norm. It is invariant to
+     * the per-document quantization scale, so the scale never has to be stored or joined.
+     */
+    private String approximateScoreExpression() {
+        return "SUM(" + this.layout.quantizedDot("v1", "v2") + ") / NULLIF(SQRT(SUM(" + this.layout.quantizedSquares("v2") + ")), 0)";
+    }
+
+    /**
+     * Prune the embeddings join before aggregating: to documents matching the filter expression, and
+     * in IVF mode to the clusters nearest to the query vectors.
+     *
+     * @param queryEmbeddings the query vectors to probe for, or null to scan every cluster
+     */
+    private String restrictionClause(Filter.Expression filterExpression, List<float[]> queryEmbeddings) {
+        List<String> predicates = new ArrayList<>();
+        if (filterExpression != null) {
+            predicates.add(filterPredicate("v2.doc_id", filterExpression));
+        }
+        if (this.ivfIndex != null && queryEmbeddings != null) {
+            String probes = this.ivfIndex.probePredicate(queryEmbeddings);
+            if (probes != null) {
+                predicates.add(probes);
+            }
+        }
+        return predicates.isEmpty() ? "" : "                WHERE " + String.join(" AND ", predicates);
+    }
+
+    /**
+     * @return a predicate restricting {@code docIdColumn} to documents matching the filter
+     * expression, or null without one
+     */
+    private String filterPredicate(String docIdColumn, Filter.Expression filterExpression) {
+        if (filterExpression == null) {
+            return null;
+        }
+        return docIdColumn + " IN (SELECT f.doc_id FROM " + getContentTableName() + " f WHERE "
+                + new YbFilterExpressionConverter(this.promotedMetadata, "f").convertExpression(filterExpression) + ")";
+    }
+
+    /**
+     * Map the {@code doc_id, text, metadata, score} columns starting at {@code column}.
+     */
+    private Document toDocument(ResultSet rs, int column) throws SQLException {
+        return new Document(rs.getString(column), rs.getString(column + 1), metadata(rs, column));
+    }
+
+    /**
+     * Map the {@code doc_id, text, metadata, score, hybrid_score} columns of a hybrid search.
+     */
+    private Document toHybridDocument(ResultSet rs, int rowNum) throws SQLException {
+        YbLazyMetadata metadata = metadata(rs, 1);
+        metadata.putWithoutDecoding(HYBRID_SCORE_METADATA_KEY, rs.getDouble(5));
+        return new Document(rs.getString(1), rs.getString(2), metadata);
+    }
+
+    /**
+     * The stored metadata plus score and distance, decoded only when the caller reads it.
+     */
+    private YbLazyMetadata metadata(ResultSet rs, int column) throws SQLException {
+        YbLazyMetadata metadata = new YbLazyMetadata(this.metadataReader, rs.getString(column + 2));
+        double similarity = rs.getDouble(column + 3);
+        metadata.putWithoutDecoding(SCORE_METADATA_KEY, similarity);
+        metadata.putWithoutDecoding(DISTANCE_METADATA_KEY, 1 - similarity);
+        return metadata;
+    }
+
+    Map<String, Object> parseMetadata(String json) {
+        try {
+            return this.metadataReader.readValue(json);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     private void cleanUpTempTable(UUID searchDocumentId) {
@@ -245,68 +1208,949 @@ public class YellowBrickVectorStore extends AbstractObservationVectorStore imple
         String tempTableCreate = String.format(
                 " CREATE TEMPORARY TABLE  %s ( \n" +
                         "     doc_id UUID,\n" +
-                        "     embedding_id SMALLINT,\n" +
-                        "      embedding FLOAT)\n" +
+                        "     %s)\n" +
                         "  ON COMMIT DROP\n"+
-                        "  DISTRIBUTE REPLICATE\n", getQueryTableName());
-        jdbcTemplate.execute(tempTableCreate);
+                        "  DISTRIBUTE REPLICATE\n", getQueryTableName(), this.layout.columnDefinitions("FLOAT"));
+        jdbcTemplate.execute(ddl(tempTableCreate));
+
+    }
+
+    /**
+     * Embed a search query the same way {@link #similaritySearch(SearchRequest)} does, including the
+     * query-embedding cache, so callers can reuse the vector without a second model call.
+     */
+    public float[] embedQuery(String query) {
+        return getQueryEmbedding(query);
+    }
+
+    /**
+     * Register a callback that runs after documents have been added to or deleted from this store.
+     */
+    public void addContentChangeListener(Runnable listener) {
+        this.contentChangeListeners.add(listener);
+    }
+
+    private void fireContentChanged() {
+        YbSearchCoalescer coalescer = this.searchCoalescer;
+        if (coalescer != null) {
+            coalescer.clear();
+        }
+        this.termIndex.invalidate();
+        this.contentChangeListeners.forEach(Runnable::run);
+    }
+
+    /**
+     * Register a listener for ingest progress; it is called from the embedding and writer threads
+     * of every {@link #add(List)}.
+     */
+    public void addIngestListener(IngestListener listener) {
+        this.ingestListeners.add(listener);
+    }
+
+    /**
+     * Bring the chunks of one source up to date with {@code documents}, embedding only what changed.
+     * Chunks are matched by a hash of their text and metadata: new hashes are embedded and inserted,
+     * known ones are kept and stamped with {@code version}, and stored chunks whose hash is no longer
+     * produced by the source are deleted. Identical chunks within the source are stored once.
+     * <p>
+     * Every stored chunk is tagged with {@link #SOURCE_METADATA_KEY} and {@link #SOURCE_VERSION_METADATA_KEY};
+     * the caller's documents are left as they are.
+     */
+    public SyncResult sync(String source, String version, List<Document> documents) {
+        SyncPlan plan = planSync(source, version, documents);
+        // add before deleting, so searches never see the source missing
+        if (!plan.added().isEmpty()) {
+            add(plan.added());
+        }
+        return finishSync(plan);
+    }
+
+    /**
+     * What {@link #sync(String, String, List)} will do, worked out against the hashes stored now.
+     * Batches of {@code added} that were written by an earlier, interrupted sync are stored under
+     * their hash and so are planned as unchanged, which is what lets an ingestion resume.
+     */
+    record SyncPlan(String source, String version, List<Document> added, int unchanged, List<String> deleted) {
+    }
+
+    SyncPlan planSync(String source, String version, List<Document> documents) {
+        Map<String, Document> byHash = new LinkedHashMap<>();
+        for (Document document : documents) {
+            Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+            metadata.put(SOURCE_METADATA_KEY, source);
+            metadata.put(SOURCE_VERSION_METADATA_KEY, version);
+            Document tagged = new Document(document.getId(), document.getContent(), metadata);
+            byHash.putIfAbsent(YbWriteBatch.contentHash(tagged), tagged);
+        }
+        Map<String, String> stored = new HashMap<>();
+        this.jdbcTemplate.query("SELECT doc_id, content_hash FROM " + getContentTableName() + " WHERE source = ?",
+                (RowCallbackHandler) rs -> stored.put(rs.getString(1), rs.getString(2)), source);
+
+        Set<String> storedHashes = new HashSet<>(stored.values());
+        List<Document> added = byHash.entrySet().stream()
+                .filter(entry -> !storedHashes.contains(entry.getKey()))
+                .map(Map.Entry::getValue)
+                .toList();
+        Set<String> kept = new HashSet<>();
+        List<String> deleted = new ArrayList<>();
+        stored.forEach((docId, hash) -> {
+            // a hash stored twice (from before sync existed) keeps only its first chunk
+            if (hash != null && byHash.containsKey(hash) && kept.add(hash)) {
+                return;
+            }
+            deleted.add(docId);
+        });
+        return new SyncPlan(source, version, added, kept.size(), deleted);
+    }
+
+    /**
+     * Delete the chunks a sync no longer produces and stamp the rest with its version, in both the
+     * {@code source_version} column and the stored metadata. Runs once every chunk in
+     * {@code plan.added()} has been written.
+     */
+    SyncResult finishSync(SyncPlan plan) {
+        this.transactionTemplate.executeWithoutResult(status -> {
+            deleteDocuments(plan.deleted());
+            restampSourceVersion(plan.source(), plan.version());
+        });
+        removeFromIndexes(plan.deleted());
+        if (!plan.deleted().isEmpty()) {
+            fireContentChanged();
+        }
+        SyncResult result = new SyncResult(plan.added().size(), plan.unchanged(), plan.deleted().size());
+        logger.info("synced source {} at version {} into {}: {}", plan.source(), plan.version(), getTableName(), result);
+        return result;
+    }
+
+    private void restampSourceVersion(String source, String version) {
+        List<Object[]> rows = new ArrayList<>();
+        this.jdbcTemplate.query("SELECT doc_id, metadata FROM " + getContentTableName()
+                + " WHERE source = ? AND (source_version IS NULL OR source_version <> ?)", (RowCallbackHandler) rs -> {
+            Map<String, Object> metadata = new HashMap<>(parseMetadata(rs.getString(2)));
+            metadata.put(SOURCE_VERSION_METADATA_KEY, version);
+            rows.add(new Object[]{toJson(metadata), version, rs.getObject(1)});
+        }, source, version);
+        if (!rows.isEmpty()) {
+            this.jdbcTemplate.batchUpdate("UPDATE " + getContentTableName() + " SET metadata = ?, source_version = ? WHERE doc_id = ?", rows);
+        }
+    }
 
+    /**
+     * @return the version every chunk of {@code source} was last synced at, or empty if the source
+     * has no chunks or its chunks disagree (for example after an interrupted sync)
+     */
+    public Optional<String> getSourceVersion(String source) {
+        List<String> versions = this.jdbcTemplate.queryForList(
+                "SELECT DISTINCT source_version FROM " + getContentTableName() + " WHERE source = ?", String.class, source);
+        return versions.size() == 1 ? Optional.ofNullable(versions.get(0)) : Optional.empty();
+    }
+
+    /**
+     * Delete documents from the embeddings and content tables with one statement per table: the ids
+     * are staged in a temporary table, loaded by COPY where the driver supports it, and both deletes
+     * join against it. Must run inside a transaction.
+     *
+     * @return the number of documents deleted from the content table
+     */
+    private int deleteDocuments(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String staging = getStagingTableName();
+        jdbcTemplate.execute(ddl(String.format(
+                " CREATE TEMPORARY TABLE  %s ( \n" +
+                        "     doc_id UUID NOT NULL)\n" +
+                        "  ON COMMIT DROP\n" +
+                        "  DISTRIBUTE ON (doc_id)\n", staging)));
+        Boolean copied = this.jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            if (!supportsCopy(con)) {
+                return false;
+            }
+            copyIn(con, "COPY " + staging + " (doc_id) FROM STDIN", YbCopyRowReader.idRows(ids));
+            return true;
+        });
+        if (!Boolean.TRUE.equals(copied)) {
+            List<String> stagedIds = new ArrayList<>(ids);
+            jdbcTemplate.batchUpdate("INSERT INTO " + staging + " (doc_id) VALUES (?)", new BatchPreparedStatementSetter() {
+
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    StatementCreatorUtils.setParameterValue(ps, 1, Integer.MIN_VALUE, UUID.fromString(stagedIds.get(i)));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return stagedIds.size();
+                }
+            });
+        }
+        int embeddingRows = this.jdbcTemplate.update("DELETE FROM " + getTableName() + " WHERE doc_id IN (SELECT doc_id FROM " + staging + ")");
+        int documents = this.jdbcTemplate.update("DELETE FROM " + getContentTableName() + " WHERE doc_id IN (SELECT doc_id FROM " + staging + ")");
+        if (this.termIndexEnabled) {
+            this.jdbcTemplate.update("DELETE FROM " + this.termIndex.tableName + " WHERE doc_id IN (SELECT doc_id FROM " + staging + ")");
+        }
+        // dropped now rather than at commit, so a transaction can stage more than once
+        this.jdbcTemplate.execute("DROP TABLE " + staging);
+        logger.debug("deleted {} documents and {} embedding rows from {}", documents, embeddingRows, getTableName());
+        return documents;
     }
 
     private float[] getQueryEmbedding(String query) {
+        if (this.queryEmbeddingCache != null) {
+            return this.queryEmbeddingCache.get(this.embeddingModelIdentity, query, () -> this.embeddingModel.embed(query));
+        }
         float[] embedding = this.embeddingModel.embed(query);
         return embedding;
     }
 
+    /**
+     * Embed several queries, sending only the cache misses to the embedding model in one call.
+     */
+    private List<float[]> getQueryEmbeddings(List<String> queries) {
+        if (this.queryEmbeddingCache == null) {
+            return this.embeddingModel.embed(queries);
+        }
+        List<String> missing = queries.stream()
+                .filter(query -> this.queryEmbeddingCache.peek(this.embeddingModelIdentity, query) == null)
+                .distinct()
+                .toList();
+        Map<String, float[]> embedded = new HashMap<>();
+        if (!missing.isEmpty()) {
+            List<float[]> embeddings = this.embeddingModel.embed(missing);
+            for (int i = 0; i < missing.size(); i++) {
+                embedded.put(missing.get(i), embeddings.get(i));
+            }
+        }
+        return queries.stream()
+                .map(query -> this.queryEmbeddingCache.get(this.embeddingModelIdentity, query,
+                        () -> embedded.containsKey(query) ? embedded.get(query) : this.embeddingModel.embed(query)))
+                .toList();
+    }
+
+    /**
+     * Report a search made outside {@link #similaritySearch(SearchRequest)} as the same query observation.
+     */
+    private List<Document> observeQuery(SearchRequest request, Supplier<List<Document>> search) {
+        VectorStoreObservationContext context = queryObservationContext(request);
+        return queryObservation(context).observe(() -> {
+            List<Document> documents = search.get();
+            context.setQueryResponse(documents);
+            return documents;
+        });
+    }
+
+    private VectorStoreObservationContext queryObservationContext(SearchRequest request) {
+        return createObservationContextBuilder(VectorStoreObservationContext.Operation.QUERY.value())
+                .withQueryRequest(request)
+                .build();
+    }
+
+    private Observation queryObservation(VectorStoreObservationContext context) {
+        return VectorStoreObservationDocumentation.AI_VECTOR_STORE.observation(this.observationConvention,
+                DEFAULT_OBSERVATION_CONVENTION, () -> context, this.observationRegistry);
+    }
+
     @Override
     public VectorStoreObservationContext.Builder createObservationContextBuilder(String operationName) {
-        //TODO add operationName to what is part of the observation context.  see https://github.com/spring-projects/spring-ai/issues/1204
-        return VectorStoreObservationContext.builder(VectorStoreProvider.PG_VECTOR.value(), operationName)
-                .withCollectionName(this.vectorTableName);
+        return VectorStoreObservationContext.builder(PROVIDER, operationName)
+                .withCollectionName(this.vectorTableName)
+                .withFieldName("embedding")
+                .withSimilarityMetric(VectorStoreSimilarityMetric.COSINE.value());
+    }
+
+
+    /**
+     * @param removeExistingVectorStoreTable drop every table of this store before creating the schema
+     */
+    public void setRemoveExistingVectorStoreTable(boolean removeExistingVectorStoreTable) {
+        this.removeExistingVectorStoreTable = removeExistingVectorStoreTable;
+    }
+
+    public void setSqlDialect(SqlDialect sqlDialect) {
+        this.sqlDialect = sqlDialect;
+    }
+
+    /**
+     * Record the per-phase search and ingest meters, see {@link YbStoreMetrics}, in {@code meterRegistry}.
+     */
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.metrics = new YbStoreMetrics(meterRegistry, this.vectorTableName);
+    }
+
+    /**
+     * Log the {@code EXPLAIN} plan of every scoring statement that takes at least
+     * {@code slowSearchThreshold}, or nothing with null.
+     */
+    public void setSlowSearchThreshold(Duration slowSearchThreshold) {
+        this.slowSearchThreshold = slowSearchThreshold;
+    }
+
+    /**
+     * Answer unfiltered vector searches from an in-memory copy of the embeddings: every document is
+     * scored in the JVM, on {@code parallelism} threads for large collections, and only the text and
+     * metadata of the top k are read from the database. The copy is loaded by
+     * {@link #afterPropertiesSet()} and kept current by this store's adds and deletes; rows written by
+     * other processes show up after {@link #reloadHotMirror()}. It takes {@code 4 * dimensions}
+     * bytes per document outside the heap, so it is meant for collections that fit comfortably in memory.
+     * <p>
+     * The store owns the pool it creates here and shuts it down in {@link #destroy()} or when the hot
+     * mirror is set again, so stores sharing it through {@link #getHotMirrorPool()} must be done first.
+     */
+    public void setHotMirror(boolean enabled, int parallelism) {
+        ForkJoinPool pool = enabled ? new ForkJoinPool(parallelism) : null;
+        setHotMirror(enabled, pool);
+        this.ownedHotMirrorPool = pool;
+    }
+
+    /**
+     * Like {@link #setHotMirror(boolean, int)}, scanning on {@code pool}, which stores may share
+     * so that several mirrors do not each hold their own threads. The caller keeps ownership of
+     * {@code pool}.
+     */
+    public void setHotMirror(boolean enabled, ForkJoinPool pool) {
+        shutdownOwnedHotMirrorPool();
+        this.hotMirror = enabled ? new YbHotMirror(pool) : null;
+    }
+
+    private void shutdownOwnedHotMirrorPool() {
+        if (this.ownedHotMirrorPool != null) {
+            this.ownedHotMirrorPool.shutdown();
+            this.ownedHotMirrorPool = null;
+        }
+    }
+
+    /**
+     * @return the pool the hot mirror scans on, or null if it is not enabled
+     */
+    public ForkJoinPool getHotMirrorPool() {
+        return this.hotMirror == null ? null : this.hotMirror.pool();
+    }
+
+    /**
+     * Reload the hot mirror from the embeddings table.
+     *
+     * @return the number of documents mirrored
+     */
+    public int reloadHotMirror() {
+        if (this.hotMirror == null) {
+            throw new IllegalStateException("Hot mirror is not enabled for table: " + getTableName());
+        }
+        this.hotMirror.clear();
+        Map<String, float[]> loaded = new LinkedHashMap<>();
+        YbStoredEmbeddings.forEach(this.jdbcTemplate, getTableName(), this.layout, null, new Object[0], (docId, embedding) -> {
+            loaded.put(docId, embedding);
+            if (loaded.size() == 10000) {
+                this.hotMirror.putAll(loaded);
+                loaded.clear();
+            }
+        });
+        this.hotMirror.putAll(loaded);
+        int size = this.hotMirror.size();
+        logger.info("Mirrored {} embeddings of table {} in {} MB off heap", size, getTableName(),
+                this.hotMirror.memoryBytes() >> 20);
+        return size;
+    }
+
+    /**
+     * Answer unfiltered vector searches from an HNSW graph persisted in {@code file} (plus
+     * {@code file.graph}), then read the text and metadata of the hits from the content table. The
+     * graph is reopened by {@link #afterPropertiesSet()}, or rebuilt there when it is missing, was
+     * built with another {@code m} or disagrees with the content table on the document count. Adds
+     * and deletes update it and flush it to disk. A replaced or deleted document leaves a dead node
+     * behind; run {@link #rebuildHnswIndex()} once many have piled up. The hot mirror, when enabled,
+     * takes precedence since it is exact.
+     *
+     * @param m              links per node and layer, twice that on layer 0; more improves recall and costs memory
+     * @param efConstruction candidates considered when linking a new node; more builds a better graph, slower
+     * @param efSearch       candidates kept while searching, at least topK; more improves recall, slower
+     */
+    public void setHnsw(Path file, int m, int efConstruction, int efSearch) {
+        this.hnswIndex = new YbHnswIndex(file, m, efConstruction, efSearch);
+    }
+
+    /**
+     * Rebuild the HNSW index from the embeddings table, dropping the nodes of deleted documents.
+     *
+     * @return the number of documents indexed
+     */
+    public int rebuildHnswIndex() {
+        if (this.hnswIndex == null) {
+            throw new IllegalStateException("HNSW is not enabled for table: " + getTableName());
+        }
+        this.hnswIndex.clear();
+        Map<String, float[]> loaded = new LinkedHashMap<>();
+        YbStoredEmbeddings.forEach(this.jdbcTemplate, getTableName(), this.layout, null, new Object[0], (docId, embedding) -> {
+            loaded.put(docId, embedding);
+            if (loaded.size() == 10000) {
+                this.hnswIndex.addAll(loaded);
+                loaded.clear();
+            }
+        });
+        this.hnswIndex.addAll(loaded);
+        this.hnswIndex.flush();
+        int size = this.hnswIndex.size();
+        logger.info("Built HNSW index of table {} over {} embeddings", getTableName(), size);
+        return size;
+    }
+
+    private void openHnswIndex() {
+        boolean loaded = this.hnswIndex.load();
+        Integer documents = this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + getContentTableName(), Integer.class);
+        if (loaded && documents != null && documents == this.hnswIndex.size()) {
+            logger.info("Opened HNSW index of table {} with {} documents", getTableName(), documents);
+            return;
+        }
+        logger.info("Rebuilding HNSW index of table {}: {}", getTableName(),
+                loaded ? this.hnswIndex.size() + " indexed, " + documents + " stored" : "no usable index");
+        rebuildHnswIndex();
+    }
+
+    /**
+     * @param streamFetchSize rows fetched per round trip by {@link #similaritySearchStream(SearchRequest)}
+     */
+    public void setStreamFetchSize(int streamFetchSize) {
+        this.streamFetchSize = streamFetchSize;
+    }
+
+    public void setIngestMode(IngestMode ingestMode) {
+        this.ingestMode = ingestMode;
+    }
+
+    public void setCopyBufferSize(int copyBufferSize) {
+        this.copyBufferSize = copyBufferSize;
+    }
+
+    /**
+     * @param embeddingConcurrency embedding batches sent to the model at once; keep this within the
+     *                             provider's rate limit
+     * @param writerConcurrency    parallel JDBC writers, each holding one connection while it writes
+     * @param queueCapacity        embedded write batches that may wait for a writer before embedding stalls
+     */
+    public void setIngestConcurrency(int embeddingConcurrency, int writerConcurrency, int queueCapacity) {
+        replaceIngestPipeline(new YbIngestPipeline(embeddingConcurrency, writerConcurrency, queueCapacity,
+                this.ingestPipeline.maxAttempts, this.ingestPipeline.retryBackoff));
+    }
+
+    /**
+     * @param maxAttempts  tries per embedding call and per write batch before the ingest fails
+     * @param retryBackoff wait before the first retry, doubled for each further one
+     */
+    public void setIngestRetry(int maxAttempts, Duration retryBackoff) {
+        replaceIngestPipeline(new YbIngestPipeline(this.ingestPipeline.embeddingConcurrency, this.ingestPipeline.writerConcurrency,
+                this.ingestPipeline.queueCapacity, maxAttempts, retryBackoff));
+    }
+
+    private void replaceIngestPipeline(YbIngestPipeline ingestPipeline) {
+        YbIngestPipeline replaced = this.ingestPipeline;
+        this.ingestPipeline = ingestPipeline;
+        replaced.close();
+    }
+
+    /**
+     * @param queryEmbeddingCache cache in front of the embedding model for search queries, or null to disable
+     */
+    public void setQueryEmbeddingCache(QueryEmbeddingCache queryEmbeddingCache) {
+        this.queryEmbeddingCache = queryEmbeddingCache;
+    }
+
+    public QueryEmbeddingCache getQueryEmbeddingCache() {
+        return this.queryEmbeddingCache;
+    }
+
+    /**
+     * Collapse concurrent identical searches into one embedding call and one SQL execution whose
+     * result every caller receives. Searches are identical when their query text, topK, similarity
+     * threshold and filter expression are equal.
+     *
+     * @param window         how long a finished result keeps being shared; zero shares it only with
+     *                       searches that arrived while it was running
+     * @param normalizeQuery compare query texts after Unicode and whitespace normalization
+     */
+    public void setSearchCoalescing(Duration window, boolean normalizeQuery) {
+        setSearchCoalescing(window, YbSearchCoalescer.defaultKey(normalizeQuery));
+    }
+
+    /**
+     * @param key searches with equal keys share one execution; it must cover everything that
+     *            changes the result, or callers receive results for a different request
+     */
+    public void setSearchCoalescing(Duration window, Function<SearchRequest, Object> key) {
+        this.searchCoalescer = new YbSearchCoalescer(window, key, this.observationRegistry);
+    }
+
+    /**
+     * @return searches answered with another search's result since coalescing was enabled
+     */
+    public long getCoalescedSearchCount() {
+        YbSearchCoalescer coalescer = this.searchCoalescer;
+        return coalescer == null ? 0 : coalescer.getCollapsedCount();
+    }
+
+    /**
+     * Enable IVF approximate search: documents are partitioned into {@code nlist} clusters and a
+     * search only scores the {@code nprobe} clusters nearest to the query.
+     *
+     * @param trainingSampleSize how many stored documents k-means is trained on
+     */
+    public void setIvf(int nlist, int nprobe, int trainingSampleSize, int maxIterations) {
+        this.ivfIndex = new YbIvfIndex(this.jdbcTemplate, getTableName(), this.layout, nlist, nprobe);
+        this.ivfTrainingSampleSize = trainingSampleSize;
+        this.ivfMaxIterations = maxIterations;
+    }
+
+    /**
+     * Re-run k-means over a random sample of the stored embeddings, replace the centroids and
+     * reassign every document to its nearest one. Use this after the first load and whenever the
+     * data has drifted enough that recall suffers.
+     */
+    public void recluster() {
+        if (this.ivfIndex == null) {
+            throw new IllegalStateException("IVF is not enabled for table: " + getTableName());
+        }
+        List<float[]> sample = new ArrayList<>();
+        YbStoredEmbeddings.forEach(this.jdbcTemplate, getTableName(), this.layout,
+                "doc_id IN (SELECT doc_id FROM " + getContentTableName() + " ORDER BY RANDOM() LIMIT ?)",
+                new Object[]{this.ivfTrainingSampleSize},
+                (docId, embedding) -> sample.add(VectorMath.normalize(embedding)));
+        if (sample.isEmpty()) {
+            logger.info("Nothing to cluster in table: {}", getTableName());
+            return;
+        }
+        float[][] centroids = KMeans.train(sample, this.ivfIndex.nlist, this.ivfMaxIterations, 42L);
+        this.transactionTemplate.executeWithoutResult(status -> this.ivfIndex.store(centroids));
+        this.ivfIndex.use(centroids);
+    }
+
+    private void clusterOnceEnoughDocuments() {
+        Integer documents = this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + getContentTableName(), Integer.class);
+        // k-means needs a few points per centroid to be meaningful
+        if (documents != null && documents >= 4 * this.ivfIndex.nlist) {
+            logger.info("Clustering {} documents of table {} into {} IVF lists", documents, getTableName(), this.ivfIndex.nlist);
+            recluster();
+        }
+    }
+
+    public void setQueryMode(QueryMode queryMode) {
+        this.queryMode = queryMode;
+    }
+
+    /**
+     * @param promotedMetadata metadata keys to store as typed content-table columns, mapped to
+     *                         their SQL type (for example {@code page_number -> INTEGER}); only
+     *                         these keys can be used in search filter expressions
+     */
+    public void setPromotedMetadata(Map<String, String> promotedMetadata) {
+        this.promotedMetadata = new YbPromotedMetadata(promotedMetadata);
+    }
+
+    public void setNormalizeEmbeddings(boolean normalizeEmbeddings) {
+        this.normalizeEmbeddings = normalizeEmbeddings;
+    }
+
+    /**
+     * Store embeddings in this layout. Switching an existing store to {@link StorageLayout#PACKED}
+     * reads and writes the packed table only; run {@link #migrateToPackedLayout()} to fill it.
+     */
+    public void setStorageLayout(StorageLayout storageLayout) {
+        this.storageLayout = storageLayout;
+        updateLayout();
+    }
+
+    /**
+     * @param packedBlockWidth dimensions per row in the {@link StorageLayout#PACKED} layout
+     */
+    public void setPackedBlockWidth(int packedBlockWidth) {
+        this.packedBlockWidth = packedBlockWidth;
+        updateLayout();
+    }
+
+    private void updateLayout() {
+        this.layout = this.storageLayout == StorageLayout.PACKED ? YbEmbeddingLayout.packed(this.packedBlockWidth) : YbEmbeddingLayout.ROW_PER_DIMENSION;
+        this.inlineQueryRelations.clear();
+        if (this.ivfIndex != null) {
+            this.ivfIndex = new YbIvfIndex(this.jdbcTemplate, getTableName(), this.layout, this.ivfIndex.nlist, this.ivfIndex.nprobe);
+        }
+    }
+
+    /**
+     * Copy embeddings from the one-row-per-dimension table {@code <table>} into the packed table of
+     * the configured {@link StorageLayout#PACKED} layout. Documents already in the packed table are
+     * skipped, so the routine can be re-run after an interrupted migration or to pick up documents
+     * written to the old table in the meantime. The old table is left in place; drop it once
+     * searches against the packed table have been checked.
+     * <p>
+     * Quantized copies and IVF clusters are rebuilt in the new layout rather than copied.
+     *
+     * @return the number of documents that were migrated
+     */
+    public int migrateToPackedLayout() {
+        if (!this.layout.isPacked()) {
+            throw new IllegalStateException("Storage layout is not PACKED for table: " + this.vectorTableName);
+        }
+        String source = YbEmbeddingLayout.ROW_PER_DIMENSION.tableName(this.vectorTableName);
+        int width = this.layout.width;
+        String countDocuments = "SELECT COUNT(DISTINCT doc_id) FROM " + getTableName();
+        Integer migrated = this.transactionTemplate.execute(status -> {
+            Integer before = this.jdbcTemplate.queryForObject(countDocuments, Integer.class);
+            int rows = this.jdbcTemplate.update("INSERT INTO " + getTableName() + " (doc_id, " + this.layout.columns() + ")" +
+                    " SELECT v.doc_id, v.embedding_id / " + width + ", " + this.layout.pivotFromRows("v") +
+                    " FROM " + source + " v" +
+                    " WHERE v.doc_id NOT IN (SELECT doc_id FROM " + getTableName() + ")" +
+                    " GROUP BY v.doc_id, v.embedding_id / " + width);
+            logger.info("migrated {} embedding blocks from {} to {}", rows, source, getTableName());
+            Integer after = this.jdbcTemplate.queryForObject(countDocuments, Integer.class);
+            return (after == null ? 0 : after) - (before == null ? 0 : before);
+        });
+        if (this.quantizeEmbeddings) {
+            quantizeStoredEmbeddings();
+        }
+        if (this.ivfIndex != null) {
+            recluster();
+        }
+        return migrated == null ? 0 : migrated;
+    }
+
+    /**
+     * Maintain the term index used by hybrid search on every add and delete. Documents written while
+     * it was off are not in it; run {@link #rebuildTermIndex()} after turning it on for a populated store.
+     */
+    public void setTermIndex(boolean termIndexEnabled) {
+        this.termIndexEnabled = termIndexEnabled;
+    }
+
+    /**
+     * Make {@link #similaritySearch(SearchRequest)} a hybrid search with these options, or a pure
+     * vector search again with null. Turns the term index on.
+     */
+    public void setHybridSearch(HybridOptions hybridOptions) {
+        this.hybridOptions = hybridOptions;
+        if (hybridOptions != null) {
+            this.termIndexEnabled = true;
+        }
+    }
+
+    /**
+     * Rebuild the term index from the text in the content table, a page of documents per
+     * transaction. Hybrid searches running meanwhile only see the documents indexed so far.
+     *
+     * @return the number of documents indexed
+     */
+    public int rebuildTermIndex() {
+        this.jdbcTemplate.update("DELETE FROM " + this.termIndex.tableName);
+        int indexed = 0;
+        String after = null;
+        while (true) {
+            List<Document> page = this.jdbcTemplate.query("SELECT doc_id, text FROM " + getContentTableName()
+                            + (after != null ? " WHERE doc_id > ?" : "") + " ORDER BY doc_id LIMIT ?",
+                    (rs, rowNum) -> new Document(rs.getString(1), rs.getString(2), new HashMap<>()),
+                    after != null ? new Object[]{UUID.fromString(after), this.maxDocumentBatchSize} : new Object[]{this.maxDocumentBatchSize});
+            if (page.isEmpty()) {
+                break;
+            }
+            this.transactionTemplate.executeWithoutResult(status -> writeTerms(page));
+            indexed += page.size();
+            after = page.get(page.size() - 1).getId();
+        }
+        this.termIndex.invalidate();
+        logger.info("indexed the terms of {} documents into {}", indexed, this.termIndex.tableName);
+        return indexed;
+    }
+
+    /**
+     * Store an int8-quantized copy of every embedding next to the full-precision one. Searches then
+     * pick {@code topK * candidateMultiplier} candidates on the quantized copy and rescore only
+     * those at full precision; use {@link #estimateQuantizationRecall(List, int)} to pick the multiplier.
+     */
+    public void setQuantizeEmbeddings(boolean quantizeEmbeddings) {
+        this.quantizeEmbeddings = quantizeEmbeddings;
+    }
+
+    public void setQuantizationCandidateMultiplier(int quantizationCandidateMultiplier) {
+        this.quantizationCandidateMultiplier = quantizationCandidateMultiplier;
+    }
+
+    /**
+     * Fill in the quantized copy for embedding rows written before quantization was enabled.
+     * Rows that already have one are left alone, so the routine can be re-run safely.
+     *
+     * @return the number of embedding rows that were quantized
+     */
+    public int quantizeStoredEmbeddings() {
+        addMissingQuantizedColumns();
+        // same scheme as VectorMath.quantize: one scale per document, max |v| maps to 127
+        int quantized = this.jdbcTemplate.update(String.format(
+                "UPDATE %s SET " + this.layout.quantizeAssignments(getTableName(), "s.scale") +
+                        " FROM (SELECT v.doc_id, MAX(" + this.layout.maxAbs("v") + ") / 127 AS scale FROM %s v" +
+                        "       GROUP BY v.doc_id HAVING COUNT(v." + this.layout.firstQuantizedColumn() + ") < COUNT(*)) s" +
+                        " WHERE %s.doc_id = s.doc_id",
+                getTableName(), getTableName(), getTableName()));
+        logger.info("quantized {} embedding rows in table: {}", quantized, getTableName());
+        return quantized;
+    }
+
+    /**
+     * Measure the recall cost of quantized search: run every sample query once exactly, at full
+     * precision over every document, and once as searches run, through the quantized first pass
+     * and in IVF mode the probed clusters only, and compare the two top-{@code k} lists.
+     *
+     * @return mean recall@k of the quantized search, between 0 and 1
+     */
+    public double estimateQuantizationRecall(List<String> sampleQueries, int k) {
+        if (!this.quantizeEmbeddings) {
+            throw new IllegalStateException("Quantization is not enabled for table: " + getTableName());
+        }
+        double total = 0;
+        for (String query : sampleQueries) {
+            float[] embedding = getQueryEmbedding(query);
+            float[] queryEmbedding = this.normalizeEmbeddings ? VectorMath.normalize(embedding) : embedding;
+            SearchRequest request = SearchRequest.query(query).withTopK(k);
+            String relation = inlineQueryRelation(queryEmbedding.length);
+            List<Object> args = inlineQueryArgs(queryEmbedding);
+            Set<String> exact = new HashSet<>();
+            getDocuments("inline", relation, args, queryEmbedding, request, false, false).forEach(document -> exact.add(document.getId()));
+            if (exact.isEmpty()) {
+                total += 1;
+                continue;
+            }
+            long found = getDocuments("inline", relation, args, queryEmbedding, request, true, true).stream()
+                    .filter(document -> exact.contains(document.getId()))
+                    .count();
+            total += (double) found / exact.size();
+        }
+        double recall = sampleQueries.isEmpty() ? 1 : total / sampleQueries.size();
+        logger.info("quantized search recall@{} over {} queries with candidate multiplier {}: {}",
+                k, sampleQueries.size(), this.quantizationCandidateMultiplier, recall);
+        return recall;
+    }
 
+    /**
+     * Convert an existing store to normalized storage: record each document's L2 norm in the
+     * content table and rescale its embedding rows to unit length. Documents that already have a
+     * norm are left alone, so the routine can be re-run safely after an interrupted migration.
+     *
+     * @return the number of documents that were normalized
+     */
+    public int normalizeStoredEmbeddings() {
+        if (!columnExists(getContentTableName(), "embedding_norm")) {
+            this.jdbcTemplate.execute("ALTER TABLE " + getContentTableName() + " ADD COLUMN embedding_norm FLOAT");
+        }
+        String normTable = this.localTableName + "_norms";
+        Integer normalized = this.transactionTemplate.execute(status -> {
+            this.jdbcTemplate.execute(String.format(
+                    " CREATE TEMPORARY TABLE %s ON COMMIT DROP AS\n" +
+                            "  SELECT v.doc_id, SQRT(SUM(" + this.layout.dot("v", "v") + ")) AS norm\n" +
+                            "  FROM %s v INNER JOIN %s c ON v.doc_id = c.doc_id\n" +
+                            "  WHERE c.embedding_norm IS NULL\n" +
+                            "  GROUP BY v.doc_id", normTable, getTableName(), getContentTableName()));
+            this.jdbcTemplate.update(String.format(
+                    "UPDATE %s SET " + this.layout.divideAssignments(getTableName(), "n.norm") + " FROM %s n WHERE %s.doc_id = n.doc_id AND n.norm > 0",
+                    getTableName(), normTable, getTableName()));
+            return this.jdbcTemplate.update(String.format(
+                    "UPDATE %s SET embedding_norm = n.norm FROM %s n WHERE %s.doc_id = n.doc_id",
+                    getContentTableName(), normTable, getContentTableName()));
+        });
+        logger.info("normalized {} documents in table: {}", normalized, getTableName());
+        return normalized == null ? 0 : normalized;
+    }
 
+    private String ddl(String statement) {
+        return YbDdl.render(statement, this.sqlDialect);
     }
 
+    // checked first, since CREATE SCHEMA IF NOT EXISTS still needs the CREATE privilege on the database
+    private boolean schemaExists() {
+        Integer count = this.jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.schemata WHERE schema_name = ?", Integer.class, this.schemaName);
+        return count != null && count > 0;
+    }
 
-    private String getVectorTableName() {
-        return this.vectorTableName;
+    private boolean columnExists(String table, String column) {
+        Integer count = this.schemaName == null
+                ? this.jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.columns WHERE table_name = ? AND column_name = ?",
+                Integer.class, table, column)
+                : this.jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.columns WHERE table_schema = ? AND table_name = ? AND column_name = ?",
+                Integer.class, this.schemaName, table.substring(this.schemaName.length() + 1), column);
+        return count != null && count > 0;
     }
 
     @Override
     public void afterPropertiesSet() throws Exception {
-        logger.info("Initializing PGVectorStore schema for table: {}", this.getVectorTableName());
+        logger.info("Initializing YellowBrickVectorStore schema for table: {}", this.vectorTableName);
 
         if (!this.initializeSchema) {
             logger.debug("Skipping the schema initialization for the table: {}", this.getTableName());
         } else {
+            if (this.schemaName != null && !schemaExists()) {
+                logger.info("Creating schema: {}", this.schemaName);
+                this.jdbcTemplate.execute("CREATE SCHEMA " + this.schemaName);
+            }
             if (this.removeExistingVectorStoreTable) {
-                this.jdbcTemplate.execute(String.format("DROP TABLE IF EXISTS %s", this.getTableName()));
+                for (String table : getStoreTableNames()) {
+                    logger.info("Dropping existing table: {}", table);
+                    this.jdbcTemplate.execute(String.format("DROP TABLE IF EXISTS %s", table));
+                }
             }
 
-            String c = getTableName() + "_pk_doc_id";
+            String c = this.localTableName + "_pk_doc_id";
 
-            this.jdbcTemplate.execute(String.format("  " +
+            this.jdbcTemplate.execute(ddl(String.format("  " +
                             "              CREATE TABLE IF NOT EXISTS %s (\n" +
                             "                doc_id UUID NOT NULL,\n" +
                             "                text VARCHAR(60000) NOT NULL,\n" +
                             "                metadata VARCHAR(1024) NOT NULL,\n" +
+                            "                embedding_norm FLOAT,\n" +
+                            "                content_hash VARCHAR(64),\n" +
+                            "                source VARCHAR(1024),\n" +
+                            "                source_version VARCHAR(256),\n" +
+                            "%s" +
                             "                CONSTRAINT %s PRIMARY KEY (doc_id))\n" +
                             "                DISTRIBUTE ON (doc_id) SORT ON (doc_id)"
-                    , this.getContentTableName(), c));
+                    , this.getContentTableName(), this.promotedMetadata.columnDefinitions(), c)));
+            addMissingSyncColumns();
+            addMissingPromotedColumns();
 
-            this.jdbcTemplate.execute(String.format("  " +
+            // distributed like the content table, so joining a document's embedding rows to its content stays on one worker
+            this.jdbcTemplate.execute(ddl(String.format("  " +
                             " CREATE TABLE IF NOT EXISTS %s (\n" +
                             " doc_id UUID NOT NULL,\n" +
-                            " embedding_id SMALLINT NOT NULL,\n" +
-                            " embedding FLOAT NOT NULL)\n"
+                            " %s,\n" +
+                            " cluster_id INTEGER,\n" +
+                            " %s)\n" +
+                            " DISTRIBUTE ON (doc_id)"
+
+                    , getTableName(), this.layout.columnDefinitions("FLOAT NOT NULL"), this.layout.quantizedColumnDefinitions())));
+            this.ingestCheckpoints.createSchema(this.sqlDialect);
+            this.termIndex.createSchema(this.sqlDialect);
+
+        }
+        if (this.normalizeEmbeddings) {
+            checkNormalizedStorage();
+        }
+        if (this.quantizeEmbeddings) {
+            if (this.initializeSchema) {
+                addMissingQuantizedColumns();
+            }
+            checkQuantizedStorage();
+        }
+        if (this.ivfIndex != null) {
+            if (this.initializeSchema) {
+                if (!columnExists(getTableName(), "cluster_id")) {
+                    this.jdbcTemplate.execute("ALTER TABLE " + getTableName() + " ADD COLUMN cluster_id INTEGER");
+                }
+                this.ivfIndex.createSchema(this.sqlDialect);
+            }
+            this.ivfIndex.load();
+        }
+        if (this.hotMirror != null) {
+            reloadHotMirror();
+        }
+        if (this.hnswIndex != null) {
+            openHnswIndex();
+        }
+    }
+
+    /**
+     * Stop the ingest threads and the hot mirror's pool, if this store created it.
+     */
+    @Override
+    public void destroy() {
+        this.ingestPipeline.close();
+        shutdownOwnedHotMirrorPool();
+    }
+
+    /**
+     * Content tables created before incremental sync existed get its columns here; their rows are
+     * re-embedded once by the first {@link #sync(String, String, List)} of their source.
+     */
+    private void addMissingSyncColumns() {
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("content_hash", "VARCHAR(64)");
+        columns.put("source", "VARCHAR(1024)");
+        columns.put("source_version", "VARCHAR(256)");
+        columns.forEach((column, type) -> {
+            if (!columnExists(getContentTableName(), column)) {
+                this.jdbcTemplate.execute("ALTER TABLE " + getContentTableName() + " ADD COLUMN " + column + " " + type);
+            }
+        });
+    }
+
+    /**
+     * Every table this store may have created, in both layouts.
+     */
+    private List<String> getStoreTableNames() {
+        List<String> tables = new ArrayList<>();
+        for (YbEmbeddingLayout storeLayout : List.of(YbEmbeddingLayout.ROW_PER_DIMENSION, YbEmbeddingLayout.packed(1))) {
+            String embeddings = storeLayout.tableName(this.vectorTableName);
+            tables.add(embeddings);
+            tables.add(embeddings + "_centroids");
+        }
+        tables.add(getContentTableName());
+        tables.add(this.ingestCheckpoints.tableName);
+        tables.add(this.termIndex.tableName);
+        return tables;
+    }
+
+    /**
+     * Promoted keys configured after the content table was created get their columns added here.
+     * Rows written before that keep NULL in the new column until they are re-ingested.
+     */
+    private void addMissingPromotedColumns() {
+        for (String key : this.promotedMetadata.keys()) {
+            String column = YbPromotedMetadata.column(key);
+            if (!columnExists(getContentTableName(), column)) {
+                logger.warn("Adding promoted metadata column {} to {}; existing rows will have NULL until re-ingested", column, getContentTableName());
+                this.jdbcTemplate.execute("ALTER TABLE " + getContentTableName() + " ADD COLUMN " + column + " " + this.promotedMetadata.type(key));
+            }
+        }
+    }
 
-                    , getTableName()));
+    private void checkNormalizedStorage() {
+        if (!columnExists(getContentTableName(), "embedding_norm")) {
+            logger.warn("Normalized embeddings are enabled but {} has no embedding_norm column; run normalizeStoredEmbeddings()", getContentTableName());
+            return;
+        }
+        Integer pending = this.jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM " + getContentTableName() + " WHERE embedding_norm IS NULL", Integer.class);
+        if (pending != null && pending > 0) {
+            logger.warn("{} documents in {} are not normalized yet; run normalizeStoredEmbeddings() before searching", pending, getTableName());
+        }
+    }
+
+    /**
+     * Tables created before quantization was enabled get their quantized columns here, left NULL
+     * until {@link #quantizeStoredEmbeddings()} fills them in.
+     */
+    private void addMissingQuantizedColumns() {
+        if (!columnExists(getTableName(), this.layout.firstQuantizedColumn())) {
+            for (String column : this.layout.quantizedColumnList()) {
+                this.jdbcTemplate.execute("ALTER TABLE " + getTableName() + " ADD COLUMN " + column + " SMALLINT");
+            }
+        }
+    }
 
+    private void checkQuantizedStorage() {
+        if (!columnExists(getTableName(), this.layout.firstQuantizedColumn())) {
+            logger.warn("Quantized embeddings are enabled but {} has no quantized columns; run quantizeStoredEmbeddings()", getTableName());
+            return;
+        }
+        Integer pending = this.jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT doc_id) FROM " + getTableName() + " WHERE " + this.layout.firstQuantizedColumn() + " IS NULL", Integer.class);
+        if (pending != null && pending > 0) {
+            logger.warn("{} documents in {} have no quantized embedding and will not be found; run quantizeStoredEmbeddings()", pending, getTableName());
         }
     }
 
+    YbIngestCheckpoints getIngestCheckpoints() {
+        return this.ingestCheckpoints;
+    }
+
+    /**
+     * The embeddings table of the configured layout.
+     */
     private String getTableName() {
-        return this.vectorTableName;
+        return this.layout.tableName(this.vectorTableName);
     }
 
 
@@ -315,6 +2159,14 @@ public class YellowBrickVectorStore extends AbstractObservationVectorStore imple
     }
 
     private String getQueryTableName() {
-        return this.vectorTableName + "_query";
+        return this.localTableName + "_query";
+    }
+
+    private String getStagingTableName() {
+        return this.localTableName + "_ids";
+    }
+
+    private String getBatchQueryTableName() {
+        return this.localTableName + "_queries";
     }
 }
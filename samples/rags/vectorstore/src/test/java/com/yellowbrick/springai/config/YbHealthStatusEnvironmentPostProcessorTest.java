@@ -0,0 +1,35 @@
+package com.yellowbrick.springai.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class YbHealthStatusEnvironmentPostProcessorTest {
+
+    @Test
+    void ranksIndexingAboveUpAndServesItWithOk() {
+        StandardEnvironment environment = new StandardEnvironment();
+
+        new YbHealthStatusEnvironmentPostProcessor().postProcessEnvironment(environment, null);
+
+        assertEquals("DOWN,OUT_OF_SERVICE,INDEXING,UP,UNKNOWN", environment.getProperty("management.endpoint.health.status.order"));
+        assertEquals("200", environment.getProperty("management.endpoint.health.status.http-mapping.indexing"));
+    }
+
+    @Test
+    void leavesApplicationSettingsInPlace() {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("application", Map.of(
+                "management.endpoint.health.status.order", "DOWN,INDEXING,UP",
+                "management.endpoint.health.status.http-mapping.indexing", 503)));
+
+        new YbHealthStatusEnvironmentPostProcessor().postProcessEnvironment(environment, null);
+
+        assertEquals("DOWN,INDEXING,UP", environment.getProperty("management.endpoint.health.status.order"));
+        assertEquals("503", environment.getProperty("management.endpoint.health.status.http-mapping.indexing"));
+    }
+}
@@ -0,0 +1,99 @@
+package com.yellowbrick.springai.vectorstore;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KMeansTest {
+
+    @Test
+    void nearestCountReturnsCentroidsBestFirst() {
+        Random random = new Random(7);
+        float[][] centroids = new float[50][];
+        for (int c = 0; c < centroids.length; c++) {
+            centroids[c] = randomUnit(random, 16);
+        }
+        for (int q = 0; q < 20; q++) {
+            float[] query = randomUnit(random, 16);
+            int[] expected = IntStream.range(0, centroids.length).boxed()
+                    .sorted(Comparator.comparingDouble((Integer c) -> VectorMath.dot(centroids[c], query)).reversed())
+                    .limit(5)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+
+            assertArrayEquals(expected, KMeans.nearest(centroids, query, 5));
+            assertEquals(expected[0], KMeans.nearest(centroids, query));
+        }
+    }
+
+    @Test
+    void nearestCountIsCappedAtTheNumberOfCentroids() {
+        float[][] centroids = {{1, 0}, {0, 1}, {-1, 0}};
+
+        assertArrayEquals(new int[]{1, 0, 2}, KMeans.nearest(centroids, new float[]{0.1f, 1}, 10));
+    }
+
+    @Test
+    void separatesWellSeparatedClusters() {
+        Random random = new Random(3);
+        float[][] axes = {{1, 0, 0}, {0, 1, 0}, {0, 0, 1}};
+        List<float[]> points = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            float[] axis = axes[i % 3];
+            float[] point = new float[3];
+            for (int d = 0; d < 3; d++) {
+                point[d] = axis[d] + 0.05f * (float) random.nextGaussian();
+            }
+            points.add(VectorMath.normalize(point));
+        }
+
+        float[][] centroids = KMeans.train(points, 3, 20, 42);
+
+        for (float[] axis : axes) {
+            assertTrue(VectorMath.dot(centroids[KMeans.nearest(centroids, axis)], axis) > 0.99);
+        }
+        assertArrayEquals(centroids[0], KMeans.train(points, 3, 20, 42)[0]);
+    }
+
+    @Test
+    void reseedsEmptyClustersInsteadOfKeepingZeroCentroids() {
+        // more centroids than distinct points: duplicates seed clusters that win no points
+        List<float[]> points = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            points.add(new float[]{1, 0});
+        }
+        points.add(new float[]{0, 1});
+
+        for (long seed = 0; seed < 20; seed++) {
+            float[][] centroids = KMeans.train(points, 4, 10, seed);
+
+            assertEquals(4, centroids.length);
+            for (float[] centroid : centroids) {
+                assertEquals(1.0, VectorMath.norm(centroid), 1e-5);
+            }
+        }
+    }
+
+    @Test
+    void capsKAtTheNumberOfPoints() {
+        List<float[]> points = List.of(new float[]{1, 0}, new float[]{0, 1});
+
+        assertEquals(2, KMeans.train(points, 8, 10, 1).length);
+    }
+
+    private static float[] randomUnit(Random random, int dimensions) {
+        float[] vector = new float[dimensions];
+        for (int d = 0; d < dimensions; d++) {
+            vector[d] = (float) random.nextGaussian();
+        }
+        return VectorMath.normalize(vector);
+    }
+}
@@ -0,0 +1,144 @@
+package com.yellowbrick.springai.vectorstore;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryEmbeddingCacheTest {
+    private static final String MODEL = "model";
+
+    private final AtomicInteger embedCalls = new AtomicInteger();
+
+    @Test
+    void computesOnceAndServesRepeatsFromTheCache() {
+        QueryEmbeddingCache cache = cache(10, Long.MAX_VALUE, null, QueryEmbeddingCache.EvictionPolicy.LRU);
+
+        float[] first = get(cache, "what is a vector store?");
+        float[] second = get(cache, "  what is a\tvector   store?  ");
+
+        assertSame(first, second);
+        assertEquals(1, this.embedCalls.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void keysIncludeTheModel() {
+        QueryEmbeddingCache cache = cache(10, Long.MAX_VALUE, null, QueryEmbeddingCache.EvictionPolicy.LRU);
+
+        get(cache, "query");
+        cache.get("other-model", "query", () -> new float[]{this.embedCalls.incrementAndGet()});
+
+        assertEquals(2, this.embedCalls.get());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void expiresEntriesAfterTheTtl() throws InterruptedException {
+        QueryEmbeddingCache cache = cache(10, Long.MAX_VALUE, Duration.ofMillis(20), QueryEmbeddingCache.EvictionPolicy.LRU);
+
+        get(cache, "query");
+        assertNotNull(cache.peek(MODEL, "query"));
+        Thread.sleep(50);
+
+        assertNull(cache.peek(MODEL, "query"));
+        assertEquals(0, cache.estimatedBytes());
+        get(cache, "query");
+        assertEquals(2, this.embedCalls.get());
+    }
+
+    @Test
+    void zeroTtlKeepsEntriesUntilEvicted() throws InterruptedException {
+        QueryEmbeddingCache cache = cache(10, Long.MAX_VALUE, Duration.ZERO, QueryEmbeddingCache.EvictionPolicy.LRU);
+
+        get(cache, "query");
+        Thread.sleep(5);
+
+        assertNotNull(cache.peek(MODEL, "query"));
+    }
+
+    @Test
+    void lruEvictsTheLeastRecentlyUsedEntry() {
+        QueryEmbeddingCache cache = cache(2, Long.MAX_VALUE, null, QueryEmbeddingCache.EvictionPolicy.LRU);
+
+        get(cache, "a");
+        get(cache, "b");
+        get(cache, "a");
+        get(cache, "c");
+
+        assertNotNull(cache.peek(MODEL, "a"));
+        assertNull(cache.peek(MODEL, "b"));
+        assertNotNull(cache.peek(MODEL, "c"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    void fifoEvictsTheOldestEntryEvenIfRecentlyUsed() {
+        QueryEmbeddingCache cache = cache(2, Long.MAX_VALUE, null, QueryEmbeddingCache.EvictionPolicy.FIFO);
+
+        get(cache, "a");
+        get(cache, "b");
+        get(cache, "a");
+        get(cache, "c");
+
+        assertNull(cache.peek(MODEL, "a"));
+        assertNotNull(cache.peek(MODEL, "b"));
+        assertNotNull(cache.peek(MODEL, "c"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    void evictsToStayUnderTheByteCap() {
+        QueryEmbeddingCache probe = cache(10, Long.MAX_VALUE, null, QueryEmbeddingCache.EvictionPolicy.LRU);
+        get(probe, "a");
+        long entryBytes = probe.estimatedBytes();
+        QueryEmbeddingCache cache = cache(100, 2 * entryBytes, null, QueryEmbeddingCache.EvictionPolicy.LRU);
+
+        get(cache, "a");
+        get(cache, "b");
+        get(cache, "c");
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.estimatedBytes() <= 2 * entryBytes);
+        assertNull(cache.peek(MODEL, "a"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    void doesNotCacheAnEntryLargerThanTheByteCap() {
+        QueryEmbeddingCache cache = cache(10, 16, null, QueryEmbeddingCache.EvictionPolicy.LRU);
+
+        float[] embedding = get(cache, "query");
+
+        assertNotNull(embedding);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.estimatedBytes());
+    }
+
+    @Test
+    void clearDropsEverything() {
+        QueryEmbeddingCache cache = cache(10, Long.MAX_VALUE, null, QueryEmbeddingCache.EvictionPolicy.LRU);
+        get(cache, "a");
+
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.estimatedBytes());
+    }
+
+    private QueryEmbeddingCache cache(long maxEntries, long maxBytes, Duration ttl, QueryEmbeddingCache.EvictionPolicy policy) {
+        return new QueryEmbeddingCache(maxEntries, maxBytes, ttl, policy, ObservationRegistry.NOOP);
+    }
+
+    private float[] get(QueryEmbeddingCache cache, String query) {
+        return cache.get(MODEL, query, () -> new float[]{this.embedCalls.incrementAndGet(), 0, 0, 0});
+    }
+}
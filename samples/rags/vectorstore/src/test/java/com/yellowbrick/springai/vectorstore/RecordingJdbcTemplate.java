@@ -0,0 +1,280 @@
+package com.yellowbrick.springai.vectorstore;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * A JdbcTemplate without a database: every statement is recorded with its arguments, queries
+ * answer from rows registered with {@link #onQuery(String, Function)}, and updates report the
+ * counts registered with {@link #onUpdate(String, ToIntFunction)}. The connection handed to
+ * {@link ConnectionCallback}s does not speak the copy protocol, so stores fall back to batched
+ * inserts.
+ */
+class RecordingJdbcTemplate extends JdbcTemplate {
+    /**
+     * One statement as issued; a batch update has one {@code rows} entry per batch row.
+     */
+    record Statement(String sql, Object[] args, List<Object[]> rows) {
+        boolean startsWith(String prefix) {
+            return this.sql.stripLeading().startsWith(prefix);
+        }
+    }
+
+    private record Rule<T>(String fragment, T answer) {
+    }
+
+    private final List<Statement> statements = new ArrayList<>();
+    private final List<Rule<Function<Object[], List<Object[]>>>> queries = new ArrayList<>();
+    private final List<Rule<ToIntFunction<Object[]>>> updates = new ArrayList<>();
+    private final List<Class<?>> wrapperChecks = new ArrayList<>();
+
+    /**
+     * Answer queries containing {@code fragment} with {@code rows}, computed from their arguments.
+     * Later rules win over earlier ones.
+     */
+    RecordingJdbcTemplate onQuery(String fragment, Function<Object[], List<Object[]>> rows) {
+        this.queries.add(0, new Rule<>(fragment, rows));
+        return this;
+    }
+
+    RecordingJdbcTemplate onUpdate(String fragment, ToIntFunction<Object[]> count) {
+        this.updates.add(0, new Rule<>(fragment, count));
+        return this;
+    }
+
+    synchronized List<Statement> statements() {
+        return List.copyOf(this.statements);
+    }
+
+    synchronized List<Statement> statements(String prefix) {
+        return this.statements.stream().filter(statement -> statement.startsWith(prefix)).toList();
+    }
+
+    synchronized void clear() {
+        this.statements.clear();
+        this.wrapperChecks.clear();
+    }
+
+    /**
+     * @return the classes the store asked the connection whether it wraps
+     */
+    synchronized List<Class<?>> wrapperChecks() {
+        return List.copyOf(this.wrapperChecks);
+    }
+
+    @Override
+    public void execute(String sql) {
+        record(sql, new Object[0], null);
+    }
+
+    @Override
+    public <T> T execute(ConnectionCallback<T> action) {
+        try {
+            return action.doInConnection(connection());
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public int update(String sql, Object... args) {
+        record(sql, args, null);
+        for (Rule<ToIntFunction<Object[]>> rule : this.updates) {
+            if (sql.contains(rule.fragment())) {
+                return rule.answer().applyAsInt(args);
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public int[] batchUpdate(String sql, BatchPreparedStatementSetter setter) {
+        List<Object[]> rows = new ArrayList<>();
+        try {
+            for (int i = 0; i < setter.getBatchSize(); i++) {
+                TreeMap<Integer, Object> parameters = new TreeMap<>();
+                setter.setValues(preparedStatement(parameters), i);
+                Object[] row = new Object[parameters.isEmpty() ? 0 : parameters.lastKey()];
+                parameters.forEach((index, value) -> row[index - 1] = value);
+                rows.add(row);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        record(sql, new Object[0], rows);
+        int[] counts = new int[rows.size()];
+        Arrays.fill(counts, 1);
+        return counts;
+    }
+
+    @Override
+    public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+        record(sql, new Object[0], List.copyOf(batchArgs));
+        int[] counts = new int[batchArgs.size()];
+        Arrays.fill(counts, 1);
+        return counts;
+    }
+
+    @Override
+    public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+        List<Object[]> rows = rows(sql, args);
+        List<T> mapped = new ArrayList<>(rows.size());
+        int[] cursor = {-1};
+        ResultSet rs = resultSet(rows, cursor);
+        try {
+            while (++cursor[0] < rows.size()) {
+                mapped.add(rowMapper.mapRow(rs, cursor[0]));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return mapped;
+    }
+
+    @Override
+    public void query(String sql, RowCallbackHandler handler, Object... args) {
+        List<Object[]> rows = rows(sql, args);
+        int[] cursor = {-1};
+        ResultSet rs = resultSet(rows, cursor);
+        try {
+            while (++cursor[0] < rows.size()) {
+                handler.processRow(rs);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void query(String sql, RowCallbackHandler handler) {
+        query(sql, handler, new Object[0]);
+    }
+
+    @Override
+    public <T> T queryForObject(String sql, RowMapper<T> rowMapper) {
+        return queryForObject(sql, rowMapper, new Object[0]);
+    }
+
+    @Override
+    public <T> T queryForObject(String sql, RowMapper<T> rowMapper, Object... args) {
+        List<T> mapped = query(sql, rowMapper, args);
+        return mapped.isEmpty() ? null : mapped.get(0);
+    }
+
+    @Override
+    public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+        List<Object[]> rows = rows(sql, args);
+        return rows.isEmpty() ? null : convert(rows.get(0)[0], requiredType);
+    }
+
+    @Override
+    public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+        return rows(sql, args).stream().map(row -> convert(row[0], elementType)).toList();
+    }
+
+    private List<Object[]> rows(String sql, Object[] args) {
+        record(sql, args, null);
+        for (Rule<Function<Object[], List<Object[]>>> rule : this.queries) {
+            if (sql.contains(rule.fragment())) {
+                return rule.answer().apply(args);
+            }
+        }
+        return List.of();
+    }
+
+    private synchronized void record(String sql, Object[] args, List<Object[]> rows) {
+        this.statements.add(new Statement(sql, args == null ? new Object[0] : args.clone(), rows));
+    }
+
+    private synchronized void wrapperCheck(Class<?> type) {
+        this.wrapperChecks.add(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T convert(Object value, Class<T> type) {
+        if (value == null || type.isInstance(value)) {
+            return (T) value;
+        }
+        if (value instanceof Number number) {
+            if (type == Integer.class) {
+                return (T) Integer.valueOf(number.intValue());
+            }
+            if (type == Long.class) {
+                return (T) Long.valueOf(number.longValue());
+            }
+            if (type == Double.class) {
+                return (T) Double.valueOf(number.doubleValue());
+            }
+        }
+        if (type == String.class) {
+            return (T) value.toString();
+        }
+        throw new IllegalArgumentException("Cannot convert " + value + " to " + type.getName());
+    }
+
+    private Connection connection() {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            if (method.getName().equals("isWrapperFor")) {
+                wrapperCheck((Class<?>) args[0]);
+                return false;
+            }
+            throw new SQLFeatureNotSupportedException(method.getName());
+        });
+    }
+
+    private static PreparedStatement preparedStatement(Map<Integer, Object> parameters) {
+        return (PreparedStatement) Proxy.newProxyInstance(RecordingJdbcTemplate.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                        parameters.put(index, method.getName().equals("setNull") ? null : args[1]);
+                        return null;
+                    }
+                    throw new SQLFeatureNotSupportedException(method.getName());
+                });
+    }
+
+    private static final Map<String, Function<Object, Object>> GETTERS = Map.of(
+            "getString", value -> value == null ? null : value.toString(),
+            "getInt", value -> value == null ? 0 : ((Number) value).intValue(),
+            "getLong", value -> value == null ? 0L : ((Number) value).longValue(),
+            "getDouble", value -> value == null ? 0.0 : ((Number) value).doubleValue(),
+            "getFloat", value -> value == null ? 0f : ((Number) value).floatValue(),
+            "getBoolean", value -> value != null && (Boolean) value,
+            "getObject", value -> value);
+
+    private static ResultSet resultSet(List<Object[]> rows, int[] cursor) {
+        Object[] last = new Object[1];
+        return (ResultSet) Proxy.newProxyInstance(RecordingJdbcTemplate.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    Function<Object, Object> getter = GETTERS.get(method.getName());
+                    if (getter != null && args != null && args.length == 1 && args[0] instanceof Integer column) {
+                        last[0] = rows.get(cursor[0])[column - 1];
+                        return getter.apply(last[0]);
+                    }
+                    if (method.getName().equals("wasNull")) {
+                        return last[0] == null;
+                    }
+                    if (method.getName().equals("close")) {
+                        return null;
+                    }
+                    throw new SQLFeatureNotSupportedException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,99 @@
+package com.yellowbrick.springai.vectorstore;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embeds texts registered with {@link #with(String, float...)} as given and any other text as a
+ * vector seeded from its hash, counting the calls the store makes.
+ */
+final class StubEmbeddingModel implements EmbeddingModel {
+    private final int dimensions;
+    private final Map<String, float[]> vectors = new ConcurrentHashMap<>();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    StubEmbeddingModel(int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    StubEmbeddingModel with(String text, float... vector) {
+        this.vectors.put(text, vector);
+        return this;
+    }
+
+    /**
+     * @return calls to any of the {@code embed} methods
+     */
+    int calls() {
+        return this.calls.get();
+    }
+
+    float[] vector(String text) {
+        float[] vector = this.vectors.get(text);
+        if (vector != null) {
+            return vector.clone();
+        }
+        SplittableRandom random = new SplittableRandom(text.hashCode());
+        float[] seeded = new float[this.dimensions];
+        for (int i = 0; i < seeded.length; i++) {
+            seeded[i] = (float) (random.nextDouble() * 2 - 1);
+        }
+        return seeded;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        this.calls.incrementAndGet();
+        List<Embedding> embeddings = new ArrayList<>();
+        for (int i = 0; i < request.getInstructions().size(); i++) {
+            embeddings.add(new Embedding(vector(request.getInstructions().get(i)), i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(String text) {
+        this.calls.incrementAndGet();
+        return vector(text);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getContent());
+    }
+
+    @Override
+    public List<float[]> embed(List<String> texts) {
+        this.calls.incrementAndGet();
+        return texts.stream().map(this::vector).toList();
+    }
+
+    @Override
+    public List<float[]> embed(List<Document> documents, EmbeddingOptions options, BatchingStrategy batchingStrategy) {
+        this.calls.incrementAndGet();
+        List<float[]> embeddings = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            float[] embedding = vector(document.getContent());
+            document.setEmbedding(embedding);
+            embeddings.add(embedding);
+        }
+        return embeddings;
+    }
+
+    @Override
+    public int dimensions() {
+        return this.dimensions;
+    }
+}
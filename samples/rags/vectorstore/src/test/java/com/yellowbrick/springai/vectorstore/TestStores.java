@@ -0,0 +1,62 @@
+package com.yellowbrick.springai.vectorstore;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+
+/**
+ * Stores wired to a {@link RecordingJdbcTemplate}, for tests of the statements they issue.
+ */
+final class TestStores {
+
+    /**
+     * Runs transaction callbacks as they are, since the recording template has no connection to commit.
+     */
+    static final PlatformTransactionManager NO_TRANSACTIONS = new PlatformTransactionManager() {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    };
+
+    private TestStores() {
+    }
+
+    /**
+     * A store over {@code vector_store} that writes every document in one batch, with the schema not initialized.
+     */
+    static YellowBrickVectorStore store(RecordingJdbcTemplate jdbcTemplate, EmbeddingModel embeddingModel) {
+        return store("vector_store", jdbcTemplate, embeddingModel);
+    }
+
+    static YellowBrickVectorStore store(String tableName, RecordingJdbcTemplate jdbcTemplate, EmbeddingModel embeddingModel) {
+        return new YellowBrickVectorStore(tableName, jdbcTemplate, embeddingModel, false, ObservationRegistry.NOOP, null,
+                documents -> List.of(documents), 1000, NO_TRANSACTIONS);
+    }
+
+    /**
+     * The single statement issued that contains {@code fragment}.
+     */
+    static RecordingJdbcTemplate.Statement only(RecordingJdbcTemplate jdbcTemplate, String fragment) {
+        List<RecordingJdbcTemplate.Statement> matching = jdbcTemplate.statements().stream()
+                .filter(statement -> statement.sql().contains(fragment))
+                .toList();
+        if (matching.size() != 1) {
+            throw new AssertionError("expected one statement containing '" + fragment + "' but got " + matching.size());
+        }
+        return matching.get(0);
+    }
+}
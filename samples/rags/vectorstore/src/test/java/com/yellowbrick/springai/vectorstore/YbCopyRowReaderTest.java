@@ -0,0 +1,115 @@
+package com.yellowbrick.springai.vectorstore;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class YbCopyRowReaderTest {
+
+    @Test
+    void escapesCopyTextSpecialCharacters() {
+        StringBuilder row = new StringBuilder();
+        YbCopyRowReader.appendEscaped(row, "a\\b\tc\nd\re 'f' \"g\"");
+        assertEquals("a\\\\b\\tc\\nd\\re 'f' \"g\"", row.toString());
+    }
+
+    @Test
+    void contentRowsEscapeTextAndMetadataAndWriteNullsAsBackslashN() throws IOException {
+        Document document = document("doc-1", "line one\nline\ttwo \\ end", Map.of("source", "a.pdf"));
+        YbWriteBatch batch = YbWriteBatch.of(List.of(document), false, new YbPromotedMetadata(Map.of("page", "INT")), null, false);
+
+        String rows = readAll(YbCopyRowReader.contentRows(batch, metadata -> "{\"k\":\"v\\u0009\"}\t"), 4096);
+
+        String[] columns = rows.substring(0, rows.length() - 1).split("\t", -1);
+        assertEquals("doc-1", columns[0]);
+        assertEquals("line one\\nline\\ttwo \\\\ end", columns[1]);
+        assertEquals("{\"k\":\"v\\\\u0009\"}\\t", columns[2]);
+        assertEquals(batch.contentHashes[0], columns[3]);
+        assertEquals("a.pdf", columns[4]);
+        assertEquals("\\N", columns[5]);
+        assertEquals("\\N", columns[6]);
+        assertEquals(7, columns.length);
+        assertEquals('\n', rows.charAt(rows.length() - 1));
+    }
+
+    @Test
+    void contentRowsIncludeTheNormWhenNormalized() throws IOException {
+        Document document = document("doc-1", "text", Map.of());
+        document.setEmbedding(new float[]{3, 4});
+        YbWriteBatch batch = YbWriteBatch.of(List.of(document), true, new YbPromotedMetadata(Map.of()), null, false);
+
+        String[] columns = readAll(YbCopyRowReader.contentRows(batch, metadata -> "{}"), 4096).split("\t", -1);
+
+        assertEquals("5.0", columns[3]);
+    }
+
+    @Test
+    void readsTheSameRowsWhateverTheBufferSize() throws IOException {
+        List<String> ids = List.of("first", "with\ttab", "", "last\\");
+        String expected = "first\nwith\\ttab\n\nlast\\\\\n";
+        for (int bufferSize : new int[]{1, 2, 3, 7, 64}) {
+            assertEquals(expected, readAll(YbCopyRowReader.idRows(ids), bufferSize), "buffer size " + bufferSize);
+        }
+    }
+
+    @Test
+    void returnsEndOfStreamForNoRowsAndAfterClose() throws IOException {
+        assertEquals(-1, YbCopyRowReader.idRows(List.of()).read(new char[8], 0, 8));
+
+        YbCopyRowReader reader = YbCopyRowReader.idRows(List.of("a", "b"));
+        reader.close();
+        assertEquals(-1, reader.read(new char[8], 0, 8));
+    }
+
+    @Test
+    void embeddingRowsPadTheLastPackedBlockWithZeros() throws IOException {
+        Document document = document("doc-1", "text", Map.of());
+        document.setEmbedding(new float[]{1, 2, 3});
+        YbWriteBatch batch = YbWriteBatch.of(List.of(document), false, new YbPromotedMetadata(Map.of()), null, false);
+
+        String rows = readAll(YbCopyRowReader.embeddingRows(batch, YbEmbeddingLayout.packed(2)), 5);
+
+        assertEquals("doc-1\t0\t1.0\t2.0\ndoc-1\t1\t3.0\t0.0\n", rows);
+    }
+
+    @Test
+    void embeddingRowsUseOneRowPerDimensionByDefault() throws IOException {
+        Document document = document("doc-1", "text", Map.of());
+        document.setEmbedding(new float[]{0.5f, -1});
+        YbWriteBatch batch = YbWriteBatch.of(List.of(document), false, new YbPromotedMetadata(Map.of()), null, false);
+
+        String rows = readAll(YbCopyRowReader.embeddingRows(batch, YbEmbeddingLayout.ROW_PER_DIMENSION), 4096);
+
+        assertEquals("doc-1\t0\t0.5\ndoc-1\t1\t-1.0\n", rows);
+    }
+
+    @Test
+    void termRowsCarryTheDocumentLength() throws IOException {
+        Document document = document("doc-1", "text", Map.of());
+        Map<String, Integer> terms = Map.of("vector", 2);
+
+        String rows = readAll(YbCopyRowReader.termRows(List.of(document), List.of(terms)), 4096);
+
+        assertEquals("doc-1\tvector\t2\t" + YbTermIndex.length(terms) + "\n", rows);
+    }
+
+    private static Document document(String id, String content, Map<String, Object> metadata) {
+        return new Document(id, content, new HashMap<>(metadata));
+    }
+
+    private static String readAll(Reader reader, int bufferSize) throws IOException {
+        StringBuilder all = new StringBuilder();
+        char[] buffer = new char[bufferSize];
+        for (int n = reader.read(buffer, 0, bufferSize); n != -1; n = reader.read(buffer, 0, bufferSize)) {
+            all.append(buffer, 0, n);
+        }
+        return all.toString();
+    }
+}
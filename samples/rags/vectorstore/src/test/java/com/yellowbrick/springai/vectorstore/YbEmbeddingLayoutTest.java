@@ -0,0 +1,59 @@
+package com.yellowbrick.springai.vectorstore;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class YbEmbeddingLayoutTest {
+    private final YbEmbeddingLayout packed = YbEmbeddingLayout.packed(3);
+
+    @Test
+    void rendersTheOriginalTableAsTheWidthOneLayout() {
+        YbEmbeddingLayout rows = YbEmbeddingLayout.ROW_PER_DIMENSION;
+
+        assertFalse(rows.isPacked());
+        assertEquals("vector_store", rows.tableName("vector_store"));
+        assertEquals("embedding_id, embedding", rows.columns());
+        assertEquals("SUM(v1.embedding * v2.embedding)", "SUM(" + rows.dot("v1", "v2") + ")");
+        assertEquals(1536, rows.blocks(1536));
+    }
+
+    @Test
+    void packsBlocksOfDimensionsIntoOneRow() {
+        assertTrue(this.packed.isPacked());
+        assertEquals("vector_store_packed", this.packed.tableName("vector_store"));
+        assertEquals("block_id, e0, e1, e2", this.packed.columns());
+        assertEquals(", ?, ?, ?", this.packed.valuePlaceholders());
+        assertEquals("a.e0 * b.e0 + a.e1 * b.e1 + a.e2 * b.e2", this.packed.dot("a", "b"));
+        assertEquals(512, YbEmbeddingLayout.packed(3).blocks(1536));
+        assertEquals(12, YbEmbeddingLayout.packed(128).blocks(1536));
+    }
+
+    @Test
+    void padsTheLastBlockWithZeros() {
+        float[] vector = {1, 2, 3, 4};
+
+        assertEquals(2, this.packed.blocks(vector.length));
+        assertEquals(4f, this.packed.value(vector, 1, 0));
+        assertEquals(0f, this.packed.value(vector, 1, 1));
+        assertEquals(0f, this.packed.value(vector, 1, 2));
+        assertEquals((short) 0, this.packed.value(new short[]{1, 2, 3, 4}, 1, 2));
+    }
+
+    @Test
+    void pivotsPerDimensionRowsIntoBlockColumns() {
+        assertEquals("COALESCE(MAX(CASE WHEN v.embedding_id % 3 = 0 THEN v.embedding END), 0), "
+                        + "COALESCE(MAX(CASE WHEN v.embedding_id % 3 = 1 THEN v.embedding END), 0), "
+                        + "COALESCE(MAX(CASE WHEN v.embedding_id % 3 = 2 THEN v.embedding END), 0)",
+                this.packed.pivotFromRows("v"));
+    }
+
+    @Test
+    void rejectsWidthsOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> YbEmbeddingLayout.packed(0));
+        assertThrows(IllegalArgumentException.class, () -> YbEmbeddingLayout.packed(YbEmbeddingLayout.MAX_WIDTH + 1));
+    }
+}
@@ -0,0 +1,115 @@
+package com.yellowbrick.springai.vectorstore;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.vectorstore.filter.Filter.Expression;
+import org.springframework.ai.vectorstore.filter.Filter.Group;
+import org.springframework.ai.vectorstore.filter.Filter.Key;
+import org.springframework.ai.vectorstore.filter.Filter.Value;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.ai.vectorstore.filter.Filter.ExpressionType.AND;
+import static org.springframework.ai.vectorstore.filter.Filter.ExpressionType.EQ;
+import static org.springframework.ai.vectorstore.filter.Filter.ExpressionType.GTE;
+import static org.springframework.ai.vectorstore.filter.Filter.ExpressionType.IN;
+import static org.springframework.ai.vectorstore.filter.Filter.ExpressionType.LT;
+import static org.springframework.ai.vectorstore.filter.Filter.ExpressionType.NE;
+import static org.springframework.ai.vectorstore.filter.Filter.ExpressionType.NIN;
+import static org.springframework.ai.vectorstore.filter.Filter.ExpressionType.NOT;
+import static org.springframework.ai.vectorstore.filter.Filter.ExpressionType.OR;
+
+class YbFilterExpressionConverterTest {
+    private final YbFilterExpressionConverter converter = new YbFilterExpressionConverter(
+            new YbPromotedMetadata(Map.of("country", "VARCHAR(64)", "year", "INT", "published", "TIMESTAMP")), "f");
+
+    @Test
+    void comparesPromotedColumns() {
+        assertEquals("f.meta_country = 'BG'", convert(new Expression(EQ, new Key("country"), new Value("BG"))));
+        assertEquals("f.meta_year >= 2020", convert(new Expression(GTE, new Key("year"), new Value(2020))));
+        assertEquals("f.meta_year <> 2020", convert(new Expression(NE, new Key("year"), new Value(2020))));
+    }
+
+    @Test
+    void quotesStringsAndUnquotesKeys() {
+        assertEquals("f.meta_country = 'Côte d''Ivoire'",
+                convert(new Expression(EQ, new Key("\"country\""), new Value("Côte d'Ivoire"))));
+        assertEquals("f.meta_country = ''''' OR 1=1 --'",
+                convert(new Expression(EQ, new Key("'country'"), new Value("'' OR 1=1 --"))));
+    }
+
+    @Test
+    void comparesNullWithIsNull() {
+        assertEquals("f.meta_country IS NULL", convert(new Expression(EQ, new Key("country"), new Value(null))));
+        assertEquals("f.meta_country IS NOT NULL", convert(new Expression(NE, new Key("country"), new Value(null))));
+    }
+
+    @Test
+    void groupsAndCombinesExpressions() {
+        Expression country = new Expression(OR,
+                new Expression(EQ, new Key("country"), new Value("BG")),
+                new Expression(EQ, new Key("country"), new Value("NL")));
+        Expression expression = new Expression(AND, new Group(country), new Expression(LT, new Key("year"), new Value(2024)));
+
+        assertEquals("(((f.meta_country = 'BG' OR f.meta_country = 'NL')) AND f.meta_year < 2024)", convert(expression));
+    }
+
+    @Test
+    void negatesWithNot() {
+        Expression expression = new Expression(NOT, new Group(new Expression(EQ, new Key("country"), new Value("BG"))));
+
+        assertEquals("NOT ((f.meta_country = 'BG'))", convert(expression));
+    }
+
+    @Test
+    void rendersInAndNotIn() {
+        assertEquals("f.meta_year IN (2020, 2021)", convert(new Expression(IN, new Key("year"), new Value(List.of(2020, 2021)))));
+        assertEquals("f.meta_country NOT IN ('BG', 'N''L')",
+                convert(new Expression(NIN, new Key("country"), new Value(List.of("BG", "N'L")))));
+        assertEquals("f.meta_year IN (2020)", convert(new Expression(IN, new Key("year"), new Value(2020))));
+    }
+
+    @Test
+    void rendersEmptyInListsAsConstants() {
+        assertEquals("FALSE", convert(new Expression(IN, new Key("year"), new Value(List.of()))));
+        assertEquals("TRUE", convert(new Expression(NIN, new Key("year"), new Value(List.of()))));
+    }
+
+    @Test
+    void writesDatesInUtcWhateverTheDefaultTimeZone() {
+        Date date = Date.from(Instant.parse("2024-03-01T12:30:45.250Z"));
+        Expression expression = new Expression(GTE, new Key("published"), new Value(date));
+        TimeZone defaultZone = TimeZone.getDefault();
+        try {
+            for (String zone : List.of("UTC", "America/Los_Angeles", "Asia/Kolkata")) {
+                TimeZone.setDefault(TimeZone.getTimeZone(zone));
+                assertEquals("f.meta_published >= TIMESTAMP '2024-03-01 12:30:45.250'", convert(expression), zone);
+            }
+        } finally {
+            TimeZone.setDefault(defaultZone);
+        }
+    }
+
+    @Test
+    void storesDatesAsTheSameUtcTimestamp() {
+        Date date = Date.from(Instant.parse("2024-03-01T12:30:45.250Z"));
+        Object[] values = new YbPromotedMetadata(Map.of("published", "TIMESTAMP")).values(Map.of("published", date));
+
+        assertEquals("2024-03-01T12:30:45.250", values[0].toString());
+    }
+
+    @Test
+    void rejectsKeysThatAreNotPromoted() {
+        assertThrows(IllegalArgumentException.class,
+                () -> convert(new Expression(EQ, new Key("author"), new Value("someone"))));
+    }
+
+    private String convert(Expression expression) {
+        return this.converter.convertExpression(expression);
+    }
+}
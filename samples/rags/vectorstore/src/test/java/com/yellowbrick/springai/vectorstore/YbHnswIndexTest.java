@@ -0,0 +1,256 @@
+package com.yellowbrick.springai.vectorstore;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class YbHnswIndexTest {
+    private static final int DIMENSIONS = 24;
+
+    @TempDir
+    Path directory;
+
+    private final Random random = new Random(11);
+
+    @Test
+    void recallAgainstBruteForce() {
+        YbHnswIndex index = index("recall");
+        Map<String, float[]> vectors = vectors(2000);
+        index.addAll(vectors);
+
+        double recall = recall(index, vectors, 50, 10);
+
+        assertTrue(recall >= 0.95, "recall@10 " + recall);
+        assertEquals(2000, index.size());
+    }
+
+    @Test
+    void searchesHonourTopKAndThreshold() {
+        YbHnswIndex index = index("threshold");
+        Map<String, float[]> vectors = vectors(300);
+        index.addAll(vectors);
+        float[] query = vectors.values().iterator().next();
+
+        List<YbSearchHit> hits = index.search(query, 5, 0.0);
+        List<YbSearchHit> close = index.search(query, 5, 0.999);
+
+        assertEquals(5, hits.size());
+        for (int i = 1; i < hits.size(); i++) {
+            assertTrue(hits.get(i - 1).score() >= hits.get(i).score());
+        }
+        assertEquals(1, close.size());
+        assertEquals(vectors.keySet().iterator().next(), close.get(0).docId());
+    }
+
+    @Test
+    void deletedDocumentsAreNeverReturned() {
+        YbHnswIndex index = index("delete");
+        Map<String, float[]> vectors = vectors(500);
+        index.addAll(vectors);
+        List<String> deleted = new ArrayList<>(vectors.keySet()).subList(0, 250);
+
+        index.removeAll(deleted);
+
+        assertEquals(250, index.size());
+        assertEquals(250, index.deletedNodes());
+        for (String docId : deleted) {
+            for (YbSearchHit hit : index.search(vectors.get(docId), 10, -1)) {
+                assertFalse(deleted.contains(hit.docId()), "returned deleted document " + hit.docId());
+            }
+        }
+        Map<String, float[]> remaining = new LinkedHashMap<>(vectors);
+        remaining.keySet().removeAll(deleted);
+        assertTrue(recall(index, remaining, 30, 10) >= 0.9);
+    }
+
+    @Test
+    void replacingADocumentMovesIt() {
+        YbHnswIndex index = index("replace");
+        Map<String, float[]> vectors = vectors(300);
+        index.addAll(vectors);
+        String docId = vectors.keySet().iterator().next();
+        float[] moved = randomVector();
+
+        index.addAll(Map.of(docId, moved));
+
+        assertEquals(300, index.size());
+        assertEquals(1, index.deletedNodes());
+        List<YbSearchHit> hits = index.search(moved, 10, -1);
+        assertEquals(docId, hits.get(0).docId());
+        assertEquals(1.0, hits.get(0).score(), 1e-4);
+        assertEquals(1, hits.stream().filter(hit -> hit.docId().equals(docId)).count());
+    }
+
+    @Test
+    void reopensAFlushedIndexSpanningSeveralSegments() {
+        Map<String, float[]> vectors = vectors(600);
+        List<String> deleted = new ArrayList<>(vectors.keySet()).subList(0, 50);
+        YbHnswIndex index = index("reopen", 64);
+        index.addAll(vectors);
+        index.removeAll(deleted);
+        index.flush();
+        List<float[]> queries = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            queries.add(randomVector());
+        }
+        List<List<YbSearchHit>> before = queries.stream().map(query -> index.search(query, 10, -1)).toList();
+
+        YbHnswIndex reopened = index("reopen", 64);
+
+        assertTrue(reopened.load());
+        assertEquals(550, reopened.size());
+        assertEquals(50, reopened.deletedNodes());
+        for (int i = 0; i < queries.size(); i++) {
+            assertEquals(before.get(i), reopened.search(queries.get(i), 10, -1));
+        }
+        Map<String, float[]> more = vectors(200);
+        reopened.addAll(more);
+        Map<String, float[]> all = new LinkedHashMap<>(vectors);
+        all.keySet().removeAll(deleted);
+        all.putAll(more);
+        assertTrue(recall(reopened, all, 30, 10) >= 0.9);
+    }
+
+    @Test
+    void reopensWithADifferentSegmentSize() {
+        Map<String, float[]> vectors = vectors(300);
+        YbHnswIndex index = index("segments", 32);
+        index.addAll(vectors);
+        index.flush();
+        float[] query = randomVector();
+
+        YbHnswIndex reopened = index("segments", 1000);
+
+        assertTrue(reopened.load());
+        assertEquals(index.search(query, 10, -1), reopened.search(query, 10, -1));
+    }
+
+    @Test
+    void refusesAnIndexChangedAfterItsLastFlush() {
+        YbHnswIndex index = index("dirty");
+        index.addAll(vectors(100));
+        index.flush();
+        assertTrue(index("dirty").load());
+
+        index.addAll(vectors(10));
+
+        assertFalse(index("dirty").load());
+        index.flush();
+        assertTrue(index("dirty").load());
+        index.removeAll(List.of(UUID.randomUUID().toString()));
+        assertFalse(index("dirty").load());
+    }
+
+    @Test
+    void refusesAnIndexBuiltWithAnotherM() {
+        YbHnswIndex index = index("m");
+        index.addAll(vectors(50));
+        index.flush();
+
+        assertFalse(new YbHnswIndex(this.directory.resolve("m"), 8, 100, 64).load());
+    }
+
+    @Test
+    void concurrentUpdatesAndFlushesLeaveALoadableIndex() throws Exception {
+        YbHnswIndex index = index("concurrent", 64);
+        List<Map<String, float[]>> batches = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            batches.add(vectors(40));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (Map<String, float[]> batch : batches) {
+                done.add(executor.submit(() -> {
+                    index.addAll(batch);
+                    index.flush();
+                    index.removeAll(List.of(batch.keySet().iterator().next()));
+                    index.flush();
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        YbHnswIndex reopened = index("concurrent", 64);
+        assertTrue(reopened.load());
+        assertEquals(16 * 39, reopened.size());
+        assertFalse(Files.exists(this.directory.resolve("concurrent.graph.tmp")));
+    }
+
+    @Test
+    void clearDeletesTheFiles() {
+        YbHnswIndex index = index("clear");
+        index.addAll(vectors(20));
+        index.flush();
+
+        index.clear();
+
+        assertEquals(0, index.size());
+        assertTrue(index.search(randomVector(), 5, -1).isEmpty());
+        assertFalse(index("clear").load());
+    }
+
+    private YbHnswIndex index(String name) {
+        return new YbHnswIndex(this.directory.resolve(name), 16, 100, 64);
+    }
+
+    private YbHnswIndex index(String name, int maxSegmentNodes) {
+        return new YbHnswIndex(this.directory.resolve(name), 16, 100, 64, maxSegmentNodes);
+    }
+
+    private Map<String, float[]> vectors(int count) {
+        Map<String, float[]> vectors = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            vectors.put(new UUID(this.random.nextLong(), this.random.nextLong()).toString(), randomVector());
+        }
+        return vectors;
+    }
+
+    private float[] randomVector() {
+        float[] vector = new float[DIMENSIONS];
+        for (int d = 0; d < DIMENSIONS; d++) {
+            vector[d] = (float) this.random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private double recall(YbHnswIndex index, Map<String, float[]> vectors, int queries, int topK) {
+        int found = 0;
+        for (int q = 0; q < queries; q++) {
+            float[] query = VectorMath.normalize(randomVector());
+            Set<String> exact = vectors.entrySet().stream()
+                    .sorted(Comparator.comparingDouble((Map.Entry<String, float[]> e) -> VectorMath.dot(query, VectorMath.normalize(e.getValue()))).reversed())
+                    .limit(topK)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toSet());
+            Set<String> approximate = new HashSet<>();
+            index.search(query, topK, -1).forEach(hit -> approximate.add(hit.docId()));
+            approximate.retainAll(exact);
+            found += approximate.size();
+        }
+        return (double) found / (queries * topK);
+    }
+}
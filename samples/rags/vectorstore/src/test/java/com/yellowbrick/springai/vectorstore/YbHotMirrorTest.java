@@ -0,0 +1,115 @@
+package com.yellowbrick.springai.vectorstore;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class YbHotMirrorTest {
+    private static final int DIMENSIONS = 8;
+
+    private final Random random = new Random(7);
+
+    @Test
+    void removingARowMovesTheLastRowIntoItsPlace() {
+        YbHotMirror mirror = new YbHotMirror(null);
+        mirror.putAll(Map.of("a", new float[]{1, 0}));
+        mirror.putAll(Map.of("b", new float[]{0, 1}));
+        mirror.putAll(Map.of("c", new float[]{1, 1}));
+
+        mirror.removeAll(List.of("a", "missing"));
+
+        assertEquals(2, mirror.size());
+        // c now sits in a's row and b is untouched
+        assertEquals("c", mirror.search(new float[]{1, 1}, 1, 0.99).get(0).docId());
+        assertEquals("b", mirror.search(new float[]{0, 1}, 1, 0.99).get(0).docId());
+        assertEquals(List.of(), mirror.search(new float[]{1, 0}, 2, 0.99));
+
+        mirror.putAll(Map.of("c", new float[]{1, 0}));
+        mirror.removeAll(List.of("c"));
+        mirror.putAll(Map.of("d", new float[]{1, 0}));
+
+        assertEquals(2, mirror.size());
+        assertEquals("d", mirror.search(new float[]{1, 0}, 1, 0.99).get(0).docId());
+    }
+
+    @Test
+    void returnsTheTopKBestFirstAboveTheThreshold() {
+        YbHotMirror mirror = new YbHotMirror(null);
+        Map<String, float[]> vectors = new LinkedHashMap<>();
+        vectors.put("far", new float[]{-1, 0});
+        vectors.put("near", new float[]{1, 0.1f});
+        vectors.put("exact", new float[]{2, 0});
+        vectors.put("side", new float[]{0, 1});
+        vectors.put("closer", new float[]{1, 0.05f});
+        mirror.putAll(vectors);
+
+        List<YbSearchHit> hits = mirror.search(new float[]{1, 0}, 3, -1);
+        List<YbSearchHit> aboveHalf = mirror.search(new float[]{1, 0}, 10, 0.5);
+
+        assertEquals(List.of("exact", "closer", "near"), hits.stream().map(YbSearchHit::docId).toList());
+        assertEquals(1.0, hits.get(0).score(), 1e-6);
+        assertEquals(List.of("exact", "closer", "near"), aboveHalf.stream().map(YbSearchHit::docId).toList());
+        assertEquals(List.of(), mirror.search(new float[]{1, 0}, 0, -1));
+    }
+
+    @Test
+    void scoresLikeTheSqlPathAcrossSlices() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            YbHotMirror mirror = new YbHotMirror(pool);
+            Map<String, float[]> vectors = new LinkedHashMap<>();
+            for (int i = 0; i < 2 * YbHotMirror.ROWS_PER_TASK + 100; i++) {
+                vectors.put("doc-" + i, vector());
+            }
+            mirror.putAll(vectors);
+            float[] query = vector();
+
+            List<YbSearchHit> hits = mirror.search(query, 20, 0.2);
+
+            List<Map.Entry<String, Double>> expected = vectors.entrySet().stream()
+                    .map(entry -> Map.entry(entry.getKey(), sqlCosine(query, entry.getValue())))
+                    .filter(entry -> entry.getValue() >= 0.2)
+                    .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+                    .limit(20)
+                    .toList();
+            assertEquals(expected.size(), hits.size());
+            for (int i = 0; i < hits.size(); i++) {
+                assertEquals(expected.get(i).getValue(), hits.get(i).score(), 1e-5);
+            }
+            assertEquals(expected.stream().map(Map.Entry::getKey).toList(), hits.stream().map(YbSearchHit::docId).toList());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * The similarity the scoring statement computes when embeddings are stored as they came:
+     * {@code SUM(v1.embedding * v2.embedding) / (SQRT(SUM(v1.embedding * v1.embedding)) * SQRT(SUM(v2.embedding * v2.embedding)))}.
+     */
+    private static double sqlCosine(float[] query, float[] stored) {
+        double dot = 0;
+        double queryNorm = 0;
+        double storedNorm = 0;
+        for (int i = 0; i < query.length; i++) {
+            dot += query[i] * stored[i];
+            queryNorm += query[i] * query[i];
+            storedNorm += stored[i] * stored[i];
+        }
+        return dot / (Math.sqrt(queryNorm) * Math.sqrt(storedNorm));
+    }
+
+    private float[] vector() {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) this.random.nextGaussian();
+        }
+        return vector;
+    }
+}
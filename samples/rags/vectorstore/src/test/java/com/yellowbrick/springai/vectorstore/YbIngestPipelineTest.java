@@ -0,0 +1,229 @@
+package com.yellowbrick.springai.vectorstore;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class YbIngestPipelineTest {
+    private static final Function<List<Document>, List<List<Document>>> SPLIT_IN_TWO = batch -> List.of(
+            batch.subList(0, batch.size() / 2), batch.subList(batch.size() / 2, batch.size()));
+
+    private final Set<String> written = ConcurrentHashMap.newKeySet();
+
+    @Test
+    void embedsAndWritesEveryDocumentOnce() {
+        YbIngestPipeline pipeline = new YbIngestPipeline(3, 2, 2, 1, Duration.ofMillis(1));
+        List<List<Document>> batches = batches(20, 10);
+        AtomicInteger embedded = new AtomicInteger();
+        AtomicInteger writes = new AtomicInteger();
+
+        pipeline.run(batches, batch -> embedded.addAndGet(batch.size()), SPLIT_IN_TWO, batch -> {
+            writes.incrementAndGet();
+            batch.forEach(document -> assertTrue(this.written.add(document.getId())));
+        });
+
+        assertEquals(200, embedded.get());
+        assertEquals(40, writes.get());
+        assertEquals(200, this.written.size());
+    }
+
+    @Test
+    void retriesFailedEmbeddingsAndWrites() {
+        YbIngestPipeline pipeline = new YbIngestPipeline(2, 2, 2, 3, Duration.ofMillis(1));
+        AtomicInteger embedCalls = new AtomicInteger();
+        AtomicInteger writeCalls = new AtomicInteger();
+
+        pipeline.run(batches(4, 4), failingTimes(2, embedCalls, batch -> {
+        }), SPLIT_IN_TWO, failingTimes(2, writeCalls, this::write));
+
+        assertEquals(16, this.written.size());
+        assertEquals(4 + 2, embedCalls.get());
+        assertEquals(8 + 2, writeCalls.get());
+    }
+
+    @Test
+    void rethrowsTheFailureAfterTheLastAttemptAndStartsNoNewBatches() {
+        YbIngestPipeline pipeline = new YbIngestPipeline(1, 1, 1, 2, Duration.ofMillis(1));
+        IllegalStateException failure = new IllegalStateException("database down");
+        AtomicInteger writeCalls = new AtomicInteger();
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> pipeline.run(batches(10, 2), batch -> {
+        }, List::of, batch -> {
+            writeCalls.incrementAndGet();
+            throw failure;
+        }));
+
+        assertSame(failure, thrown);
+        assertEquals(2, writeCalls.get());
+    }
+
+    @Test
+    void aFailedEmbeddingStopsThePipeline() {
+        YbIngestPipeline pipeline = new YbIngestPipeline(1, 1, 1, 1, Duration.ofMillis(1));
+        AtomicInteger embedCalls = new AtomicInteger();
+
+        assertThrows(IllegalArgumentException.class, () -> pipeline.run(batches(10, 2), batch -> {
+            if (embedCalls.incrementAndGet() == 3) {
+                throw new IllegalArgumentException("bad input");
+            }
+        }, List::of, this::write));
+
+        assertEquals(3, embedCalls.get());
+        // batches queued before the failure may or may not be written by then
+        assertTrue(this.written.size() <= 4);
+    }
+
+    @Test
+    void aSlowWriterThrottlesEmbedding() {
+        int embeddingConcurrency = 2;
+        int writerConcurrency = 1;
+        int queueCapacity = 1;
+        YbIngestPipeline pipeline = new YbIngestPipeline(embeddingConcurrency, writerConcurrency, queueCapacity, 1, Duration.ofMillis(1));
+        AtomicInteger embedded = new AtomicInteger();
+        AtomicInteger writes = new AtomicInteger();
+        AtomicInteger maxAhead = new AtomicInteger();
+
+        pipeline.run(batches(20, 1), batch -> maxAhead.accumulateAndGet(embedded.incrementAndGet() - writes.get(), Math::max),
+                List::of, batch -> {
+                    sleep(2);
+                    writes.incrementAndGet();
+                });
+
+        assertEquals(20, writes.get());
+        // queued batches, one being written and one blocked put per embedder, plus the one being embedded
+        assertTrue(maxAhead.get() <= queueCapacity + writerConcurrency + embeddingConcurrency + 1, "ran ahead by " + maxAhead.get());
+    }
+
+    @Test
+    void backsOffExponentiallyBetweenAttempts() {
+        Duration backoff = Duration.ofMillis(50);
+        YbIngestPipeline pipeline = new YbIngestPipeline(1, 1, 1, 3, backoff);
+        List<Long> attempts = new CopyOnWriteArrayList<>();
+
+        pipeline.run(batches(1, 1), batch -> {
+        }, List::of, batch -> {
+            attempts.add(System.nanoTime());
+            if (attempts.size() < 3) {
+                throw new IllegalStateException("transient failure");
+            }
+        });
+
+        assertEquals(3, attempts.size());
+        assertTrue(attempts.get(1) - attempts.get(0) >= backoff.toNanos());
+        assertTrue(attempts.get(2) - attempts.get(1) >= 2 * backoff.toNanos());
+    }
+
+    @Test
+    void aFailedWriteDrainsBlockedEmbeddersAndLeavesThePipelineUsable() {
+        // four embedders against a queue of one: most are blocked on the queue when the write fails
+        YbIngestPipeline pipeline = new YbIngestPipeline(4, 1, 1, 1, Duration.ofMillis(1));
+        AtomicInteger embedCalls = new AtomicInteger();
+        AtomicInteger writeCalls = new AtomicInteger();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertThrows(IllegalStateException.class,
+                () -> pipeline.run(batches(20, 1), batch -> embedCalls.incrementAndGet(), List::of, batch -> {
+                    writeCalls.incrementAndGet();
+                    sleep(5);
+                    throw new IllegalStateException("database down");
+                })));
+        assertEquals(1, writeCalls.get());
+        assertTrue(embedCalls.get() < 20, "embedded " + embedCalls.get() + " batches after the failure");
+
+        pipeline.run(batches(5, 2), batch -> {
+        }, List::of, this::write);
+        assertEquals(10, this.written.size());
+    }
+
+    @Test
+    void reusesItsThreadsAcrossRuns() {
+        YbIngestPipeline pipeline = new YbIngestPipeline(2, 2, 2, 1, Duration.ofMillis(1));
+        Set<Thread> embedders = ConcurrentHashMap.newKeySet();
+        Set<Thread> writers = ConcurrentHashMap.newKeySet();
+        try {
+            for (int run = 0; run < 5; run++) {
+                pipeline.run(batches(8, 2), batch -> embedders.add(Thread.currentThread()), List::of,
+                        batch -> writers.add(Thread.currentThread()));
+            }
+            assertTrue(embedders.size() <= 2, embedders.size() + " embedding threads");
+            assertTrue(writers.size() <= 2, writers.size() + " writer threads");
+        } finally {
+            pipeline.close();
+        }
+    }
+
+    @Test
+    void stopsItsThreadsOnClose() throws InterruptedException {
+        YbIngestPipeline pipeline = new YbIngestPipeline(4, 4, 2, 1, Duration.ofMillis(1));
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+        pipeline.run(batches(8, 2), batch -> threads.add(Thread.currentThread()), List::of, batch -> threads.add(Thread.currentThread()));
+        assertThrows(IllegalStateException.class, () -> pipeline.run(batches(8, 2), batch -> threads.add(Thread.currentThread()),
+                List::of, batch -> {
+                    threads.add(Thread.currentThread());
+                    throw new IllegalStateException("failed");
+                }));
+        pipeline.close();
+
+        for (Thread thread : threads) {
+            thread.join(Duration.ofSeconds(5).toMillis());
+            assertFalse(thread.isAlive(), thread.getName());
+        }
+    }
+
+    @Test
+    void rejectsNonPositiveSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new YbIngestPipeline(0, 1, 1, 1, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> new YbIngestPipeline(1, 1, 1, 0, Duration.ZERO));
+    }
+
+    private void write(List<Document> batch) {
+        batch.forEach(document -> this.written.add(document.getId()));
+    }
+
+    private static Consumer<List<Document>> failingTimes(int failures, AtomicInteger calls, Consumer<List<Document>> action) {
+        return batch -> {
+            if (calls.incrementAndGet() <= failures) {
+                throw new IllegalStateException("transient failure " + calls.get());
+            }
+            action.accept(batch);
+        };
+    }
+
+    private static List<List<Document>> batches(int count, int size) {
+        List<List<Document>> batches = new ArrayList<>();
+        for (int b = 0; b < count; b++) {
+            List<Document> batch = new ArrayList<>();
+            for (int d = 0; d < size; d++) {
+                batch.add(new Document("batch " + b + " document " + d, new HashMap<>()));
+            }
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.yellowbrick.springai.vectorstore;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class YbIvfIndexTest {
+    private static final float[][] CENTROIDS = {{1, 0}, {0, 1}, {-1, 0}, {0, -1}};
+
+    @Test
+    void hasNoPredicateOrAssignmentsBeforeTraining() {
+        YbIvfIndex index = index(2);
+
+        assertFalse(index.isTrained());
+        assertNull(index.probePredicate(List.of(new float[]{1, 0})));
+        assertNull(index.assign(new float[][]{{1, 0}}));
+    }
+
+    @Test
+    void probesTheNearestClustersAndUnclusteredRows() {
+        YbIvfIndex index = index(2);
+        index.use(CENTROIDS);
+
+        assertTrue(index.isTrained());
+        assertEquals("(v2.cluster_id IN (0, 1) OR v2.cluster_id IS NULL)", index.probePredicate(List.of(new float[]{0.9f, 0.4f})));
+    }
+
+    @Test
+    void probesTheUnionOfEveryQuerysClustersInOrder() {
+        YbIvfIndex index = index(1);
+        index.use(CENTROIDS);
+
+        String predicate = index.probePredicate(List.of(new float[]{0, -1}, new float[]{1, 0.1f}, new float[]{0.1f, -1}));
+
+        assertEquals("(v2.cluster_id IN (0, 3) OR v2.cluster_id IS NULL)", predicate);
+    }
+
+    @Test
+    void assignsEachVectorToItsNearestCentroid() {
+        YbIvfIndex index = index(1);
+        index.use(CENTROIDS);
+
+        int[] clusters = index.assign(new float[][]{{-1, 0.2f}, {0.1f, 0.9f}});
+
+        assertEquals(2, clusters[0]);
+        assertEquals(1, clusters[1]);
+    }
+
+    private static YbIvfIndex index(int nprobe) {
+        return new YbIvfIndex(null, "vector_store", YbEmbeddingLayout.ROW_PER_DIMENSION, CENTROIDS.length, nprobe);
+    }
+}
@@ -0,0 +1,86 @@
+package com.yellowbrick.springai.vectorstore;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class YbLazyMetadataTest {
+    private static final ObjectReader READER = new ObjectMapper().readerFor(new TypeReference<Map<String, Object>>() {
+    });
+
+    @Test
+    void decodesOnlyOnFirstAccess() {
+        YbLazyMetadata metadata = new YbLazyMetadata(READER, "not json");
+        metadata.putWithoutDecoding("score", 0.5);
+
+        // nothing has read the JSON yet, so a bad value has gone unnoticed
+        assertThrows(IllegalStateException.class, () -> metadata.get("score"));
+    }
+
+    @Test
+    void letsValuesAddedWithoutDecodingWinOverStoredOnes() {
+        YbLazyMetadata metadata = new YbLazyMetadata(READER, "{\"score\":1,\"page\":3}");
+        metadata.putWithoutDecoding("score", 0.5);
+
+        assertEquals(0.5, metadata.get("score"));
+        assertEquals(3, metadata.get("page"));
+        assertEquals(List.of("score", "page"), List.copyOf(metadata.keySet()));
+    }
+
+    @Test
+    void addsToTheDecodedMapOnceDecoded() {
+        YbLazyMetadata metadata = new YbLazyMetadata(READER, "{\"page\":3}");
+        assertEquals(1, metadata.size());
+
+        metadata.putWithoutDecoding("score", 0.5);
+        metadata.put("page", 4);
+        metadata.remove("missing");
+
+        assertEquals(Map.of("page", 4, "score", 0.5), metadata);
+    }
+
+    @Test
+    void treatsMissingJsonAsEmpty() {
+        YbLazyMetadata metadata = new YbLazyMetadata(READER, null);
+        metadata.putWithoutDecoding("score", 0.5);
+
+        assertEquals(Map.of("score", 0.5), metadata);
+        assertNull(metadata.get("page"));
+    }
+
+    @Test
+    void copiesIndependentlyBeforeDecoding() {
+        YbLazyMetadata original = new YbLazyMetadata(READER, "{\"page\":3}");
+        original.putWithoutDecoding("score", 0.5);
+
+        YbLazyMetadata copy = original.copy();
+        copy.put("page", 4);
+        copy.putWithoutDecoding("score", 0.1);
+
+        assertEquals(Map.of("page", 3, "score", 0.5), original);
+        assertEquals(Map.of("page", 4, "score", 0.1), copy);
+    }
+
+    @Test
+    void copiesTheDecodedStateAfterDecoding() {
+        YbLazyMetadata original = new YbLazyMetadata(READER, "{\"page\":3,\"tags\":[\"a\"]}");
+        original.put("page", 5);
+
+        YbLazyMetadata copy = original.copy();
+        original.remove("tags");
+
+        assertEquals(Map.of("page", 5, "tags", List.of("a")), copy);
+        assertFalse(original.containsKey("tags"));
+        assertTrue(copy.containsKey("tags"));
+    }
+}
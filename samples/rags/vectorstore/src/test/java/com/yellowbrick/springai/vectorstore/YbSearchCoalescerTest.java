@@ -0,0 +1,186 @@
+package com.yellowbrick.springai.vectorstore;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class YbSearchCoalescerTest {
+    private final AtomicInteger searches = new AtomicInteger();
+
+    @Test
+    void concurrentIdenticalSearchesShareOneExecution() throws Exception {
+        YbSearchCoalescer coalescer = coalescer(Duration.ZERO);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        int followers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(followers + 1);
+        try {
+            Future<List<Document>> leader = executor.submit(() -> coalescer.search(SearchRequest.query("q"), request -> {
+                started.countDown();
+                await(release);
+                return results(request);
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            List<Future<List<Document>>> waiting = new ArrayList<>();
+            for (int i = 0; i < followers; i++) {
+                waiting.add(executor.submit(() -> coalescer.search(SearchRequest.query("q"), this::results)));
+            }
+            while (coalescer.getCollapsedCount() < followers) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            assertEquals("doc-1", leader.get(5, TimeUnit.SECONDS).get(0).getId());
+            for (Future<List<Document>> follower : waiting) {
+                assertEquals("doc-1", follower.get(5, TimeUnit.SECONDS).get(0).getId());
+            }
+            assertEquals(1, this.searches.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void everyCallerGetsItsOwnDocumentsMetadataAndEmbeddings() {
+        YbSearchCoalescer coalescer = coalescer(Duration.ofMinutes(1));
+
+        List<Document> first = coalescer.search(SearchRequest.query("q"), this::results);
+        List<Document> second = coalescer.search(SearchRequest.query("q"), this::results);
+        first.get(0).getMetadata().put("source", "changed");
+        first.get(0).getEmbedding()[0] = 42;
+        first.clear();
+        List<Document> third = coalescer.search(SearchRequest.query("q"), this::results);
+
+        assertEquals(1, this.searches.get());
+        assertNotSame(second.get(0), third.get(0));
+        assertNotSame(second.get(0).getMetadata(), third.get(0).getMetadata());
+        for (List<Document> documents : List.of(second, third)) {
+            assertEquals(1, documents.size());
+            assertEquals("a.pdf", documents.get(0).getMetadata().get("source"));
+            assertArrayEquals(new float[]{1, 0}, documents.get(0).getEmbedding());
+        }
+    }
+
+    @Test
+    void copiesLazyMetadataWithoutSharingIt() {
+        YbSearchCoalescer coalescer = coalescer(Duration.ofMinutes(1));
+        Function<SearchRequest, List<Document>> search = request -> {
+            this.searches.incrementAndGet();
+            YbLazyMetadata metadata = new YbLazyMetadata(null, null);
+            metadata.putWithoutDecoding("distance", 0.25);
+            return List.of(new Document("doc-1", "text", metadata));
+        };
+
+        Map<String, Object> first = coalescer.search(SearchRequest.query("q"), search).get(0).getMetadata();
+        first.put("distance", 1.0);
+        Map<String, Object> second = coalescer.search(SearchRequest.query("q"), search).get(0).getMetadata();
+
+        assertTrue(second instanceof YbLazyMetadata);
+        assertEquals(0.25, second.get("distance"));
+    }
+
+    @Test
+    void differentRequestsRunSeparately() {
+        YbSearchCoalescer coalescer = coalescer(Duration.ofMinutes(1));
+
+        coalescer.search(SearchRequest.query("q"), this::results);
+        coalescer.search(SearchRequest.query("q").withTopK(10), this::results);
+        coalescer.search(SearchRequest.query("other"), this::results);
+
+        assertEquals(3, this.searches.get());
+        assertEquals(0, coalescer.getCollapsedCount());
+    }
+
+    @Test
+    void clearForgetsSharedResults() {
+        YbSearchCoalescer coalescer = coalescer(Duration.ofMinutes(1));
+
+        coalescer.search(SearchRequest.query("q"), this::results);
+        coalescer.clear();
+        coalescer.search(SearchRequest.query("q"), this::results);
+
+        assertEquals(2, this.searches.get());
+    }
+
+    @Test
+    void failuresAreNotSharedWithLaterSearches() {
+        YbSearchCoalescer coalescer = coalescer(Duration.ofMinutes(1));
+        IllegalStateException failure = new IllegalStateException("database down");
+
+        assertSame(failure, assertThrows(IllegalStateException.class, () -> coalescer.search(SearchRequest.query("q"), request -> {
+            throw failure;
+        })));
+        coalescer.search(SearchRequest.query("q"), this::results);
+
+        assertEquals(1, this.searches.get());
+    }
+
+    @Test
+    void keysVariantsApartFromPlainSearches() {
+        YbSearchCoalescer coalescer = coalescer(Duration.ofMinutes(1));
+
+        coalescer.search(SearchRequest.query("q"), this::results);
+        coalescer.search(SearchRequest.query("q"), "hybrid 1", this::results);
+        coalescer.search(SearchRequest.query("q"), "hybrid 1", this::results);
+        coalescer.search(SearchRequest.query("q"), "hybrid 2", this::results);
+
+        assertEquals(3, this.searches.get());
+    }
+
+    @Test
+    void sharesABatchOnlyWithTheSameRequestsInTheSameOrder() {
+        YbSearchCoalescer coalescer = coalescer(Duration.ofMinutes(1));
+        Function<List<SearchRequest>, List<List<Document>>> batch = requests -> requests.stream().map(this::results).toList();
+
+        List<List<Document>> first = coalescer.searchAll(List.of(SearchRequest.query("a"), SearchRequest.query("b")), batch);
+        List<List<Document>> second = coalescer.searchAll(List.of(SearchRequest.query("a"), SearchRequest.query("b")), batch);
+        coalescer.searchAll(List.of(SearchRequest.query("b"), SearchRequest.query("a")), batch);
+        coalescer.search(SearchRequest.query("a"), this::results);
+
+        assertEquals(2 + 2 + 1, this.searches.get());
+        assertNotSame(first.get(0).get(0), second.get(0).get(0));
+    }
+
+    private YbSearchCoalescer coalescer(Duration window) {
+        return new YbSearchCoalescer(window, YbSearchCoalescer.defaultKey(true), ObservationRegistry.NOOP);
+    }
+
+    private List<Document> results(SearchRequest request) {
+        this.searches.incrementAndGet();
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("source", "a.pdf");
+        Document document = new Document("doc-1", "text", metadata);
+        document.setEmbedding(new float[]{1, 0});
+        return new ArrayList<>(List.of(document));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.yellowbrick.springai.vectorstore;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class YbVectorStoreCollectionsTest {
+    private static final String DOC_1 = "00000000-0000-0000-0000-000000000001";
+    private static final String DOC_2 = "00000000-0000-0000-0000-000000000002";
+    private static final String SCORING = "ORDER BY score DESC LIMIT ?";
+    private static final Map<String, String> PROMOTED = Map.of("page", "INTEGER", "collection", "VARCHAR(48)");
+
+    private final RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate();
+    private final StubEmbeddingModel embeddingModel = new StubEmbeddingModel(3).with("q", 1, 0, 0);
+    private final YellowBrickVectorStore defaultStore = TestStores.store(this.jdbcTemplate, this.embeddingModel);
+    private final List<String> opened = new ArrayList<>();
+    private final YbVectorStoreCollections collections = new YbVectorStoreCollections(this.defaultStore, "vector_store",
+            this.jdbcTemplate, tableName -> {
+        this.opened.add(tableName);
+        // as configured for a collection, creating its tables when opened
+        YellowBrickVectorStore store = new YellowBrickVectorStore(tableName, this.jdbcTemplate, this.embeddingModel, true,
+                ObservationRegistry.NOOP, null, documents -> List.of(documents), 1000, TestStores.NO_TRANSACTIONS);
+        store.setQueryMode(YellowBrickVectorStore.QueryMode.INLINE);
+        store.setPromotedMetadata(PROMOTED);
+        return store;
+    });
+
+    YbVectorStoreCollectionsTest() {
+        this.defaultStore.setQueryMode(YellowBrickVectorStore.QueryMode.INLINE);
+        this.defaultStore.setPromotedMetadata(PROMOTED);
+    }
+
+    @Test
+    void rejectsNamesThatCouldCollideWithSideTables() {
+        assertThrows(IllegalArgumentException.class, () -> this.collections.collection("acme_terms"));
+        assertThrows(IllegalArgumentException.class, () -> this.collections.collection("a__b"));
+        assertThrows(IllegalArgumentException.class, () -> this.collections.collection("Acme"));
+        assertThrows(IllegalArgumentException.class, () -> this.collections.collection("1acme"));
+        assertThrows(IllegalArgumentException.class, () -> this.collections.collection("a".repeat(49)));
+        assertEquals(List.of(), this.opened);
+
+        this.collections.collection("a".repeat(48));
+        assertEquals(List.of("vector_store__" + "a".repeat(48)), this.opened);
+    }
+
+    @Test
+    void opensEachCollectionOnceOnFirstUse() {
+        YellowBrickVectorStore acme = this.collections.collection("acme");
+
+        assertSame(acme, this.collections.collection("acme"));
+        assertSame(this.defaultStore, this.collections.collection(YbVectorStoreCollections.DEFAULT_COLLECTION));
+        assertEquals(List.of("vector_store__acme"), this.opened);
+        assertTrue(this.jdbcTemplate.statements().stream()
+                .anyMatch(statement -> statement.sql().contains("CREATE TABLE IF NOT EXISTS vector_store__acme_content")));
+    }
+
+    @Test
+    void routesDocumentsByTheirCollectionAndLeavesTheCallersMetadataAlone() {
+        Map<String, Object> untaggedMetadata = new HashMap<>(Map.of("page", 1));
+        Document untagged = new Document(DOC_1, "first", untaggedMetadata);
+        Document tagged = new Document(DOC_2, "second", new HashMap<>(Map.of(YbVectorStoreCollections.COLLECTION_METADATA_KEY, "acme")));
+
+        this.collections.add(List.of(untagged, tagged));
+
+        RecordingJdbcTemplate.Statement defaultRows = TestStores.only(this.jdbcTemplate, "INSERT INTO vector_store_content");
+        RecordingJdbcTemplate.Statement acmeRows = TestStores.only(this.jdbcTemplate, "INSERT INTO vector_store__acme_content");
+        assertEquals(List.of(DOC_1), defaultRows.rows().stream().map(row -> String.valueOf(row[0])).toList());
+        assertTrue(Arrays.toString(defaultRows.rows().get(0)).contains("\"collection\":\"default\""));
+        assertEquals(List.of(DOC_2), acmeRows.rows().stream().map(row -> String.valueOf(row[0])).toList());
+        assertEquals(Map.of("page", 1), untaggedMetadata);
+        assertSame(untaggedMetadata, untagged.getMetadata());
+        // the embedding computed for the stored copy is handed back like a plain store would
+        assertArrayEquals(this.embeddingModel.vector("first"), untagged.getEmbedding());
+        assertArrayEquals(this.embeddingModel.vector("second"), tagged.getEmbedding());
+    }
+
+    @Test
+    void searchesTheNamedCollectionWithoutItsCollectionTerm() {
+        this.jdbcTemplate.onQuery(SCORING, args -> List.<Object[]>of(new Object[]{DOC_1, "first", "{}", 0.9, 1L}));
+
+        List<Document> documents = this.collections.similaritySearch(SearchRequest.query("q")
+                .withFilterExpression(and(eq("collection", "acme"), eq("page", 1))));
+
+        RecordingJdbcTemplate.Statement search = TestStores.only(this.jdbcTemplate, SCORING);
+        assertEquals(1, documents.size());
+        assertTrue(search.sql().contains("vector_store__acme"), search.sql());
+        assertTrue(search.sql().contains("meta_page"), search.sql());
+        assertFalse(search.sql().contains("meta_collection"), search.sql());
+        assertEquals(List.of("vector_store__acme"), this.opened);
+    }
+
+    @Test
+    void searchesTheDefaultCollectionWithoutACollectionTerm() {
+        this.jdbcTemplate.onQuery(SCORING, args -> List.of());
+
+        this.collections.similaritySearch(SearchRequest.query("q").withFilterExpression(eq("page", 1)));
+
+        assertFalse(TestStores.only(this.jdbcTemplate, SCORING).sql().contains("vector_store__"));
+        assertEquals(List.of(), this.opened);
+    }
+
+    @Test
+    void rejectsASearchNamingTwoCollections() {
+        assertThrows(IllegalArgumentException.class, () -> this.collections.similaritySearch(SearchRequest.query("q")
+                .withFilterExpression(and(eq("collection", "acme"), new Filter.Group(and(eq("page", 1), eq("collection", "globex")))))));
+    }
+
+    @Test
+    void leavesCollectionTermsUnderOrInTheFilter() {
+        this.jdbcTemplate.onQuery(SCORING, args -> List.of());
+
+        this.collections.similaritySearch(SearchRequest.query("q").withFilterExpression(
+                new Filter.Expression(Filter.ExpressionType.OR, eq("collection", "acme"), eq("page", 1))));
+
+        assertTrue(TestStores.only(this.jdbcTemplate, SCORING).sql().contains("meta_collection"));
+        assertEquals(List.of(), this.opened);
+    }
+
+    @Test
+    void listsCollectionsWithContentTables() {
+        this.jdbcTemplate.onQuery("information_schema.tables", args -> List.of(
+                new Object[]{"vector_store__acme_content"},
+                new Object[]{"vector_store__globex_content"},
+                new Object[]{"vector_store__not_a_name_content"}));
+        this.collections.collection("initech");
+
+        List<String> names = this.collections.collectionNames();
+
+        assertEquals(List.of("default", "acme", "globex", "initech"), names);
+        assertArrayEquals(new Object[]{"vector\\_store\\_\\_%\\_content"},
+                TestStores.only(this.jdbcTemplate, "information_schema.tables").args());
+    }
+
+    @Test
+    void deletesFromTheDefaultCollectionOnly() {
+        this.jdbcTemplate.onUpdate("DELETE FROM vector_store_content", args -> 1);
+
+        this.collections.delete(List.of(DOC_1));
+
+        assertTrue(this.jdbcTemplate.statements().stream().noneMatch(statement -> statement.sql().contains("information_schema")));
+        assertTrue(this.jdbcTemplate.statements().stream().noneMatch(statement -> statement.sql().contains("vector_store__")));
+        assertEquals(List.of(), this.opened);
+    }
+
+    private static Filter.Expression eq(String key, Object value) {
+        return new Filter.Expression(Filter.ExpressionType.EQ, new Filter.Key(key), new Filter.Value(value));
+    }
+
+    private static Filter.Expression and(Filter.Expression left, Filter.Operand right) {
+        return new Filter.Expression(Filter.ExpressionType.AND, left, right);
+    }
+}
@@ -0,0 +1,39 @@
+package com.yellowbrick.springai.vectorstore;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class YbWriteBatchTest {
+
+    @Test
+    void hashesMetadataWhateverTheOrderOfItsKeys() {
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("b", 2);
+        nested.put("a", 1);
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("page", 1);
+        first.put("section", nested);
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("section", Map.of("a", 1, "b", 2));
+        second.put("page", 1);
+
+        assertEquals(YbWriteBatch.contentHash(new Document("text", first)), YbWriteBatch.contentHash(new Document("text", second)));
+    }
+
+    @Test
+    void ignoresTheSourceVersionButNotTheValuesTypes() {
+        String hash = YbWriteBatch.contentHash(new Document("text", Map.of("page", 1)));
+
+        assertEquals(hash, YbWriteBatch.contentHash(new Document("text", Map.of("page", 1, "source_version", "v2"))));
+        // toString() renders both as 1, the JSON does not
+        assertNotEquals(hash, YbWriteBatch.contentHash(new Document("text", Map.of("page", "1"))));
+        assertNotEquals(hash, YbWriteBatch.contentHash(new Document("text", Map.of("page", List.of(1)))));
+    }
+}
@@ -0,0 +1,618 @@
+package com.yellowbrick.springai.vectorstore;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationContext;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class YellowBrickVectorStoreTest {
+    private static final String DOC_1 = "00000000-0000-0000-0000-000000000001";
+    private static final String DOC_2 = "00000000-0000-0000-0000-000000000002";
+    private static final String SCORING = "ORDER BY score DESC LIMIT ?";
+    private static final String BATCH_SCORING = "ORDER BY r.query_id, r.score DESC";
+
+    private final RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate();
+    private final StubEmbeddingModel embeddingModel = new StubEmbeddingModel(3).with("q", 1, 0, 0);
+    private final YellowBrickVectorStore store = TestStores.store(this.jdbcTemplate, this.embeddingModel);
+
+    @Test
+    void bindsTopKAndThresholdIntoTheScoringStatement() {
+        this.store.setQueryMode(YellowBrickVectorStore.QueryMode.INLINE);
+
+        this.store.similaritySearch(SearchRequest.query("q").withTopK(7).withSimilarityThreshold(0.25));
+
+        RecordingJdbcTemplate.Statement scoring = TestStores.only(this.jdbcTemplate, SCORING);
+        assertTrue(scoring.sql().contains("HAVING SUM("), scoring.sql());
+        assertFalse(scoring.sql().contains("LIMIT 4"), scoring.sql());
+        assertEquals(List.of(0.25, 7), tail(scoring.args(), 2));
+    }
+
+    @Test
+    void leavesOutTheCutoffWhenEveryScoreIsAccepted() {
+        this.store.setQueryMode(YellowBrickVectorStore.QueryMode.INLINE);
+
+        this.store.similaritySearch(SearchRequest.query("q").withTopK(2));
+
+        RecordingJdbcTemplate.Statement scoring = TestStores.only(this.jdbcTemplate, SCORING);
+        assertFalse(scoring.sql().contains("HAVING"), scoring.sql());
+        assertEquals(List.of(2), tail(scoring.args(), 1));
+    }
+
+    @Test
+    void cutsOffBeforeJoiningTheContentTable() {
+        this.store.setQueryMode(YellowBrickVectorStore.QueryMode.INLINE);
+
+        this.store.similaritySearch(SearchRequest.query("q").withSimilarityThreshold(0.5));
+
+        String sql = TestStores.only(this.jdbcTemplate, SCORING).sql();
+        int having = sql.indexOf("HAVING");
+        int limit = sql.indexOf("LIMIT ?");
+        int content = sql.indexOf("vector_store_content");
+        assertTrue(having >= 0 && having < limit && limit < content, sql);
+    }
+
+    @Test
+    void pushesDownInTheTempTableModeToo() {
+        this.store.similaritySearch(SearchRequest.query("q").withTopK(3).withSimilarityThreshold(0.75));
+
+        RecordingJdbcTemplate.Statement scoring = TestStores.only(this.jdbcTemplate, SCORING);
+        assertTrue(scoring.sql().contains("HAVING SUM("), scoring.sql());
+        assertEquals(List.of(0.75, 3), tail(scoring.args(), 2));
+    }
+
+    @Test
+    void returnsScoreAndDistanceInTheMetadata() {
+        this.store.setQueryMode(YellowBrickVectorStore.QueryMode.INLINE);
+        this.jdbcTemplate.onQuery(SCORING, args -> List.of(
+                new Object[]{DOC_1, "first", "{\"page\":1}", 0.9, 2L},
+                new Object[]{DOC_2, "second", "{}", 0.6, 2L}));
+
+        List<Document> documents = this.store.similaritySearch(SearchRequest.query("q"));
+
+        assertEquals(List.of(DOC_1, DOC_2), documents.stream().map(Document::getId).toList());
+        assertEquals(0.9, (double) documents.get(0).getMetadata().get(YellowBrickVectorStore.SCORE_METADATA_KEY), 1e-9);
+        assertEquals(0.1, (double) documents.get(0).getMetadata().get(YellowBrickVectorStore.DISTANCE_METADATA_KEY), 1e-9);
+        assertEquals(1, documents.get(0).getMetadata().get("page"));
+        assertEquals(0.6, (double) documents.get(1).getMetadata().get(YellowBrickVectorStore.SCORE_METADATA_KEY), 1e-9);
+    }
+
+    @Test
+    void scoresNormalizedStorageWithAPlainDotProduct() {
+        this.store.setQueryMode(YellowBrickVectorStore.QueryMode.INLINE);
+        this.store.setNormalizeEmbeddings(true);
+        this.embeddingModel.with("q", 3, 4, 0);
+
+        this.store.similaritySearch(SearchRequest.query("q"));
+
+        RecordingJdbcTemplate.Statement scoring = TestStores.only(this.jdbcTemplate, SCORING);
+        assertTrue(scoring.sql().contains("SUM(v1.embedding * v2.embedding)"), scoring.sql());
+        assertFalse(scoring.sql().contains("SQRT"), scoring.sql());
+        // the query vector is bound at unit length, one value per dimension
+        assertEquals(List.of(0.6f, 0.8f, 0f), Arrays.asList(scoring.args()).subList(0, 3));
+    }
+
+    @Test
+    void dividesByBothNormsWithoutNormalizedStorage() {
+        this.store.setQueryMode(YellowBrickVectorStore.QueryMode.INLINE);
+
+        this.store.similaritySearch(SearchRequest.query("q"));
+
+        String sql = TestStores.only(this.jdbcTemplate, SCORING).sql();
+        assertTrue(sql.contains("SQRT(SUM(v1.embedding * v1.embedding))"), sql);
+        assertTrue(sql.contains("SQRT(SUM(v2.embedding * v2.embedding))"), sql);
+    }
+
+    @Test
+    void storesUnitVectorsAndTheOriginalNorm() {
+        this.store.setNormalizeEmbeddings(true);
+        this.embeddingModel.with("doc", 3, 4, 0);
+
+        this.store.add(List.of(new Document(DOC_1, "doc", new HashMap<>())));
+
+        RecordingJdbcTemplate.Statement content = TestStores.only(this.jdbcTemplate, "INSERT INTO vector_store_content");
+        assertTrue(content.sql().contains("embedding_norm"), content.sql());
+        assertEquals(5f, content.rows().get(0)[3]);
+        RecordingJdbcTemplate.Statement embeddings = TestStores.only(this.jdbcTemplate, "INSERT INTO vector_store(");
+        assertEquals(List.of(0.6f, 0.8f, 0f), embeddings.rows().stream().map(row -> row[2]).toList());
+    }
+
+    @Test
+    void normalizesStoredEmbeddingsOnlyWhereTheNormIsMissing() {
+        this.jdbcTemplate.onQuery("information_schema.columns", args -> List.<Object[]>of(new Object[]{0}));
+        this.jdbcTemplate.onUpdate("SET embedding_norm = n.norm", args -> 12);
+
+        assertEquals(12, this.store.normalizeStoredEmbeddings());
+
+        List<String> sql = this.jdbcTemplate.statements().stream().map(RecordingJdbcTemplate.Statement::sql).toList();
+        assertTrue(sql.get(1).startsWith("ALTER TABLE vector_store_content ADD COLUMN embedding_norm"), sql.get(1));
+        assertTrue(sql.get(2).contains("WHERE c.embedding_norm IS NULL"), sql.get(2));
+        assertTrue(sql.get(3).contains("embedding = vector_store.embedding / n.norm"), sql.get(3));
+        assertTrue(sql.get(3).contains("n.norm > 0"), sql.get(3));
+        assertTrue(sql.get(4).contains("SET embedding_norm = n.norm"), sql.get(4));
+    }
+
+    @Test
+    void searchesInlineInOneStatement() {
+        this.store.setQueryMode(YellowBrickVectorStore.QueryMode.INLINE);
+
+        this.store.similaritySearch(SearchRequest.query("q"));
+
+        List<RecordingJdbcTemplate.Statement> statements = this.jdbcTemplate.statements();
+        assertEquals(1, statements.size());
+        assertTrue(statements.get(0).sql().contains("(VALUES (0, ?), (1, ?), (2, ?)) v1 (embedding_id, embedding)"), statements.get(0).sql());
+        assertEquals(List.of(1f, 0f, 0f, 4), Arrays.asList(statements.get(0).args()));
+    }
+
+    @Test
+    void searchesThroughATempTableInFourStatements() {
+        this.store.similaritySearch(SearchRequest.query("q"));
+
+        List<RecordingJdbcTemplate.Statement> statements = this.jdbcTemplate.statements();
+        assertEquals(4, statements.size());
+        assertTrue(statements.get(0).sql().contains("CREATE TEMPORARY TABLE  vector_store_query"), statements.get(0).sql());
+        assertEquals(3, statements.get(1).rows().size());
+        assertTrue(statements.get(2).sql().contains(SCORING), statements.get(2).sql());
+        assertTrue(statements.get(3).startsWith("DELETE FROM vector_store_query"), statements.get(3).sql());
+    }
+
+    @Test
+    void bindsOneInlineRowPerPackedBlock() {
+        this.store.setQueryMode(YellowBrickVectorStore.QueryMode.INLINE);
+        this.store.setStorageLayout(YellowBrickVectorStore.StorageLayout.PACKED);
+        this.store.setPackedBlockWidth(2);
+
+        this.store.similaritySearch(SearchRequest.query("q"));
+
+        RecordingJdbcTemplate.Statement scoring = TestStores.only(this.jdbcTemplate, SCORING);
+        assertTrue(scoring.sql().contains("(VALUES (0, ?, ?), (1, ?, ?)) v1 (block_id, e0, e1)"), scoring.sql());
+        // the last block is padded with zeros
+        assertEquals(List.of(1f, 0f, 0f, 0f, 4), Arrays.asList(scoring.args()));
+    }
+
+    @Test
+    void embedsABatchOfQueriesInOneCall() {
+        this.store.similaritySearch(List.of(SearchRequest.query("a"), SearchRequest.query("b"), SearchRequest.query("c")));
+
+        assertEquals(1, this.embeddingModel.calls());
+        TestStores.only(this.jdbcTemplate, "CREATE TEMPORARY TABLE  vector_store_queries");
+        RecordingJdbcTemplate.Statement load = TestStores.only(this.jdbcTemplate, "INSERT INTO vector_store_queries");
+        assertEquals(List.of(0, 0, 0, 1, 1, 1, 2, 2, 2), load.rows().stream().map(row -> row[0]).toList());
+    }
+
+    @Test
+    void mapsBatchRowsBackToTheirRequestsInInputOrder() {
+        this.jdbcTemplate.onQuery(BATCH_SCORING, args -> List.of(
+                new Object[]{0, DOC_1, "first", "{}", 0.9},
+                new Object[]{0, DOC_2, "second", "{}", 0.8},
+                new Object[]{2, DOC_2, "second", "{}", 0.7}));
+
+        List<List<Document>> results = this.store.similaritySearch(
+                List.of(SearchRequest.query("a"), SearchRequest.query("b"), SearchRequest.query("c")));
+
+        assertEquals(3, results.size());
+        assertEquals(List.of(DOC_1, DOC_2), results.get(0).stream().map(Document::getId).toList());
+        assertEquals(List.of(), results.get(1));
+        assertEquals(List.of(DOC_2), results.get(2).stream().map(Document::getId).toList());
+        assertEquals(0.7, (double) results.get(2).get(0).getMetadata().get(YellowBrickVectorStore.SCORE_METADATA_KEY), 1e-9);
+    }
+
+    @Test
+    void bindsEachRequestsOwnTopKAndThreshold() {
+        this.store.similaritySearch(List.of(SearchRequest.query("a").withTopK(2).withSimilarityThreshold(0.5),
+                SearchRequest.query("b").withTopK(9)));
+
+        RecordingJdbcTemplate.Statement scoring = TestStores.only(this.jdbcTemplate, BATCH_SCORING);
+        assertTrue(scoring.sql().contains("GROUP BY v1.query_id, v2.doc_id"), scoring.sql());
+        // cosine similarity is never below -1, so -2 accepts every score
+        assertEquals(List.of(0, 2, 0.5, 1, 9, -2.0), Arrays.asList(scoring.args()));
+    }
+
+    @Test
+    void scoresEachFilterGroupInItsOwnStatement() {
+        this.store.setPromotedMetadata(Map.of("country", "VARCHAR(64)"));
+        this.jdbcTemplate.onQuery("COALESCE(AVG(doc_length), 0)", args -> List.<Object[]>of(new Object[]{10L, 20.0}));
+        Filter.Expression bg = new Filter.Expression(Filter.ExpressionType.EQ, new Filter.Key("country"), new Filter.Value("BG"));
+        this.jdbcTemplate.onQuery(BATCH_SCORING, args -> List.<Object[]>of(new Object[]{args[0], DOC_1, "first", "{}", 0.9}));
+
+        List<List<Document>> results = this.store.similaritySearch(List.of(SearchRequest.query("a").withFilterExpression(bg),
+                SearchRequest.query("b"), SearchRequest.query("c").withFilterExpression(bg)));
+
+        List<RecordingJdbcTemplate.Statement> scoring = this.jdbcTemplate.statements().stream()
+                .filter(statement -> statement.sql().contains(BATCH_SCORING)).toList();
+        assertEquals(2, scoring.size());
+        assertTrue(scoring.get(0).sql().contains("v1.query_id IN (0, 2)"), scoring.get(0).sql());
+        assertTrue(scoring.get(0).sql().contains("f.meta_country = 'BG'"), scoring.get(0).sql());
+        assertTrue(scoring.get(1).sql().contains("v1.query_id IN (1)"), scoring.get(1).sql());
+        assertFalse(scoring.get(1).sql().contains("meta_country"), scoring.get(1).sql());
+        assertEquals(List.of(1, 1, 0), results.stream().map(List::size).toList());
+    }
+
+    @Test
+    void migratesPerDimensionRowsIntoPackedBlocks() {
+        this.store.setStorageLayout(YellowBrickVectorStore.StorageLayout.PACKED);
+        this.store.setPackedBlockWidth(2);
+        int[] counts = {3, 5};
+        int[] count = {0};
+        this.jdbcTemplate.onQuery("COUNT(DISTINCT doc_id) FROM vector_store_packed", args -> List.<Object[]>of(new Object[]{counts[count[0]++]}));
+
+        assertEquals(2, this.store.migrateToPackedLayout());
+
+        RecordingJdbcTemplate.Statement migration = TestStores.only(this.jdbcTemplate, "INSERT INTO vector_store_packed");
+        assertTrue(migration.sql().contains("(doc_id, block_id, e0, e1) SELECT v.doc_id, v.embedding_id / 2,"), migration.sql());
+        assertTrue(migration.sql().contains(" FROM vector_store v"), migration.sql());
+        // documents already packed are skipped, so an interrupted migration can be re-run
+        assertTrue(migration.sql().contains("WHERE v.doc_id NOT IN (SELECT doc_id FROM vector_store_packed)"), migration.sql());
+        assertTrue(migration.sql().endsWith("GROUP BY v.doc_id, v.embedding_id / 2"), migration.sql());
+        assertEquals(0, this.jdbcTemplate.statements("DROP").size());
+    }
+
+    @Test
+    void requantizesAfterMigratingAQuantizedStore() {
+        this.store.setStorageLayout(YellowBrickVectorStore.StorageLayout.PACKED);
+        this.store.setQuantizeEmbeddings(true);
+        this.jdbcTemplate.onQuery("information_schema.columns", args -> List.<Object[]>of(new Object[]{1}));
+
+        this.store.migrateToPackedLayout();
+
+        List<String> sql = this.jdbcTemplate.statements().stream().map(RecordingJdbcTemplate.Statement::sql).toList();
+        int migration = indexOf(sql, "INSERT INTO vector_store_packed");
+        int quantization = indexOf(sql, "UPDATE vector_store_packed SET q0 = ");
+        assertTrue(migration >= 0 && migration < quantization, String.join("\n", sql));
+    }
+
+    @Test
+    void refusesToMigrateWithoutThePackedLayout() {
+        assertThrows(IllegalStateException.class, this.store::migrateToPackedLayout);
+        assertEquals(List.of(), this.jdbcTemplate.statements());
+    }
+
+    @Test
+    void writesPackedRowsOnIngest() {
+        this.store.setStorageLayout(YellowBrickVectorStore.StorageLayout.PACKED);
+        this.store.setPackedBlockWidth(2);
+        this.embeddingModel.with("doc", 1, 2, 3);
+
+        this.store.add(List.of(new Document(DOC_1, "doc", new HashMap<>())));
+
+        RecordingJdbcTemplate.Statement embeddings = TestStores.only(this.jdbcTemplate, "INSERT INTO vector_store_packed(");
+        assertEquals(2, embeddings.rows().size());
+        assertEquals(List.of(0, 1f, 2f), Arrays.asList(embeddings.rows().get(0)).subList(1, 4));
+        assertEquals(List.of(1, 3f, 0f), Arrays.asList(embeddings.rows().get(1)).subList(1, 4));
+    }
+
+    @Test
+    void keepsOnlyTheLastDocumentOfAnId() {
+        this.store.add(List.of(new Document(DOC_1, "first", new HashMap<>()), new Document(DOC_2, "other", new HashMap<>()),
+                new Document(DOC_1, "second", new HashMap<>())));
+
+        RecordingJdbcTemplate.Statement content = TestStores.only(this.jdbcTemplate, "INSERT INTO vector_store_content");
+        assertEquals(List.of(DOC_2, DOC_1), content.rows().stream().map(row -> String.valueOf(row[0])).toList());
+        assertEquals("second", content.rows().get(1)[1]);
+        assertEquals(6, TestStores.only(this.jdbcTemplate, "INSERT INTO vector_store(").rows().size());
+    }
+
+    private static int indexOf(List<String> sql, String prefix) {
+        for (int i = 0; i < sql.size(); i++) {
+            if (sql.get(i).startsWith(prefix)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    void mapsResultsWithoutDecodingTheirMetadata() {
+        this.store.setQueryMode(YellowBrickVectorStore.QueryMode.INLINE);
+        this.jdbcTemplate.onQuery(SCORING, args -> List.<Object[]>of(new Object[]{DOC_1, "first", "not json", 0.9, 1L}));
+
+        List<Document> documents = this.store.similaritySearch(SearchRequest.query("q"));
+
+        assertEquals("first", documents.get(0).getContent());
+        assertThrows(IllegalStateException.class, () -> documents.get(0).getMetadata().get(YellowBrickVectorStore.SCORE_METADATA_KEY));
+    }
+
+    @Test
+    void picksQuantizedCandidatesAndRescoresThemAtFullPrecision() {
+        this.store.setQueryMode(YellowBrickVectorStore.QueryMode.INLINE);
+        this.store.setQuantizeEmbeddings(true);
+        this.store.setQuantizationCandidateMultiplier(5);
+
+        this.store.similaritySearch(SearchRequest.query("q").withTopK(3).withSimilarityThreshold(0.5));
+
+        RecordingJdbcTemplate.Statement scoring = TestStores.only(this.jdbcTemplate, SCORING);
+        String sql = scoring.sql();
+        // the query vector is bound once and read by both passes
+        assertTrue(sql.startsWith(" WITH q (embedding_id, embedding) AS (SELECT * FROM (VALUES (0, ?), (1, ?), (2, ?)) r)"), sql);
+        assertTrue(sql.contains("ORDER BY SUM(v1.embedding * v2.embedding_q) / NULLIF(SQRT(SUM(v2.embedding_q * v2.embedding_q)), 0) DESC NULLS LAST LIMIT ?)"), sql);
+        assertTrue(sql.contains("WHERE v2.doc_id IN (SELECT doc_id FROM c)"), sql);
+        assertEquals(List.of(1f, 0f, 0f, 15, 0.5, 3), Arrays.asList(scoring.args()));
+    }
+
+    @Test
+    void measuresQuantizedRecallAgainstAnUnprobedExactSearch() throws Exception {
+        this.store.setIvf(2, 1, 100, 10);
+        this.store.setQuantizeEmbeddings(true);
+        this.jdbcTemplate.onQuery("vector_store_centroids", args -> List.of(
+                new Object[]{"0", 0, 1f}, new Object[]{"0", 1, 0f}, new Object[]{"0", 2, 0f},
+                new Object[]{"1", 0, 0f}, new Object[]{"1", 1, 1f}, new Object[]{"1", 2, 0f}));
+        this.jdbcTemplate.onQuery("information_schema.columns", args -> List.<Object[]>of(new Object[]{1}));
+        this.store.afterPropertiesSet();
+        this.jdbcTemplate.onQuery(SCORING, args -> List.of(
+                new Object[]{DOC_1, "first", "{}", 0.9, 2L},
+                new Object[]{DOC_2, "second", "{}", 0.8, 2L}));
+        this.jdbcTemplate.onQuery("WITH q (", args -> List.<Object[]>of(new Object[]{DOC_1, "first", "{}", 0.9, 1L}));
+        this.jdbcTemplate.clear();
+
+        assertEquals(0.5, this.store.estimateQuantizationRecall(List.of("q"), 2), 1e-9);
+
+        List<RecordingJdbcTemplate.Statement> scoring = this.jdbcTemplate.statements().stream()
+                .filter(statement -> statement.sql().contains(SCORING)).toList();
+        assertEquals(2, scoring.size());
+        String exact = scoring.get(0).sql();
+        String quantized = scoring.get(1).sql();
+        assertFalse(exact.contains("cluster_id"), exact);
+        assertFalse(exact.contains("embedding_q"), exact);
+        assertTrue(quantized.contains("(v2.cluster_id IN (0)"), quantized);
+        assertTrue(quantized.contains("embedding_q"), quantized);
+    }
+
+    @Test
+    void deletesThroughOneStagedSetOfIds() {
+        this.jdbcTemplate.onUpdate("DELETE FROM vector_store_content", args -> 1);
+
+        Optional<Boolean> deleted = this.store.delete(List.of(DOC_1, DOC_2, DOC_1));
+
+        assertEquals(Optional.of(false), deleted);
+        List<String> sql = this.jdbcTemplate.statements().stream().map(statement -> statement.sql().strip()).toList();
+        assertEquals(5, sql.size(), sql.toString());
+        assertTrue(sql.get(0).startsWith("CREATE TEMPORARY TABLE  vector_store_ids"), sql.get(0));
+        assertEquals(List.of(DOC_1, DOC_2), this.jdbcTemplate.statements().get(1).rows().stream().map(row -> String.valueOf(row[0])).toList());
+        assertEquals("DELETE FROM vector_store WHERE doc_id IN (SELECT doc_id FROM vector_store_ids)", sql.get(2));
+        assertEquals("DELETE FROM vector_store_content WHERE doc_id IN (SELECT doc_id FROM vector_store_ids)", sql.get(3));
+        assertEquals("DROP TABLE vector_store_ids", sql.get(4));
+    }
+
+    @Test
+    void reportsWhetherEveryIdWasDeleted() {
+        this.jdbcTemplate.onUpdate("DELETE FROM vector_store_content", args -> 2);
+
+        assertEquals(Optional.of(true), this.store.delete(List.of(DOC_1, DOC_2)));
+    }
+
+    @Test
+    void stagesDeletedIdsByCopyWhateverTheIngestMode() {
+        this.store.setIngestMode(YellowBrickVectorStore.IngestMode.BATCH_INSERT);
+
+        this.store.delete(List.of(DOC_1));
+
+        assertEquals(List.of(PGConnection.class), this.jdbcTemplate.wrapperChecks());
+    }
+
+    @Test
+    void deletesAStoredDocumentBeforeInsertingItsReplacement() {
+        this.store.add(List.of(new Document(DOC_1, "doc", new HashMap<>())));
+
+        List<String> sql = this.jdbcTemplate.statements().stream().map(statement -> statement.sql().strip()).toList();
+        int deleteContent = indexOf(sql, "DELETE FROM vector_store_content");
+        int drop = indexOf(sql, "DROP TABLE vector_store_ids");
+        int insertContent = indexOf(sql, "INSERT INTO vector_store_content");
+        int insertEmbeddings = indexOf(sql, "INSERT INTO vector_store(");
+        assertTrue(indexOf(sql, "DELETE FROM vector_store ") < deleteContent, sql.toString());
+        assertTrue(deleteContent < drop && drop < insertContent && insertContent < insertEmbeddings, sql.toString());
+    }
+
+    @Test
+    void distributesTheEmbeddingsTableLikeTheContentTable() throws Exception {
+        YellowBrickVectorStore store = new YellowBrickVectorStore("vector_store", this.jdbcTemplate, this.embeddingModel, true,
+                ObservationRegistry.NOOP, null, documents -> List.of(documents), 1000, TestStores.NO_TRANSACTIONS);
+
+        store.afterPropertiesSet();
+
+        String ddl = TestStores.only(this.jdbcTemplate, "CREATE TABLE IF NOT EXISTS vector_store (").sql();
+        assertTrue(ddl.strip().endsWith("DISTRIBUTE ON (doc_id)"), ddl);
+    }
+
+    @Test
+    void leavesTheDistributionOutOfPostgresqlDdl() throws Exception {
+        YellowBrickVectorStore store = new YellowBrickVectorStore("vector_store", this.jdbcTemplate, this.embeddingModel, true,
+                ObservationRegistry.NOOP, null, documents -> List.of(documents), 1000, TestStores.NO_TRANSACTIONS);
+        store.setSqlDialect(YellowBrickVectorStore.SqlDialect.POSTGRESQL);
+
+        store.afterPropertiesSet();
+
+        String ddl = TestStores.only(this.jdbcTemplate, "CREATE TABLE IF NOT EXISTS vector_store (").sql();
+        assertFalse(ddl.contains("DISTRIBUTE"), ddl);
+    }
+
+    @Test
+    void fusesBm25AndVectorRanksInOneStatement() {
+        this.store.setTermIndex(true);
+        this.embeddingModel.with("the vector search vector", 1, 0, 0);
+        this.jdbcTemplate.onQuery("COALESCE(AVG(doc_length), 0)", args -> List.<Object[]>of(new Object[]{10L, 20.0}));
+        this.jdbcTemplate.onQuery("hybrid_score", args -> List.<Object[]>of(new Object[]{DOC_1, "first", "{}", 0.9, 0.03, 4L}));
+
+        List<Document> documents = this.store.similaritySearch(SearchRequest.query("the vector search vector").withTopK(3).withSimilarityThreshold(0.5),
+                new YellowBrickVectorStore.HybridOptions(50, 1.0, 2.0, 60));
+
+        RecordingJdbcTemplate.Statement hybrid = TestStores.only(this.jdbcTemplate, "hybrid_score");
+        String sql = hybrid.sql();
+        // BM25 with the corpus statistics inlined, stop words dropped and query term frequencies bound
+        assertTrue(sql.contains("qt (term, qtf) AS (VALUES (?, ?), (?, ?))"), sql);
+        assertTrue(sql.contains("LN(1 + (10 - df.df + 0.5) / (df.df + 0.5))"), sql);
+        assertTrue(sql.contains("(t.tf * 2.2) / (t.tf + 1.2 * (1 - 0.75 + 0.75 * t.doc_length / 20.0))"), sql);
+        assertTrue(sql.contains("FROM vector_store_terms t"), sql);
+        assertFalse(sql.contains("WHERE t.doc_id IN"), sql);
+        // only the lexical candidates are scored, and the threshold applies to the vector score
+        assertTrue(sql.contains("WHERE v2.doc_id IN (SELECT doc_id FROM lex)"), sql);
+        assertTrue(sql.contains("HAVING SUM("), sql);
+        // reciprocal rank fusion of the two rankings
+        assertTrue(sql.contains("? / (? + lr.lexical_rank) + ? / (? + vr.vector_rank) AS hybrid_score"), sql);
+        assertTrue(sql.indexOf("ORDER BY hybrid_score DESC LIMIT ?") < sql.indexOf("vector_store_content"), sql);
+        assertEquals(List.of("vector", 2, "search", 1, 50, 1f, 0f, 0f, 0.5, 1.0, 60.0, 2.0, 60.0, 3), Arrays.asList(hybrid.args()));
+
+        assertEquals(List.of("first"), documents.stream().map(Document::getContent).toList());
+        assertEquals(0.03, documents.get(0).getMetadata().get(YellowBrickVectorStore.HYBRID_SCORE_METADATA_KEY));
+    }
+
+    @Test
+    void filtersTheLexicalCandidates() {
+        this.store.setTermIndex(true);
+        this.store.setPromotedMetadata(Map.of("country", "VARCHAR(64)"));
+        this.jdbcTemplate.onQuery("COALESCE(AVG(doc_length), 0)", args -> List.<Object[]>of(new Object[]{10L, 20.0}));
+        Filter.Expression bg = new Filter.Expression(Filter.ExpressionType.EQ, new Filter.Key("country"), new Filter.Value("BG"));
+
+        this.store.similaritySearch(SearchRequest.query("search").withFilterExpression(bg), new YellowBrickVectorStore.HybridOptions(5, 1.0, 1.0, 60));
+
+        String sql = TestStores.only(this.jdbcTemplate, "hybrid_score").sql();
+        assertTrue(sql.contains("WHERE t.doc_id IN (SELECT f.doc_id FROM vector_store_content f WHERE "), sql);
+        assertFalse(sql.contains("HAVING"), sql);
+    }
+
+    @Test
+    void observesHybridAndBatchSearchesAsQueries() {
+        ObservationRegistry registry = ObservationRegistry.create();
+        List<VectorStoreObservationContext> observed = new CopyOnWriteArrayList<>();
+        registry.observationConfig().observationHandler(new ObservationHandler<VectorStoreObservationContext>() {
+            @Override
+            public void onStop(VectorStoreObservationContext context) {
+                observed.add(context);
+            }
+
+            @Override
+            public boolean supportsContext(Observation.Context context) {
+                return context instanceof VectorStoreObservationContext;
+            }
+        });
+        YellowBrickVectorStore store = new YellowBrickVectorStore("vector_store", this.jdbcTemplate, this.embeddingModel, false,
+                registry, null, documents -> List.of(documents), 1000, TestStores.NO_TRANSACTIONS);
+        store.setTermIndex(true);
+        this.jdbcTemplate.onQuery("COALESCE(AVG(doc_length), 0)", args -> List.<Object[]>of(new Object[]{10L, 20.0}));
+        this.jdbcTemplate.onQuery("hybrid_score", args -> List.<Object[]>of(new Object[]{DOC_1, "first", "{}", 0.9, 0.03, 1L}));
+        SearchRequest hybrid = SearchRequest.query("search");
+
+        store.similaritySearch(hybrid, new YellowBrickVectorStore.HybridOptions(5, 1.0, 1.0, 60));
+        store.similaritySearch(List.of(SearchRequest.query("a"), SearchRequest.query("b")));
+
+        assertEquals(List.of("query", "query"), observed.stream().map(VectorStoreObservationContext::getOperationName).toList());
+        assertSame(hybrid, observed.get(0).getQueryRequest());
+        assertEquals(1, observed.get(0).getQueryResponse().size());
+        assertEquals(List.of(), observed.get(1).getQueryResponse());
+    }
+
+    @Test
+    void coalescesHybridAndBatchSearchesUnderTheirOwnKeys() {
+        this.store.setTermIndex(true);
+        this.store.setSearchCoalescing(Duration.ofMinutes(1), false);
+        this.jdbcTemplate.onQuery("COALESCE(AVG(doc_length), 0)", args -> List.<Object[]>of(new Object[]{10L, 20.0}));
+        YellowBrickVectorStore.HybridOptions options = new YellowBrickVectorStore.HybridOptions(5, 1.0, 1.0, 60);
+
+        this.store.similaritySearch(SearchRequest.query("search"), options);
+        this.store.similaritySearch(SearchRequest.query("search"), options);
+        this.store.similaritySearch(SearchRequest.query("search"), new YellowBrickVectorStore.HybridOptions(5, 1.0, 2.0, 60));
+        this.store.similaritySearch(List.of(SearchRequest.query("a"), SearchRequest.query("b")));
+        this.store.similaritySearch(List.of(SearchRequest.query("a"), SearchRequest.query("b")));
+
+        assertEquals(2, this.jdbcTemplate.statements().stream().filter(statement -> statement.sql().contains("hybrid_score")).count());
+        assertEquals(1, this.jdbcTemplate.statements().stream().filter(statement -> statement.sql().contains(BATCH_SCORING)).count());
+        assertEquals(2, this.store.getCoalescedSearchCount());
+    }
+
+    @Test
+    void shutsDownTheHotMirrorPoolItCreated() {
+        this.store.setHotMirror(true, 2);
+        ForkJoinPool first = this.store.getHotMirrorPool();
+        this.store.setHotMirror(true, 2);
+        ForkJoinPool second = this.store.getHotMirrorPool();
+
+        assertTrue(first.isShutdown());
+        assertFalse(second.isShutdown());
+        this.store.destroy();
+        assertTrue(second.isShutdown());
+    }
+
+    @Test
+    void leavesASharedHotMirrorPoolRunning() {
+        ForkJoinPool shared = new ForkJoinPool(2);
+        try {
+            this.store.setHotMirror(true, 2);
+            ForkJoinPool owned = this.store.getHotMirrorPool();
+            this.store.setHotMirror(true, shared);
+            this.store.destroy();
+
+            assertTrue(owned.isShutdown());
+            assertFalse(shared.isShutdown());
+        } finally {
+            shared.shutdown();
+        }
+    }
+
+    @Test
+    void plansASyncBySkippingReembeddingAndDeleting() {
+        String doc3 = "00000000-0000-0000-0000-000000000003";
+        String unchangedHash = YbWriteBatch.contentHash(new Document("stored", "unchanged", Map.of("source", "a.pdf", "page", 1)));
+        this.jdbcTemplate.onQuery("SELECT doc_id, content_hash", args -> List.of(
+                new Object[]{DOC_1, unchangedHash},
+                new Object[]{DOC_2, "hash of the old text"},
+                // a second copy of a kept chunk from before sync existed
+                new Object[]{doc3, unchangedHash}));
+
+        YellowBrickVectorStore.SyncPlan plan = this.store.planSync("a.pdf", "v2", List.of(
+                new Document("unchanged", new HashMap<>(Map.of("page", 1))),
+                new Document("edited", new HashMap<>(Map.of("page", 2)))));
+
+        assertEquals(List.of("edited"), plan.added().stream().map(Document::getContent).toList());
+        assertEquals(1, plan.unchanged());
+        assertEquals(List.of(DOC_2, doc3), plan.deleted().stream().sorted().toList());
+        assertEquals(Map.of("page", 2, "source", "a.pdf", "source_version", "v2"), plan.added().get(0).getMetadata());
+    }
+
+    @Test
+    void leavesTheCallersDocumentsUntouchedWhenPlanning() {
+        Document document = new Document("text", new HashMap<>(Map.of("page", 1)));
+
+        this.store.planSync("a.pdf", "v2", List.of(document));
+
+        assertEquals(Map.of("page", 1), document.getMetadata());
+    }
+
+    @Test
+    void restampsTheVersionInTheMetadataAndTheColumn() {
+        this.jdbcTemplate.onQuery("SELECT doc_id, metadata", args -> List.<Object[]>of(
+                new Object[]{DOC_1, "{\"source\":\"a.pdf\",\"source_version\":\"v1\",\"page\":1}"}));
+
+        YellowBrickVectorStore.SyncResult result = this.store.finishSync(
+                new YellowBrickVectorStore.SyncPlan("a.pdf", "v2", List.of(), 1, List.of(DOC_2)));
+
+        assertEquals(new YellowBrickVectorStore.SyncResult(0, 1, 1), result);
+        List<String> sql = this.jdbcTemplate.statements().stream().map(RecordingJdbcTemplate.Statement::sql).toList();
+        assertTrue(indexOf(sql, "DELETE FROM vector_store_content") < indexOf(sql, "UPDATE vector_store_content"), sql.toString());
+        RecordingJdbcTemplate.Statement update = TestStores.only(this.jdbcTemplate, "SET metadata = ?, source_version = ?");
+        Object[] row = update.rows().get(0);
+        assertEquals(Map.of("source", "a.pdf", "source_version", "v2", "page", 1), this.store.parseMetadata((String) row[0]));
+        assertEquals(List.of("v2", DOC_1), List.of(row[1], row[2]));
+    }
+
+    static List<Object> tail(Object[] args, int count) {
+        return Arrays.asList(args).subList(args.length - count, args.length);
+    }
+}